@@ -24,6 +24,7 @@ import com.devicehive.shim.api.Request;
 import com.devicehive.shim.api.client.RpcClient;
 import com.devicehive.shim.config.KafkaRpcConfig;
 import com.devicehive.shim.kafka.client.KafkaRpcClient;
+import com.devicehive.api.InFlightLimiter;
 import com.devicehive.api.RequestResponseMatcher;
 import com.devicehive.shim.kafka.client.ServerResponseListener;
 import com.devicehive.shim.kafka.serializer.RequestSerializer;
@@ -101,14 +102,34 @@ public class AuthRpcClientConfig {
     @Value("${rpc.client.response-consumer.threads:3}")
     private int responseConsumerThreads;
 
+    @Value("${rpc.client.request.timeout.ms:60000}")
+    private long requestTimeoutMs;
+
+    @Value("${rpc.client.stream.idle-timeout.ms:300000}")
+    private long streamIdleTimeoutMs;
+
+    @Value("${rpc.client.callback.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int callbackThreads;
+
+    @Value("${rpc.client.callback.queue-capacity:1024}")
+    private int callbackQueueCapacity;
+
+    @Value("${rpc.client.in-flight.max:0}")
+    private int maxInFlight;
+
+    @Value("${rpc.client.in-flight.per-action:}")
+    private String actionInFlightLimits;
+
     @Bean
     public RequestResponseMatcher requestResponseMatcher() {
-        return new RequestResponseMatcher();
+        RequestResponseMatcher matcher = new RequestResponseMatcher(requestTimeoutMs, streamIdleTimeoutMs, callbackThreads, callbackQueueCapacity);
+        matcher.setInFlightLimiter(new InFlightLimiter(maxInFlight, actionInFlightLimits));
+        return matcher;
     }
 
     @Bean
     public Producer<String, Request> kafkaRequestProducer(Gson gson) {
-        return new KafkaProducer<>(kafkaRpcConfig.producerProps(), new StringSerializer(), new RequestSerializer(gson));
+        return new KafkaProducer<>(kafkaRpcConfig.producerProps(), new StringSerializer(), new RequestSerializer(gson, kafkaRpcConfig.getRpcCodec()));
     }
 
     @Profile("!test")
@@ -139,7 +160,7 @@ public class AuthRpcClientConfig {
         ExecutorService executor = Executors.newFixedThreadPool(responseConsumerThreads);
         Properties consumerProps = kafkaRpcConfig.clientConsumerProps();
         return new ServerResponseListener(RESPONSE_TOPIC, responseConsumerThreads,
-                responseMatcher, consumerProps, executor, new ResponseSerializer(gson));
+                responseMatcher, consumerProps, executor, new ResponseSerializer(gson, kafkaRpcConfig.getRpcCodec()));
     }
 
 }
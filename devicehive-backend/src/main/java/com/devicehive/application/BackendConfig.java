@@ -24,9 +24,11 @@ import com.devicehive.model.eventbus.FilterRegistry;
 import com.devicehive.json.GsonFactory;
 import com.devicehive.shim.api.server.MessageDispatcher;
 import com.google.gson.Gson;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import com.devicehive.eventbus.EventBus;
+import com.devicehive.eventbus.EventConflator;
 import org.springframework.context.annotation.DependsOn;
 
 @Configuration
@@ -37,9 +39,16 @@ public class BackendConfig {
         return GsonFactory.createGson();
     }
 
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public EventConflator eventConflator(MessageDispatcher dispatcher, FilterRegistry filterRegistry,
+                                         @Value("${eventbus.conflation.tick.ms:50}") long tickMs) {
+        return new EventConflator(dispatcher, filterRegistry, tickMs);
+    }
+
     @Bean
     @DependsOn("filterRegistry")
-    public EventBus eventBus(MessageDispatcher dispatcher, FilterRegistry filterRegistry) {
-        return new EventBus(dispatcher, filterRegistry);
+    public EventBus eventBus(MessageDispatcher dispatcher, FilterRegistry filterRegistry, Gson gson,
+                             EventConflator eventConflator) {
+        return new EventBus(dispatcher, filterRegistry, gson, eventConflator);
     }
 }
@@ -24,6 +24,7 @@ import com.devicehive.api.HandlersMapper;
 import com.devicehive.messages.handler.DeviceDeleteHandler;
 import com.devicehive.messages.handler.PluginSubscribeRequestHandler;
 import com.devicehive.messages.handler.PluginUnsubscribeRequestHandler;
+import com.devicehive.messages.handler.SubscriptionHeartbeatHandler;
 import com.devicehive.messages.handler.command.*;
 import com.devicehive.messages.handler.dao.count.*;
 import com.devicehive.messages.handler.dao.list.*;
@@ -68,6 +69,7 @@ public class RequestHandlersMapper implements HandlersMapper {
     private final PluginUnsubscribeRequestHandler pluginUnsubscribeRequestHandler;
     private final ListPluginHandler listPluginHandler;
     private final CountPluginHandler countPluginHandler;
+    private final SubscriptionHeartbeatHandler subscriptionHeartbeatHandler;
 
     private Map<Action, RequestHandler> requestHandlerMap;
 
@@ -96,7 +98,8 @@ public class RequestHandlersMapper implements HandlersMapper {
                                  PluginSubscribeRequestHandler pluginSubscribeRequestHandler,
                                  PluginUnsubscribeRequestHandler pluginUnsubscribeRequestHandler,
                                  ListPluginHandler listPluginHandler,
-                                 CountPluginHandler countPluginHandler) {
+                                 CountPluginHandler countPluginHandler,
+                                 SubscriptionHeartbeatHandler subscriptionHeartbeatHandler) {
         this.commandUpdateHandler = commandUpdateHandler;
         this.notificationSearchHandler = notificationSearchHandler;
         this.notificationInsertHandler = notificationInsertHandler;
@@ -121,6 +124,7 @@ public class RequestHandlersMapper implements HandlersMapper {
         this.pluginUnsubscribeRequestHandler = pluginUnsubscribeRequestHandler;
         this.listPluginHandler = listPluginHandler;
         this.countPluginHandler = countPluginHandler;
+        this.subscriptionHeartbeatHandler = subscriptionHeartbeatHandler;
     }
 
     @PostConstruct
@@ -150,6 +154,7 @@ public class RequestHandlersMapper implements HandlersMapper {
                 .put(Action.DEVICE_DELETE_REQUEST, deviceDeleteHandler)
                 .put(Action.LIST_PLUGIN_REQUEST, listPluginHandler)
                 .put(Action.COUNT_PLUGIN_REQUEST, countPluginHandler)
+                .put(Action.SUBSCRIPTION_HEARTBEAT_REQUEST, subscriptionHeartbeatHandler)
                 .build();
     }
 
@@ -22,28 +22,59 @@ package com.devicehive.eventbus;
 
 import com.devicehive.model.eventbus.Filter;
 import com.devicehive.model.eventbus.FilterRegistry;
+import com.devicehive.model.eventbus.PayloadPredicate;
 import com.devicehive.model.eventbus.Subscriber;
 import com.devicehive.model.eventbus.events.Event;
+import com.devicehive.shim.api.Body;
+import com.devicehive.shim.api.EncodedBody;
 import com.devicehive.shim.api.Response;
 import com.devicehive.shim.api.server.MessageDispatcher;
 import com.devicehive.vo.DeviceVO;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Central class for interaction with devicehive-backend subscription mechanism.
  * Provides basic interfaces and operations for subscription, unsubscription and publishing of events.
  */
 public class EventBus {
+    private static final Logger logger = LoggerFactory.getLogger(EventBus.class);
 
     private final FilterRegistry registry;
     private final MessageDispatcher dispatcher;
+    private final Gson gson;
+    private final EventConflator conflator;
+    private final LongAdder skippedDeliveries = new LongAdder();
 
     /**
      * Creates new instance of EventBus
      * @param dispatcher - interface, that controls message delivery strategy
+     * @param gson - used to encode event once when it goes to several reply topics
+     */
+    public EventBus(MessageDispatcher dispatcher, FilterRegistry registry, Gson gson) {
+        this(dispatcher, registry, gson, null);
+    }
+
+    /**
+     * Creates new instance of EventBus, that conflates events for subscribers with conflation window
+     * @param conflator - holds back events of conflating subscribers till the end of their window
      */
-    public EventBus(MessageDispatcher dispatcher, FilterRegistry registry) {
+    public EventBus(MessageDispatcher dispatcher, FilterRegistry registry, Gson gson, EventConflator conflator) {
         this.dispatcher = dispatcher;
         this.registry = registry;
+        this.gson = gson;
+        this.conflator = conflator;
     }
 
     public void subscribe(Filter filter, Subscriber subscriber) {
@@ -54,21 +85,120 @@ public class EventBus {
         registry.unregister(subscriber);
     }
 
+    /**
+     * Delivers event to all matching subscribers. Subscribers that share reply topic get a single
+     * batched response carrying the event once together with all their correlation ids.
+     * If there are several reply topics, event is serialized once and reused by all responses.
+     * Topics with expired subscription lease are skipped, as well as subscribers whose payload predicate
+     * does not match event parameters, malformed parameters match no predicate. Subscribers with conflation window get the event through conflator,
+     * only if it is still the latest one when their window ends and their lease has not expired by then.
+     */
     public void publish(Event event) {
-        event.getApplicableFilters()
-                .stream()
-                .flatMap(filter -> registry.getSubscribers(filter).stream())
-                .forEach(subscriber -> {
-                    Response response = Response.newBuilder()
-                            .withBody(event)
-                            .withCorrelationId(subscriber.getCorrelationId())
-                            .withLast(false)
-                            .buildSuccess();
-                    dispatcher.send(subscriber.getReplyTo(), response);
-                });
+        ReplyTopics replyTopics = new ReplyTopics(event, conflator);
+        registry.forEachSubscriber(event, replyTopics);
+        Body body = replyTopics.isSingle() ? event : new EncodedBody(event, gson.toJson(event, Body.class));
+        replyTopics.forEach((replyTo, correlationIds) -> {
+            if (registry.isLeaseExpired(replyTo)) {
+                skippedDeliveries.add(correlationIds.size());
+                return;
+            }
+            Response.Builder<Body> builder = Response.newBuilder()
+                    .withBody(body)
+                    .withLast(false);
+            if (correlationIds.size() == 1) {
+                builder.withCorrelationId(correlationIds.get(0));
+            } else {
+                builder.withCorrelationIds(correlationIds);
+            }
+            dispatcher.send(replyTo, builder.buildSuccess());
+        });
     }
 
     public void unsubscribeDevice(DeviceVO device) {
          registry.unregisterDevice(device);
     }
+
+    /**
+     * @return number of deliveries not sent because subscription lease of the reply topic expired,
+     * including the ones held back by conflator
+     */
+    public long getSkippedDeliveries() {
+        return skippedDeliveries.sum() + (conflator != null ? conflator.getSkippedDeliveries() : 0);
+    }
+
+    /**
+     * Groups correlation ids of matched subscribers by reply topic. The common case of a single topic
+     * is kept out of the map. Event parameters are parsed once, when the first subscriber with payload
+     * predicate is met, if they are malformed only subscribers with payload predicate miss the event.
+     * Conflating subscribers are handed over to conflator instead.
+     */
+    private static class ReplyTopics implements Consumer<Subscriber> {
+
+        private final Event event;
+        private final EventConflator conflator;
+        private final String conflationKey;
+        private JsonElement parameters;
+        private boolean malformedParameters;
+
+        private String firstReplyTo;
+        private List<String> firstCorrelationIds;
+        private Map<String, List<String>> otherReplyTopics;
+
+        ReplyTopics(Event event, EventConflator conflator) {
+            this.event = event;
+            this.conflator = conflator;
+            this.conflationKey = conflator != null ? event.getConflationKey() : null;
+        }
+
+        @Override
+        public void accept(Subscriber subscriber) {
+            PayloadPredicate predicate = subscriber.getPayloadPredicate();
+            if (predicate != null && !matches(predicate)) {
+                return;
+            }
+            if (conflationKey != null && subscriber.getConflationWindow() > 0) {
+                conflator.offer(subscriber, event, conflationKey);
+                return;
+            }
+            String replyTo = subscriber.getReplyTo();
+            if (firstReplyTo == null) {
+                firstReplyTo = replyTo;
+                firstCorrelationIds = new ArrayList<>(1);
+                firstCorrelationIds.add(subscriber.getCorrelationId());
+            } else if (firstReplyTo.equals(replyTo)) {
+                firstCorrelationIds.add(subscriber.getCorrelationId());
+            } else {
+                if (otherReplyTopics == null) {
+                    otherReplyTopics = new LinkedHashMap<>();
+                }
+                otherReplyTopics.computeIfAbsent(replyTo, topic -> new ArrayList<>()).add(subscriber.getCorrelationId());
+            }
+        }
+
+        private boolean matches(PayloadPredicate predicate) {
+            if (parameters == null && !malformedParameters) {
+                try {
+                    parameters = PayloadPredicate.parse(event.getParameters());
+                } catch (JsonParseException e) {
+                    malformedParameters = true;
+                    logger.debug("Parameters of event {} match no payload predicate, they are malformed: {}", event, e.getMessage());
+                }
+            }
+            return !malformedParameters && predicate.test(parameters);
+        }
+
+        boolean isSingle() {
+            return otherReplyTopics == null;
+        }
+
+        void forEach(BiConsumer<String, List<String>> action) {
+            if (firstReplyTo == null) {
+                return;
+            }
+            action.accept(firstReplyTo, firstCorrelationIds);
+            if (otherReplyTopics != null) {
+                otherReplyTopics.forEach(action);
+            }
+        }
+    }
 }
@@ -0,0 +1,181 @@
+package com.devicehive.eventbus;
+
+/*
+ * #%L
+ * DeviceHive Backend Logic
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.eventbus.FilterRegistry;
+import com.devicehive.model.eventbus.Subscriber;
+import com.devicehive.model.eventbus.events.Event;
+import com.devicehive.shim.api.Body;
+import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.server.MessageDispatcher;
+import com.devicehive.util.HashedTimerWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds back events for subscribers with conflation window and delivers only the latest event per value
+ * (e.g. device and notification name) once the window is over. Subscribers of the same reply topic with the
+ * same window and predicate share a slot, so the latest event goes to all of them in a single response.
+ * Same as direct deliveries, the event is dropped if subscription lease of the reply topic has expired by then.
+ */
+public class EventConflator {
+
+    private static final int WHEEL_SIZE = 512;
+
+    private final MessageDispatcher dispatcher;
+    private final FilterRegistry registry;
+    private final HashedTimerWheel<Slot> timerWheel;
+    private final ConcurrentMap<SlotKey, Slot> slots = new ConcurrentHashMap<>();
+
+    private final LongAdder conflatedEvents = new LongAdder();
+    private final LongAdder deliveredEvents = new LongAdder();
+    private final LongAdder skippedDeliveries = new LongAdder();
+
+    public EventConflator(MessageDispatcher dispatcher, FilterRegistry registry, long tickMs) {
+        this.dispatcher = dispatcher;
+        this.registry = registry;
+        this.timerWheel = new HashedTimerWheel<>("event-conflator", tickMs, WHEEL_SIZE, this::flush);
+    }
+
+    public void start() {
+        timerWheel.start();
+    }
+
+    public void stop() {
+        timerWheel.stop();
+    }
+
+    /**
+     * Keeps the event as the latest value for the subscriber. The first event of a window opens it,
+     * the following ones replace the pending event.
+     */
+    public void offer(Subscriber subscriber, Event event, String conflationKey) {
+        SlotKey key = new SlotKey(subscriber.getReplyTo(), subscriber.getConflationWindow(),
+                subscriber.getPredicate(), conflationKey);
+        slots.compute(key, (k, slot) -> {
+            if (slot == null) {
+                slot = new Slot(k);
+                timerWheel.schedule(slot, System.currentTimeMillis() + k.window);
+            } else {
+                conflatedEvents.increment();
+            }
+            slot.event = event;
+            slot.correlationIds.add(subscriber.getCorrelationId());
+            return slot;
+        });
+    }
+
+    /**
+     * @return number of events replaced by a later event within conflation window and never delivered
+     */
+    public long getConflatedEvents() {
+        return conflatedEvents.sum();
+    }
+
+    /**
+     * @return number of events delivered at the end of conflation window
+     */
+    public long getDeliveredEvents() {
+        return deliveredEvents.sum();
+    }
+
+    /**
+     * @return number of deliveries not sent at the end of conflation window because subscription lease of
+     * the reply topic expired
+     */
+    public long getSkippedDeliveries() {
+        return skippedDeliveries.sum();
+    }
+
+    /**
+     * @return number of values with event waiting for the end of conflation window
+     */
+    public int getPendingSlots() {
+        return slots.size();
+    }
+
+    private void flush(Slot slot) {
+        if (!slots.remove(slot.key, slot)) {
+            return;
+        }
+        List<String> correlationIds = new ArrayList<>(slot.correlationIds);
+        if (registry.isLeaseExpired(slot.key.replyTo)) {
+            skippedDeliveries.add(correlationIds.size());
+            return;
+        }
+        Response.Builder<Body> builder = Response.newBuilder()
+                .withBody(slot.event)
+                .withLast(false);
+        if (correlationIds.size() == 1) {
+            builder.withCorrelationId(correlationIds.get(0));
+        } else {
+            builder.withCorrelationIds(correlationIds);
+        }
+        dispatcher.send(slot.key.replyTo, builder.buildSuccess());
+        deliveredEvents.increment();
+    }
+
+    private static class Slot {
+        private final SlotKey key;
+        private final Set<String> correlationIds = ConcurrentHashMap.newKeySet();
+        private volatile Event event;
+
+        Slot(SlotKey key) {
+            this.key = key;
+        }
+    }
+
+    private static class SlotKey {
+        private final String replyTo;
+        private final long window;
+        private final String predicate;
+        private final String conflationKey;
+
+        SlotKey(String replyTo, long window, String predicate, String conflationKey) {
+            this.replyTo = replyTo;
+            this.window = window;
+            this.predicate = predicate;
+            this.conflationKey = conflationKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SlotKey)) return false;
+            SlotKey that = (SlotKey) o;
+            return window == that.window &&
+                    Objects.equals(replyTo, that.replyTo) &&
+                    Objects.equals(predicate, that.predicate) &&
+                    Objects.equals(conflationKey, that.conflationKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(replyTo, window, predicate, conflationKey);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.devicehive.eventbus;
+
+/*
+ * #%L
+ * DeviceHive Backend Logic
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.eventbus.FilterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Exposes subscription registry size, startup bootstrap figures, lease expiration and conflation counters through actuator metrics.
+ */
+@Component
+public class FilterRegistryMetrics implements PublicMetrics {
+
+    private final FilterRegistry filterRegistry;
+    private final SubscriptionLeaseSweeper leaseSweeper;
+    private final EventBus eventBus;
+    private final EventConflator eventConflator;
+
+    @Autowired
+    public FilterRegistryMetrics(FilterRegistry filterRegistry, SubscriptionLeaseSweeper leaseSweeper, EventBus eventBus,
+                                 EventConflator eventConflator) {
+        this.filterRegistry = filterRegistry;
+        this.leaseSweeper = leaseSweeper;
+        this.eventBus = eventBus;
+        this.eventConflator = eventConflator;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("subscriptions.count", filterRegistry.getSubscriptionCount()));
+        metrics.add(new Metric<>("subscriptions.bootstrap.time", filterRegistry.getBootstrapTime()));
+        metrics.add(new Metric<>("subscriptions.bootstrap.entries", filterRegistry.getBootstrapEntries()));
+        metrics.add(new Metric<>("subscriptions.leases.tracked", leaseSweeper.getTrackedLeases()));
+        metrics.add(new Metric<>("subscriptions.leases.expired", leaseSweeper.getExpiredLeases()));
+        metrics.add(new Metric<>("subscriptions.leases.reclaimed", leaseSweeper.getReclaimedSubscriptions()));
+        metrics.add(new Metric<>("subscriptions.leases.skipped.deliveries", eventBus.getSkippedDeliveries()));
+        metrics.add(new Metric<>("subscriptions.conflation.pending", eventConflator.getPendingSlots()));
+        metrics.add(new Metric<>("subscriptions.conflation.conflated", eventConflator.getConflatedEvents()));
+        metrics.add(new Metric<>("subscriptions.conflation.delivered", eventConflator.getDeliveredEvents()));
+        return metrics;
+    }
+}
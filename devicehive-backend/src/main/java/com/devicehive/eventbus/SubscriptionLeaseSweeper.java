@@ -0,0 +1,115 @@
+package com.devicehive.eventbus;
+
+/*
+ * #%L
+ * DeviceHive Backend Logic
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.eventbus.FilterRegistry;
+import com.devicehive.util.HashedTimerWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Removes subscriptions of nodes, that stopped renewing their lease, e.g. frontends that went down without
+ * unsubscribing. Each reply topic with a lease has a single timeout in the timer wheel, which is moved
+ * forward on expiry if the lease was renewed in the meantime.
+ */
+@Component
+public class SubscriptionLeaseSweeper {
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionLeaseSweeper.class);
+
+    private static final int WHEEL_SIZE = 64;
+
+    private final FilterRegistry filterRegistry;
+    private final long leaseTimeout;
+    private final HashedTimerWheel<String> timerWheel;
+    private final Set<String> trackedTopics = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder expiredLeases = new LongAdder();
+    private final LongAdder reclaimedSubscriptions = new LongAdder();
+
+    @Autowired
+    public SubscriptionLeaseSweeper(FilterRegistry filterRegistry,
+                                    @Value("${subscription.lease.timeout.ms:60000}") long leaseTimeout,
+                                    @Value("${subscription.lease.sweep.tick.ms:1000}") long tickMs) {
+        this.filterRegistry = filterRegistry;
+        this.leaseTimeout = leaseTimeout;
+        this.timerWheel = new HashedTimerWheel<>("subscription-lease-sweeper", tickMs, WHEEL_SIZE, this::sweep);
+    }
+
+    @PostConstruct
+    public void start() {
+        filterRegistry.enableLeases(leaseTimeout, this::track);
+        timerWheel.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        timerWheel.stop();
+    }
+
+    public long getExpiredLeases() {
+        return expiredLeases.sum();
+    }
+
+    public long getReclaimedSubscriptions() {
+        return reclaimedSubscriptions.sum();
+    }
+
+    public int getTrackedLeases() {
+        return trackedTopics.size();
+    }
+
+    private void track(String replyTo, Long renewal) {
+        if (trackedTopics.add(replyTo)) {
+            timerWheel.schedule(replyTo, renewal + leaseTimeout);
+        }
+    }
+
+    private void sweep(String replyTo) {
+        Long renewal = filterRegistry.getLeaseRenewal(replyTo);
+        if (renewal != null && renewal + leaseTimeout > System.currentTimeMillis()) {
+            timerWheel.schedule(replyTo, renewal + leaseTimeout);
+            return;
+        }
+        trackedTopics.remove(replyTo);
+        if (renewal == null) {
+            return;
+        }
+        Set<Long> reclaimed = filterRegistry.reclaim(replyTo, renewal);
+        Long newRenewal = filterRegistry.getLeaseRenewal(replyTo);
+        if (newRenewal == null) {
+            expiredLeases.increment();
+            reclaimedSubscriptions.add(reclaimed.size());
+            logger.info("Subscription lease of {} expired, {} subscriptions reclaimed", replyTo, reclaimed.size());
+        } else {
+            // lease was renewed while being reclaimed
+            track(replyTo, newRenewal);
+        }
+    }
+}
@@ -69,7 +69,6 @@ public class PluginSubscribeRequestHandler implements RequestHandler {
 
         return Response.newBuilder()
                 .withBody(new PluginSubscribeResponse(body.getSubscriptionId()))
-                .withLast(false)
                 .withCorrelationId(request.getCorrelationId())
                 .buildSuccess();
     }
@@ -81,6 +80,7 @@ public class PluginSubscribeRequestHandler implements RequestHandler {
                     filter.setEventName(NOTIFICATION_EVENT.name());
                     NotificationSubscribeRequest notificationSubscribeRequest = new NotificationSubscribeRequest(
                             body.getSubscriptionId(), filter, body.getNames(), null);
+                    notificationSubscribeRequest.setPredicate(body.getPredicate());
 
                     Request notificationRequest = Request.newBuilder()
                             .withBody(notificationSubscribeRequest)
@@ -98,6 +98,7 @@ public class PluginSubscribeRequestHandler implements RequestHandler {
                     filter.setEventName(COMMAND_EVENT.name());
                     CommandSubscribeRequest commandSubscribeRequest = new CommandSubscribeRequest(body.getSubscriptionId(),
                             filter, body.getNames(), null, returnUpdated, 0);
+                    commandSubscribeRequest.setPredicate(body.getPredicate());
 
                     Request commandRequest = Request.newBuilder()
                             .withBody(commandSubscribeRequest)
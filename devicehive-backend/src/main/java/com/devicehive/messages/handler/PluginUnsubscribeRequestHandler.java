@@ -61,7 +61,6 @@ public class PluginUnsubscribeRequestHandler implements RequestHandler {
         
         return Response.newBuilder()
                 .withBody(new PluginUnsubscribeResponse(body.getSubscriptionId()))
-                .withLast(false)
                 .withCorrelationId(request.getCorrelationId())
                 .buildSuccess();
     }
@@ -25,6 +25,7 @@ import com.devicehive.shim.api.Action;
 import com.devicehive.model.rpc.ErrorResponse;
 import com.devicehive.shim.api.Request;
 import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.server.BatchRequestHandler;
 import com.devicehive.shim.api.server.RequestHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,10 +34,12 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Component("request-dispatcher")
-public class RequestDispatcher implements RequestHandler {
+public class RequestDispatcher implements BatchRequestHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(RequestDispatcher.class);
 
@@ -51,7 +54,7 @@ public class RequestDispatcher implements RequestHandler {
     @Override
     @SuppressWarnings("unchecked")
     public Response handle(Request request) {
-        final Action action = request.getBody().getAction();
+        final Action action = request.getAction();
         try {
             return Optional.ofNullable(requestHandlersMapper.requestHandlerMap().get(action))
                     .map(handler -> handler.handle(request))
@@ -64,4 +67,32 @@ public class RequestDispatcher implements RequestHandler {
                     .buildFailed(HttpStatus.INTERNAL_SERVER_ERROR.value());
         }
     }
+
+    /**
+     * Passes the batch to handler of the action if it supports batches, otherwise handles requests one by one.
+     */
+    @Override
+    public List<Response> handle(List<Request> requests) {
+        final Action action = requests.get(0).getAction();
+        RequestHandler handler = requestHandlersMapper.requestHandlerMap().get(action);
+        if (handler instanceof BatchRequestHandler) {
+            try {
+                return ((BatchRequestHandler) handler).handle(requests);
+            } catch (Exception e) {
+                logger.error("Unable to handle batch of {} requests.", requests.size(), e);
+                return requests.stream()
+                        .map(request -> Response.newBuilder()
+                                .withBody(new ErrorResponse(e.getMessage()))
+                                .withLast(true)
+                                .buildFailed(HttpStatus.INTERNAL_SERVER_ERROR.value()))
+                        .collect(Collectors.toList());
+            }
+        }
+        return requests.stream().map(this::handle).collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean isBatchSupported(Action action) {
+        return requestHandlersMapper.requestHandlerMap().get(action) instanceof BatchRequestHandler;
+    }
 }
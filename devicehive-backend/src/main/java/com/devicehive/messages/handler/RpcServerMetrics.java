@@ -0,0 +1,64 @@
+package com.devicehive.messages.handler;
+
+/*
+ * #%L
+ * DeviceHive Backend Logic
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.api.RpcLatencyRecorder;
+import com.devicehive.proxy.api.ProxyClientStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Exposes latency distributions of server stages per request action through actuator metrics, e.g.
+ * {@code rpc.server.latency.notification_insert_request.handler.p99}. Only requests stamped by clients are recorded.
+ * Proxy connection counters of the backend, e.g. in-flight messages per connection, reconnects and sizes of batched
+ * frames, are exposed as {@code proxy.*}.
+ */
+@Component
+public class RpcServerMetrics implements PublicMetrics {
+
+    private final RpcLatencyRecorder latencyRecorder;
+
+    @Autowired
+    public RpcServerMetrics(RpcLatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        List<Metric<?>> metrics = new ArrayList<>();
+        latencyRecorder.forEach((action, stage, histogram) -> {
+            String prefix = "rpc.server.latency." + action.name().toLowerCase() + "." + stage.name().toLowerCase();
+            metrics.add(new Metric<>(prefix + ".count", histogram.getTotalCount()));
+            metrics.add(new Metric<>(prefix + ".p50", histogram.getValueAtPercentile(50)));
+            metrics.add(new Metric<>(prefix + ".p99", histogram.getValueAtPercentile(99)));
+            metrics.add(new Metric<>(prefix + ".max", histogram.getMaxValue()));
+        });
+
+        ProxyClientStats.forEach((name, value) -> metrics.add(new Metric<>(name, value)));
+        return metrics;
+    }
+}
@@ -0,0 +1,50 @@
+package com.devicehive.messages.handler;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.eventbus.FilterRegistry;
+import com.devicehive.model.rpc.SubscriptionHeartbeatResponse;
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.server.RequestHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SubscriptionHeartbeatHandler implements RequestHandler {
+
+    private FilterRegistry filterRegistry;
+
+    @Autowired
+    public void setFilterRegistry(FilterRegistry filterRegistry) {
+        this.filterRegistry = filterRegistry;
+    }
+
+    @Override
+    public Response handle(Request request) {
+        filterRegistry.renew(request.getReplyTo());
+
+        return Response.newBuilder()
+                .withBody(new SubscriptionHeartbeatResponse())
+                .withCorrelationId(request.getCorrelationId())
+                .buildSuccess();
+    }
+}
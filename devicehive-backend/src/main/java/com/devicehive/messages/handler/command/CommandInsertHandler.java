@@ -28,12 +28,15 @@ import com.devicehive.model.rpc.CommandInsertResponse;
 import com.devicehive.service.HazelcastService;
 import com.devicehive.shim.api.Request;
 import com.devicehive.shim.api.Response;
-import com.devicehive.shim.api.server.RequestHandler;
+import com.devicehive.shim.api.server.BatchRequestHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
-public class CommandInsertHandler implements RequestHandler {
+public class CommandInsertHandler implements BatchRequestHandler {
 
     private HazelcastService hazelcastService;
     private EventBus eventBus;
@@ -61,4 +64,26 @@ public class CommandInsertHandler implements RequestHandler {
                 .withBody(payload)
                 .buildSuccess();
     }
+
+    /**
+     * Publishes all commands of the batch, then stores them with a single call to the cluster.
+     */
+    @Override
+    public List<Response> handle(List<Request> requests) {
+        List<DeviceCommand> commands = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            DeviceCommand command = request.getBody().cast(CommandInsertRequest.class).getDeviceCommand();
+            eventBus.publish(new CommandEvent(command));
+            commands.add(command);
+        }
+        hazelcastService.storeAll(commands);
+
+        List<Response> responses = new ArrayList<>(commands.size());
+        for (DeviceCommand command : commands) {
+            responses.add(Response.newBuilder()
+                    .withBody(new CommandInsertResponse(command))
+                    .buildSuccess());
+        }
+        return responses;
+    }
 }
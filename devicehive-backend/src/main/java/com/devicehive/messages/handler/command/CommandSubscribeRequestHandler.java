@@ -23,6 +23,7 @@ package com.devicehive.messages.handler.command;
 import com.devicehive.eventbus.EventBus;
 import com.devicehive.model.DeviceCommand;
 import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.PayloadPredicate;
 import com.devicehive.model.eventbus.Subscriber;
 import com.devicehive.model.rpc.CommandSubscribeRequest;
 import com.devicehive.model.rpc.CommandSubscribeResponse;
@@ -35,6 +36,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static com.devicehive.shim.api.Action.COMMANDS_UPDATE_EVENT;
 
@@ -59,7 +61,8 @@ public class CommandSubscribeRequestHandler implements RequestHandler {
         CommandSubscribeRequest body = (CommandSubscribeRequest) request.getBody();
         validate(body);
 
-        Subscriber subscriber = new Subscriber(body.getSubscriptionId(), request.getReplyTo(), request.getCorrelationId());
+        Subscriber subscriber = new Subscriber(body.getSubscriptionId(), request.getReplyTo(), request.getCorrelationId(),
+                body.getPredicate());
         Filter filter = body.getFilter();
 
         if (body.isReturnUpdated()) {
@@ -68,6 +71,12 @@ public class CommandSubscribeRequestHandler implements RequestHandler {
         eventBus.subscribe(filter, subscriber);
 
         Collection<DeviceCommand> commands = findCommands(filter, body.getNames(), body.getTimestamp(), body.isReturnUpdated(), body.getLimit());
+        PayloadPredicate predicate = subscriber.getPayloadPredicate();
+        if (predicate != null) {
+            commands = commands.stream()
+                    .filter(command -> predicate.test(PayloadPredicate.parse(command.getParameters())))
+                    .collect(Collectors.toList());
+        }
         CommandSubscribeResponse subscribeResponse = new CommandSubscribeResponse(body.getSubscriptionId(), commands);
 
         return Response.newBuilder()
@@ -81,6 +90,9 @@ public class CommandSubscribeRequestHandler implements RequestHandler {
         Assert.notNull(request, "Request body is null");
         Assert.notNull(request.getFilter(), "Filter is null");
         Assert.notNull(request.getSubscriptionId(), "Subscription id not provided");
+        if (request.getPredicate() != null) {
+            PayloadPredicate.compile(request.getPredicate());
+        }
     }
 
     private Collection<DeviceCommand> findCommands(Filter filter, Collection<String> names, Date timestamp, boolean returnUpdated, Integer limit) {
@@ -28,12 +28,15 @@ import com.devicehive.model.rpc.NotificationInsertResponse;
 import com.devicehive.service.HazelcastService;
 import com.devicehive.shim.api.Request;
 import com.devicehive.shim.api.Response;
-import com.devicehive.shim.api.server.RequestHandler;
+import com.devicehive.shim.api.server.BatchRequestHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
-public class NotificationInsertHandler implements RequestHandler {
+public class NotificationInsertHandler implements BatchRequestHandler {
 
     private HazelcastService hazelcastService;
     private EventBus eventBus;
@@ -61,4 +64,26 @@ public class NotificationInsertHandler implements RequestHandler {
                 .withBody(payload)
                 .buildSuccess();
     }
+
+    /**
+     * Publishes all notifications of the batch, then stores them with a single call to the cluster.
+     */
+    @Override
+    public List<Response> handle(List<Request> requests) {
+        List<DeviceNotification> notifications = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            DeviceNotification notification = request.getBody().cast(NotificationInsertRequest.class).getDeviceNotification();
+            eventBus.publish(new NotificationEvent(notification));
+            notifications.add(notification);
+        }
+        hazelcastService.storeAll(notifications);
+
+        List<Response> responses = new ArrayList<>(notifications.size());
+        for (DeviceNotification notification : notifications) {
+            responses.add(Response.newBuilder()
+                    .withBody(new NotificationInsertResponse(notification))
+                    .buildSuccess());
+        }
+        return responses;
+    }
 }
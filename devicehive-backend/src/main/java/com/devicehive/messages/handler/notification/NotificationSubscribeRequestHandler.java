@@ -23,6 +23,7 @@ package com.devicehive.messages.handler.notification;
 import com.devicehive.eventbus.EventBus;
 import com.devicehive.model.DeviceNotification;
 import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.PayloadPredicate;
 import com.devicehive.model.eventbus.Subscriber;
 import com.devicehive.model.rpc.NotificationSubscribeRequest;
 import com.devicehive.model.rpc.NotificationSubscribeResponse;
@@ -35,6 +36,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Component
 public class NotificationSubscribeRequestHandler implements RequestHandler {
@@ -59,12 +61,19 @@ public class NotificationSubscribeRequestHandler implements RequestHandler {
         NotificationSubscribeRequest body = (NotificationSubscribeRequest) request.getBody();
         validate(body);
 
-        Subscriber subscriber = new Subscriber(body.getSubscriptionId(), request.getReplyTo(), request.getCorrelationId());
+        Subscriber subscriber = new Subscriber(body.getSubscriptionId(), request.getReplyTo(), request.getCorrelationId(),
+                body.getPredicate(), Optional.ofNullable(body.getConflationWindow()).orElse(0L));
         Filter filter = body.getFilter();
 
         eventBus.subscribe(filter, subscriber);
 
         Collection<DeviceNotification> notifications = findNotifications(filter, body.getNames(), body.getTimestamp());
+        PayloadPredicate predicate = subscriber.getPayloadPredicate();
+        if (predicate != null) {
+            notifications = notifications.stream()
+                    .filter(notification -> predicate.test(PayloadPredicate.parse(notification.getParameters())))
+                    .collect(Collectors.toList());
+        }
         NotificationSubscribeResponse subscribeResponse = new NotificationSubscribeResponse(body.getSubscriptionId(), notifications);
 
         return Response.newBuilder()
@@ -78,6 +87,11 @@ public class NotificationSubscribeRequestHandler implements RequestHandler {
         Assert.notNull(request, "Request body is null");
         Assert.notNull(request.getFilter(), "Filter is null");
         Assert.notNull(request.getSubscriptionId(), "Subscription id not provided");
+        if (request.getPredicate() != null) {
+            PayloadPredicate.compile(request.getPredicate());
+        }
+        Assert.isTrue(request.getConflationWindow() == null || request.getConflationWindow() >= 0,
+                "Conflation window can't be negative");
     }
 
     private Collection<DeviceNotification> findNotifications(Filter filter, Collection<String> names, Date timestamp) {
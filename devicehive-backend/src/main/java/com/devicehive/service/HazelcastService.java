@@ -116,6 +116,19 @@ public class HazelcastService {
         mapsHolder.get(hzEntity.getClass()).set(hzEntity.getHazelcastKey(), hzEntity);
     }
 
+    /**
+     * Stores entities of the same class with a single call to the cluster.
+     */
+    public <T extends HazelcastEntity> void storeAll(final Collection<T> hzEntities) {
+        if (hzEntities.isEmpty()) {
+            return;
+        }
+        logger.debug("Saving {} entities into hazelcast", hzEntities.size());
+        Map<String, HazelcastEntity> entries = new HashMap<>(hzEntities.size() * 2);
+        hzEntities.forEach(hzEntity -> entries.put(hzEntity.getHazelcastKey(), hzEntity));
+        mapsHolder.get(hzEntities.iterator().next().getClass()).putAll(entries);
+    }
+
     @SuppressWarnings("unchecked")
     private <T extends HazelcastEntity> Collection<T> find(Predicate predicate, int pageSize, Class<T> tClass) {
         final Predicate pagingPredicate = (pageSize > 0)
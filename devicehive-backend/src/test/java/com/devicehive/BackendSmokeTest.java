@@ -331,6 +331,29 @@ public class BackendSmokeTest extends AbstractSpringTest {
         assertEquals(body.getDeviceNotification(), originalNotification);
     }
 
+    @Test
+    public void shouldHandleNotificationInsertBatch() throws Exception {
+        final String deviceId = UUID.randomUUID().toString();
+        final long id = System.nanoTime();
+
+        List<DeviceNotification> notifications = LongStream.range(id, id + 3)
+                .mapToObj(i -> NotificationTestUtils.generateNotification(i, deviceId))
+                .collect(Collectors.toList());
+        List<Response> responses = notificationInsertHandler.handle(notifications.stream()
+                .map(notification -> Request.newBuilder()
+                        .withBody(new NotificationInsertRequest(notification))
+                        .build())
+                .collect(Collectors.toList()));
+
+        verify(eventBus, Mockito.times(3)).publish(Mockito.any(NotificationEvent.class));
+        assertThat(responses, hasSize(3));
+        for (int i = 0; i < notifications.size(); i++) {
+            DeviceNotification notification = notifications.get(i);
+            assertEquals(notification, ((NotificationInsertResponse) responses.get(i).getBody()).getDeviceNotification());
+            assertTrue(hazelcastService.find(notification.getId(), deviceId, DeviceNotification.class).isPresent());
+        }
+    }
+
     @Test
     public void shouldFindSingleNotificationByIdAndDeviceId() throws Exception {
         String deviceId = UUID.randomUUID().toString();
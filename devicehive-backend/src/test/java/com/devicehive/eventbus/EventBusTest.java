@@ -0,0 +1,81 @@
+package com.devicehive.eventbus;
+
+/*
+ * #%L
+ * DeviceHive Backend Logic
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.json.GsonFactory;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.FilterRegistry;
+import com.devicehive.model.eventbus.Subscriber;
+import com.devicehive.model.eventbus.events.NotificationEvent;
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.api.Response;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class EventBusTest {
+
+    private final List<Response> responses = new ArrayList<>();
+
+    private final FilterRegistry registry = new FilterRegistry() {
+        @Override
+        public void register(Filter filter, Subscriber subscriber) {
+            processRegister(filter, subscriber);
+        }
+
+        @Override
+        public void unregister(Subscriber subscriber) {
+            processUnregister(subscriber);
+        }
+    };
+
+    private final EventBus eventBus = new EventBus((replyTo, response) -> responses.add(response), registry,
+            GsonFactory.createGson());
+
+    @Test
+    public void shouldDeliverEventWithMalformedParametersOnlyToSubscribersWithoutPredicate() {
+        Filter filter = new Filter(1L, 1L, "device", Action.NOTIFICATION_EVENT.name(), null);
+        eventBus.subscribe(filter, new Subscriber(1L, "reply_topic", "plain"));
+        eventBus.subscribe(filter, new Subscriber(2L, "reply_topic", "predicate", "$.temperature > 20"));
+
+        DeviceNotification notification = new DeviceNotification();
+        notification.setNetworkId(1L);
+        notification.setDeviceTypeId(1L);
+        notification.setDeviceId("device");
+        notification.setNotification("temperature");
+        // wrapper rejects malformed JSON, such parameters come only from sources that bypass it
+        notification.setParameters(new JsonStringWrapper() {
+            @Override
+            public String getJsonString() {
+                return "{\"temperature\": ";
+            }
+        });
+        eventBus.publish(new NotificationEvent(notification));
+
+        assertEquals(1, responses.size());
+        assertEquals("plain", responses.get(0).getCorrelationId());
+    }
+}
@@ -0,0 +1,115 @@
+package com.devicehive.eventbus;
+
+/*
+ * #%L
+ * DeviceHive Backend Logic
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.FilterRegistry;
+import com.devicehive.model.eventbus.Subscriber;
+import com.devicehive.model.eventbus.events.NotificationEvent;
+import com.devicehive.shim.api.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventConflatorTest {
+
+    private final List<Response> responses = Collections.synchronizedList(new ArrayList<>());
+
+    private FilterRegistry registry;
+    private EventConflator conflator;
+
+    @Before
+    public void setUp() {
+        registry = new FilterRegistry() {
+            @Override
+            public void register(Filter filter, Subscriber subscriber) {
+                processRegister(filter, subscriber);
+            }
+
+            @Override
+            public void unregister(Subscriber subscriber) {
+                processUnregister(subscriber);
+            }
+        };
+        conflator = new EventConflator((replyTo, response) -> responses.add(response), registry, 10);
+        conflator.start();
+    }
+
+    @After
+    public void tearDown() {
+        conflator.stop();
+    }
+
+    @Test
+    public void shouldDeliverOnlyLatestNotificationWithinConflationWindow() throws Exception {
+        Subscriber subscriber = new Subscriber(1L, "reply_topic", "c1", null, 200);
+        offerNotifications(subscriber, 3);
+        assertTrue(responses.isEmpty());
+
+        awaitFlush();
+        assertEquals(1, responses.size());
+        NotificationEvent delivered = (NotificationEvent) responses.get(0).getBody();
+        assertEquals(Long.valueOf(2L), delivered.getNotification().getId());
+        assertEquals(subscriber.getCorrelationId(), responses.get(0).getCorrelationId());
+        assertEquals(2, conflator.getConflatedEvents());
+        assertEquals(1, conflator.getDeliveredEvents());
+    }
+
+    @Test
+    public void shouldSkipDeliveryIfLeaseExpiredWithinConflationWindow() throws Exception {
+        registry.enableLeases(50, (replyTo, renewal) -> {});
+        registry.renew("expiring_topic");
+        offerNotifications(new Subscriber(1L, "expiring_topic", "c1", null, 200), 3);
+
+        awaitFlush();
+        assertTrue(responses.isEmpty());
+        assertEquals(0, conflator.getDeliveredEvents());
+        assertEquals(1, conflator.getSkippedDeliveries());
+    }
+
+    private void offerNotifications(Subscriber subscriber, int count) {
+        for (int i = 0; i < count; i++) {
+            DeviceNotification notification = new DeviceNotification();
+            notification.setId((long) i);
+            notification.setDeviceId("device");
+            notification.setNotification("temperature");
+            NotificationEvent event = new NotificationEvent(notification);
+            conflator.offer(subscriber, event, event.getConflationKey());
+        }
+    }
+
+    private void awaitFlush() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (conflator.getDeliveredEvents() + conflator.getSkippedDeliveries() == 0 &&
+                System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, conflator.getPendingSlots());
+    }
+}
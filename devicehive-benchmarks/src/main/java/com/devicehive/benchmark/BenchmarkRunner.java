@@ -0,0 +1,50 @@
+package com.devicehive.benchmark;
+
+/*
+ * #%L
+ * DeviceHive Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks jar. Same as JMH main, but writes results as JSON to {@code jmh-result.json}
+ * unless other result format or file is given, so that runs can be compared between versions.
+ */
+public class BenchmarkRunner {
+
+    private static final String RESULT_FORMAT = "-rf";
+    private static final String RESULT_FILE = "-rff";
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains(RESULT_FORMAT)) {
+            options.add(RESULT_FORMAT);
+            options.add("json");
+        }
+        if (!options.contains(RESULT_FILE)) {
+            options.add(RESULT_FILE);
+            options.add("jmh-result.json");
+        }
+        Main.main(options.toArray(new String[options.size()]));
+    }
+}
@@ -0,0 +1,94 @@
+package com.devicehive.benchmark;
+
+/*
+ * #%L
+ * DeviceHive Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.util.StripedExecutor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares dispatch of RPC callbacks through the ordered {@link StripedExecutor} with the shared
+ * {@link ForkJoinPool} used before. Every invocation dispatches a batch of callbacks spread over
+ * correlation ids and waits until all of them ran.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CallbackDispatchBenchmark {
+
+    private static final int BATCH = 10000;
+
+    @Param({"forkJoin", "striped"})
+    private String executor;
+
+    /**
+     * Number of distinct correlation ids callbacks are spread over.
+     */
+    @Param({"1", "64"})
+    private int correlations;
+
+    private ForkJoinPool forkJoinPool;
+    private StripedExecutor stripedExecutor;
+    private String[] correlationIds;
+
+    @Setup
+    public void setUp() {
+        forkJoinPool = new ForkJoinPool();
+        stripedExecutor = new StripedExecutor("benchmark-callback", Runtime.getRuntime().availableProcessors(), 1024);
+        stripedExecutor.start();
+        correlationIds = new String[correlations];
+        for (int i = 0; i < correlations; i++) {
+            correlationIds[i] = "correlation-" + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        forkJoinPool.shutdown();
+        stripedExecutor.shutdown();
+    }
+
+    @Benchmark
+    public void dispatch(Blackhole blackhole) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BATCH);
+        boolean striped = "striped".equals(executor);
+        for (int i = 0; i < BATCH; i++) {
+            String correlationId = correlationIds[i % correlationIds.length];
+            Runnable callback = () -> {
+                blackhole.consume(correlationId);
+                done.countDown();
+            };
+            if (striped) {
+                stripedExecutor.execute(correlationId, callback);
+            } else {
+                forkJoinPool.execute(callback);
+            }
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,94 @@
+package com.devicehive.benchmark;
+
+/*
+ * #%L
+ * DeviceHive Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.eventbus.EventBus;
+import com.devicehive.json.GsonFactory;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.FilterRegistry;
+import com.devicehive.model.eventbus.Subscriber;
+import com.devicehive.model.eventbus.events.NotificationEvent;
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.local.LocalFilterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures matching and fan-out of a single notification through {@link EventBus#publish}.
+ * Run with {@code -prof gc} to see allocation per publish ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventBusPublishBenchmark {
+
+    private static final Long NETWORK_ID = 1L;
+    private static final Long DEVICE_TYPE_ID = 1L;
+    private static final String EVENT_NAME = Action.NOTIFICATION_EVENT.name();
+
+    /**
+     * Subscriptions on other devices, which must not be visited.
+     */
+    @Param({"1000"})
+    private int subscriptions;
+
+    /**
+     * Subscriptions matching published notification.
+     */
+    @Param({"0", "1", "10"})
+    private int matching;
+
+    private EventBus eventBus;
+    private NotificationEvent event;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        FilterRegistry registry = new LocalFilterRegistry();
+        long id = 0;
+        for (int i = 0; i < subscriptions; i++) {
+            registry.register(new Filter(NETWORK_ID, DEVICE_TYPE_ID, "device-" + i, EVENT_NAME, null),
+                    new Subscriber(++id, "response_topic", "correlation-" + id));
+        }
+        for (int i = 0; i < matching; i++) {
+            registry.register(new Filter(NETWORK_ID, DEVICE_TYPE_ID, "target", EVENT_NAME, null),
+                    new Subscriber(++id, "response_topic", "correlation-" + id));
+        }
+        eventBus = new EventBus((to, response) -> blackhole.consume(response), registry, GsonFactory.createGson());
+
+        DeviceNotification notification = new DeviceNotification();
+        notification.setNetworkId(NETWORK_ID);
+        notification.setDeviceTypeId(DEVICE_TYPE_ID);
+        notification.setDeviceId("target");
+        notification.setNotification("temperature");
+        event = new NotificationEvent(notification);
+    }
+
+    @Benchmark
+    public void publish() {
+        eventBus.publish(event);
+    }
+}
@@ -0,0 +1,84 @@
+package com.devicehive.benchmark;
+
+/*
+ * #%L
+ * DeviceHive Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.eventbus.EventBus;
+import com.devicehive.json.GsonFactory;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.FilterRegistry;
+import com.devicehive.model.eventbus.Subscriber;
+import com.devicehive.model.eventbus.events.NotificationEvent;
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.kafka.serializer.ResponseSerializer;
+import com.devicehive.shim.local.LocalFilterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures CPU time spent to publish one notification and serialize all responses for Kafka,
+ * when every subscriber listens on its own reply topic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventFanOutSerializationBenchmark {
+
+    @Param({"1", "10", "1000"})
+    private int subscribers;
+
+    private EventBus eventBus;
+    private NotificationEvent event;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        ResponseSerializer serializer = new ResponseSerializer(GsonFactory.createGson());
+        FilterRegistry registry = new LocalFilterRegistry();
+        for (long id = 1; id <= subscribers; id++) {
+            registry.register(new Filter(1L, 1L, "device", Action.NOTIFICATION_EVENT.name(), null),
+                    new Subscriber(id, "response_topic_" + id, "correlation-" + id));
+        }
+        eventBus = new EventBus((to, response) -> blackhole.consume(serializer.serialize(to, response)),
+                registry, GsonFactory.createGson());
+
+        DeviceNotification notification = new DeviceNotification();
+        notification.setId(1L);
+        notification.setNetworkId(1L);
+        notification.setDeviceTypeId(1L);
+        notification.setDeviceId("device");
+        notification.setNotification("temperature");
+        notification.setTimestamp(new Date());
+        notification.setParameters(new JsonStringWrapper("{\"value\":21.5,\"unit\":\"C\",\"sensor\":\"outdoor\"}"));
+        event = new NotificationEvent(notification);
+    }
+
+    @Benchmark
+    public void publish() {
+        eventBus.publish(event);
+    }
+}
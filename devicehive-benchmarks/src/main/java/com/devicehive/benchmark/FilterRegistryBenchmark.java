@@ -0,0 +1,106 @@
+package com.devicehive.benchmark;
+
+/*
+ * #%L
+ * DeviceHive Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.FilterRegistry;
+import com.devicehive.model.eventbus.Subscriber;
+import com.devicehive.model.eventbus.events.NotificationEvent;
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.local.LocalFilterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures registry operations depending on the number of subscriptions it holds.
+ * Subscriptions are spread over devices of several networks, a few of them are network-wide.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class FilterRegistryBenchmark {
+
+    private static final String EVENT_NAME = Action.NOTIFICATION_EVENT.name();
+    private static final int NETWORKS = 100;
+    private static final int NETWORK_SUBSCRIPTION_RATIO = 100;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int subscriptions;
+
+    private FilterRegistry registry;
+    private Filter lookupFilter;
+    private NotificationEvent lookupEvent;
+    private Filter churnFilter;
+    private Subscriber churnSubscriber;
+
+    @Setup
+    public void setUp() {
+        registry = new LocalFilterRegistry();
+        for (long id = 0; id < subscriptions; id++) {
+            long networkId = id % NETWORKS;
+            String deviceId = id % NETWORK_SUBSCRIPTION_RATIO == 0 ? null : "device-" + id;
+            registry.register(new Filter(networkId, 1L, deviceId, EVENT_NAME, null),
+                    new Subscriber(id, "response_topic", "correlation-" + id));
+        }
+        // device of a registered device subscription, looked up with the same key it was registered with
+        long lookupId = subscriptions / 2 + 1;
+        lookupFilter = new Filter(lookupId % NETWORKS, 1L, "device-" + lookupId, EVENT_NAME, null);
+        DeviceNotification notification = new DeviceNotification();
+        notification.setNetworkId(lookupFilter.getNetworkId());
+        notification.setDeviceTypeId(lookupFilter.getDeviceTypeId());
+        notification.setDeviceId(lookupFilter.getDeviceId());
+        notification.setNotification("temperature");
+        lookupEvent = new NotificationEvent(notification);
+        if (registry.getSubscribers(lookupFilter).isEmpty()) {
+            throw new IllegalStateException("Lookup filter " + lookupFilter + " matches no subscription");
+        }
+        churnFilter = new Filter(1L, 1L, "churn-device", EVENT_NAME, "temperature");
+        churnSubscriber = new Subscriber((long) subscriptions, "response_topic", "churn");
+    }
+
+    @Benchmark
+    public void getSubscribers(Blackhole blackhole) {
+        blackhole.consume(registry.getSubscribers(lookupFilter));
+    }
+
+    /**
+     * Lookup of publish path, the event matches the device subscription and network-wide one of its network.
+     */
+    @Benchmark
+    public void forEachSubscriber(Blackhole blackhole) {
+        registry.forEachSubscriber(lookupEvent, blackhole::consume);
+    }
+
+    /**
+     * Register and unregister of the same subscription, so that registry size stays the same.
+     */
+    @Benchmark
+    public void registerUnregister() {
+        registry.register(churnFilter, churnSubscriber);
+        registry.unregister(churnSubscriber);
+    }
+}
@@ -0,0 +1,79 @@
+package com.devicehive.benchmark;
+
+/*
+ * #%L
+ * DeviceHive Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.service.helpers.HazelcastHelper;
+import com.hazelcast.query.Predicate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building of Hazelcast search predicates for notification polling and command lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HazelcastHelperBenchmark {
+
+    private HazelcastHelper hazelcastHelper;
+
+    private Collection<String> deviceIds;
+    private Collection<Long> networkIds;
+    private Collection<String> names;
+    private Date timestampSt;
+    private Date timestampEnd;
+
+    @Setup
+    public void setUp() {
+        hazelcastHelper = new HazelcastHelper();
+        deviceIds = Arrays.asList("device-1", "device-2", "device-3");
+        networkIds = Arrays.asList(1L, 2L);
+        names = Arrays.asList("temperature", "humidity");
+        timestampEnd = new Date();
+        timestampSt = new Date(timestampEnd.getTime() - TimeUnit.MINUTES.toMillis(5));
+    }
+
+    @Benchmark
+    public Predicate<?, ?> notificationPoll() {
+        return hazelcastHelper.prepareFilters(deviceIds, names, timestampSt, null, false, null, DeviceNotification.class);
+    }
+
+    @Benchmark
+    public Predicate<?, ?> networkNotificationSearch() {
+        return hazelcastHelper.prepareFilters(null, networkIds, Collections.singleton(1L), names, timestampSt, timestampEnd,
+                false, null, DeviceNotification.class);
+    }
+
+    @Benchmark
+    public Predicate<?, ?> commandById() {
+        return hazelcastHelper.prepareFilters(1L, "device-1", true, DeviceCommand.class);
+    }
+}
@@ -0,0 +1,86 @@
+package com.devicehive.benchmark;
+
+/*
+ * #%L
+ * DeviceHive Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.json.strategies.JsonPolicyApply;
+import com.devicehive.json.strategies.JsonPolicyDef;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import com.devicehive.resource.converters.CollectionProvider;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing of REST responses with JSON policy applied, e.g. notification poll result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonPolicyProviderBenchmark {
+
+    @Param({"1", "100"})
+    private int notifications;
+
+    private CollectionProvider provider;
+    private Collection<DeviceNotification> entity;
+    private Annotation[] annotations;
+    private ByteArrayOutputStream output;
+
+    @Setup
+    public void setUp() {
+        provider = new CollectionProvider();
+        annotations = new Annotation[]{new JsonPolicyApply.JsonPolicyApplyLiteral(JsonPolicyDef.Policy.NOTIFICATION_TO_CLIENT)};
+        output = new ByteArrayOutputStream();
+
+        List<DeviceNotification> list = new ArrayList<>(notifications);
+        for (long id = 1; id <= notifications; id++) {
+            DeviceNotification notification = new DeviceNotification();
+            notification.setId(id);
+            notification.setNetworkId(1L);
+            notification.setDeviceTypeId(1L);
+            notification.setDeviceId("device");
+            notification.setNotification("temperature");
+            notification.setTimestamp(new Date());
+            notification.setParameters(new JsonStringWrapper("{\"value\":21.5,\"unit\":\"C\",\"sensor\":\"outdoor\"}"));
+            list.add(notification);
+        }
+        entity = list;
+    }
+
+    @Benchmark
+    public int writeTo() {
+        output.reset();
+        provider.writeTo(entity, entity.getClass(), entity.getClass(), annotations, MediaType.APPLICATION_JSON_TYPE,
+                null, output);
+        return output.size();
+    }
+}
@@ -0,0 +1,106 @@
+package com.devicehive.benchmark;
+
+/*
+ * #%L
+ * DeviceHive Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.devicehive.json.GsonFactory;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import com.devicehive.model.rpc.NotificationInsertRequest;
+import com.devicehive.proxy.api.ProxyMessage;
+import com.devicehive.proxy.api.ProxyMessageBuilder;
+import com.devicehive.proxy.api.payload.MessagePayload;
+import com.devicehive.proxy.api.payload.NotificationCreatePayload;
+import com.devicehive.proxy.client.GsonProxyMessageDecoder;
+import com.devicehive.proxy.client.GsonProxyMessageEncoder;
+import com.devicehive.shim.api.Request;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.websocket.DecodeException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a notification insert request sent through the WS proxy: encoding the request into a proxy frame and
+ * decoding the frame back to the request, with the request embedded as an escaped string or as raw JSON. Frame
+ * sizes are logged during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyEncodingBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ProxyEncodingBenchmark.class);
+
+    @Param({"false", "true"})
+    private boolean rawJson;
+
+    private Gson gson;
+    private GsonProxyMessageDecoder decoder;
+    private Request request;
+    private String frame;
+
+    @Setup
+    public void setUp() {
+        gson = GsonFactory.createGson();
+        decoder = new GsonProxyMessageDecoder();
+
+        DeviceNotification notification = new DeviceNotification();
+        notification.setId(1L);
+        notification.setNetworkId(1L);
+        notification.setDeviceTypeId(1L);
+        notification.setDeviceId("device");
+        notification.setNotification("temperature");
+        notification.setTimestamp(new Date());
+        notification.setParameters(new JsonStringWrapper("{\"value\":21.5,\"unit\":\"C\",\"sensor\":\"outdoor\"}"));
+        request = Request.newBuilder()
+                .withBody(new NotificationInsertRequest(notification))
+                .withPartitionKey(notification.getDeviceId())
+                .build();
+        request.setReplyTo("response_topic");
+
+        ProxyMessage delivered = ProxyMessage.newBuilder()
+                .withType("notif")
+                .withStatus(0)
+                .withPayload(new NotificationCreatePayload("request_topic", gson.toJson(request)))
+                .build();
+        frame = GsonProxyMessageEncoder.encode(delivered, rawJson);
+        logger.info("Raw JSON {}, frame chars: sent {}, delivered {}", rawJson, encode().length(), frame.length());
+    }
+
+    @Benchmark
+    public String encode() {
+        ProxyMessage message = ProxyMessageBuilder.notification(
+                new NotificationCreatePayload("request_topic", gson.toJson(request), request.getPartitionKey()));
+        return GsonProxyMessageEncoder.encode(message, rawJson);
+    }
+
+    @Benchmark
+    public Request decode() throws DecodeException {
+        MessagePayload payload = (MessagePayload) decoder.decode(frame).get(0).getPayload();
+        return payload.getJson() != null
+                ? gson.fromJson(payload.getJson(), Request.class)
+                : gson.fromJson(payload.getMessage(), Request.class);
+    }
+}
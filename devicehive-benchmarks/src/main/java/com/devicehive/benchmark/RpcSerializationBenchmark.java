@@ -0,0 +1,167 @@
+package com.devicehive.benchmark;
+
+/*
+ * #%L
+ * DeviceHive Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.json.GsonFactory;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import com.devicehive.model.eventbus.events.NotificationEvent;
+import com.devicehive.model.rpc.NotificationInsertRequest;
+import com.devicehive.model.rpc.NotificationSearchResponse;
+import com.devicehive.shim.api.Body;
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.Response;
+import com.devicehive.shim.kafka.codec.MessageCodecs;
+import com.devicehive.shim.kafka.serializer.RequestSerializer;
+import com.devicehive.shim.kafka.serializer.ResponseSerializer;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Measures Kafka serialization round trip of the most frequent messages: notification insert request,
+ * notification event response and a notification search response, for every RPC codec. Encoded sizes
+ * are logged during setup to compare bytes on the wire. Bodies are decoded lazily, so decoding benchmarks
+ * access the body explicitly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RpcSerializationBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(RpcSerializationBenchmark.class);
+
+    private static final String TOPIC = "topic";
+
+    @Param({MessageCodecs.JSON, MessageCodecs.BINARY})
+    private String codec;
+
+    private RequestSerializer requestSerializer;
+    private ResponseSerializer responseSerializer;
+
+    private Request request;
+    private Response response;
+    private Response searchResponse;
+    private byte[] requestBytes;
+    private byte[] responseBytes;
+    private byte[] searchResponseBytes;
+
+    @Setup
+    public void setUp() {
+        Gson gson = GsonFactory.createGson();
+        requestSerializer = new RequestSerializer(gson, codec);
+        responseSerializer = new ResponseSerializer(gson, codec);
+
+        DeviceNotification notification = notification(1L);
+
+        request = Request.newBuilder()
+                .withBody(new NotificationInsertRequest(notification))
+                .withPartitionKey(notification.getDeviceId())
+                .build();
+        request.setReplyTo("response_topic");
+        response = Response.newBuilder()
+                .withBody(new NotificationEvent(notification))
+                .withCorrelationId("correlation")
+                .withLast(false)
+                .buildSuccess();
+        List<DeviceNotification> notifications = LongStream.range(0, 100)
+                .mapToObj(this::notification)
+                .collect(Collectors.toList());
+        searchResponse = Response.newBuilder()
+                .withBody(new NotificationSearchResponse(notifications))
+                .withCorrelationId("correlation")
+                .buildSuccess();
+        requestBytes = requestSerializer.serialize(TOPIC, request);
+        responseBytes = responseSerializer.serialize(TOPIC, response);
+        searchResponseBytes = responseSerializer.serialize(TOPIC, searchResponse);
+        logger.info("{} codec bytes on wire: request {}, event response {}, search response {}",
+                codec, requestBytes.length, responseBytes.length, searchResponseBytes.length);
+    }
+
+    private DeviceNotification notification(long id) {
+        DeviceNotification notification = new DeviceNotification();
+        notification.setId(id);
+        notification.setNetworkId(1L);
+        notification.setDeviceTypeId(1L);
+        notification.setDeviceId("device");
+        notification.setNotification("temperature");
+        notification.setTimestamp(new Date());
+        notification.setParameters(new JsonStringWrapper("{\"value\":21.5,\"unit\":\"C\",\"sensor\":\"outdoor\"}"));
+        return notification;
+    }
+
+    @Benchmark
+    public Body requestRoundTrip() {
+        return requestSerializer.deserialize(TOPIC, requestSerializer.serialize(TOPIC, request)).getBody();
+    }
+
+    @Benchmark
+    public Body responseRoundTrip() {
+        return responseSerializer.deserialize(TOPIC, responseSerializer.serialize(TOPIC, response)).getBody();
+    }
+
+    @Benchmark
+    public Body searchResponseRoundTrip() {
+        return responseSerializer.deserialize(TOPIC, responseSerializer.serialize(TOPIC, searchResponse)).getBody();
+    }
+
+    @Benchmark
+    public byte[] requestSerialize() {
+        return requestSerializer.serialize(TOPIC, request);
+    }
+
+    @Benchmark
+    public byte[] responseSerialize() {
+        return responseSerializer.serialize(TOPIC, response);
+    }
+
+    @Benchmark
+    public Body requestDeserialize() {
+        return requestSerializer.deserialize(TOPIC, requestBytes).getBody();
+    }
+
+    @Benchmark
+    public Body responseDeserialize() {
+        return responseSerializer.deserialize(TOPIC, responseBytes).getBody();
+    }
+
+    /**
+     * Envelope only, as for a response nobody waits for: its body is never decoded.
+     */
+    @Benchmark
+    public Response searchResponseEnvelopeDeserialize() {
+        return responseSerializer.deserialize(TOPIC, searchResponseBytes);
+    }
+
+    @Benchmark
+    public Body searchResponseDeserialize() {
+        return responseSerializer.deserialize(TOPIC, searchResponseBytes).getBody();
+    }
+}
@@ -22,6 +22,7 @@ package com.devicehive.resource.exceptions;
 
 import com.devicehive.model.ErrorResponse;
 import com.devicehive.resource.util.ResponseFactory;
+import com.devicehive.shim.api.client.ClientOverloadedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +33,7 @@ import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
+import java.util.concurrent.CompletionException;
 
 /**
  * @author Nikolay Loboda
@@ -54,6 +56,9 @@ public class AllExceptionMapper implements ExceptionMapper<Exception> {
         } else if (exception instanceof BadRequestException) {
             responseCode = Response.Status.BAD_REQUEST;
             message = exception.getMessage();
+        } else if (exception instanceof CompletionException && exception.getCause() instanceof ClientOverloadedException) {
+            responseCode = Response.Status.SERVICE_UNAVAILABLE;
+            message = exception.getCause().getMessage();
         } else if (exception instanceof NotAllowedException) {
             responseCode = Response.Status.METHOD_NOT_ALLOWED;
         } else if (exception instanceof WebApplicationException) {
@@ -22,10 +22,13 @@ package com.devicehive.resource.util;
 
 import com.devicehive.json.strategies.JsonPolicyApply;
 import com.devicehive.json.strategies.JsonPolicyDef;
+import com.devicehive.model.ErrorResponse;
+import com.devicehive.service.exception.BackendException;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.lang.annotation.Annotation;
+import java.util.Optional;
 
 public class ResponseFactory {
 
@@ -50,4 +53,13 @@ public class ResponseFactory {
     public static Response response(Response.Status status) {
         return response(status, null, null);
     }
+
+    /**
+     * @return error response with status of the backend failure, {@code 500} if the code is not a known status
+     */
+    public static Response response(BackendException e) {
+        Response.Status status = Optional.ofNullable(Response.Status.fromStatusCode(e.getErrorCode()))
+                .orElse(Response.Status.INTERNAL_SERVER_ERROR);
+        return response(status, new ErrorResponse(status.getStatusCode(), e.getMessage()));
+    }
 }
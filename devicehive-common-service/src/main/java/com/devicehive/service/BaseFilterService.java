@@ -25,6 +25,7 @@ import com.devicehive.auth.HivePrincipal;
 import com.devicehive.exceptions.HiveException;
 import com.devicehive.model.enums.UserRole;
 import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.PayloadPredicate;
 import com.devicehive.model.rpc.ListDeviceTypeRequest;
 import com.devicehive.model.rpc.ListNetworkRequest;
 import com.devicehive.vo.*;
@@ -42,7 +43,10 @@ import java.util.stream.Stream;
 
 import static com.devicehive.configuration.Messages.ACCESS_DENIED;
 import static com.devicehive.configuration.Messages.DEVICE_TYPES_NOT_FOUND;
+import static com.devicehive.configuration.Messages.INVALID_CONFLATION_WINDOW;
+import static com.devicehive.configuration.Messages.INVALID_PAYLOAD_PREDICATE;
 import static com.devicehive.configuration.Messages.NETWORKS_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
 import static javax.servlet.http.HttpServletResponse.SC_FORBIDDEN;
 import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 
@@ -151,4 +155,24 @@ public class BaseFilterService {
             return Collections.emptySet();
         }
     }
+
+    /**
+     * Checks that subscription payload predicate compiles, so that invalid subscription never reaches backend.
+     */
+    public void validatePredicate(String predicate) {
+        if (predicate == null) {
+            return;
+        }
+        try {
+            PayloadPredicate.compile(predicate);
+        } catch (IllegalArgumentException e) {
+            throw new HiveException(String.format(INVALID_PAYLOAD_PREDICATE, predicate, e.getMessage()), SC_BAD_REQUEST);
+        }
+    }
+
+    public void validateConflationWindow(Long conflationWindow) {
+        if (conflationWindow != null && conflationWindow < 0) {
+            throw new HiveException(String.format(INVALID_CONFLATION_WINDOW, conflationWindow), SC_BAD_REQUEST);
+        }
+    }
 }
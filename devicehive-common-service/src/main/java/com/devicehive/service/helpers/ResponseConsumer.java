@@ -38,12 +38,19 @@ public class ResponseConsumer implements Consumer<Response> {
     @Override
     public void accept(Response response) {
         if (response.isFailed()) {
-            String message = response.getBody() != null
-                    ? response.getBody().cast(ErrorResponse.class).getMessage()
-                    : "Unexpected error occurred.";
-            future.completeExceptionally(new BackendException(message, response.getErrorCode()));
+            future.completeExceptionally(failure(response));
         } else {
             future.complete(response);
         }
     }
+
+    /**
+     * @return exception describing the failed response
+     */
+    public static BackendException failure(Response response) {
+        String message = response.getBody() != null
+                ? response.getBody().cast(ErrorResponse.class).getMessage()
+                : "Unexpected error occurred.";
+        return new BackendException(message, response.getErrorCode());
+    }
 }
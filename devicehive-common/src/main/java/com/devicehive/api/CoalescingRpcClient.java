@@ -0,0 +1,231 @@
+package com.devicehive.api;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.rpc.ErrorResponse;
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.client.ClientOverloadedException;
+import com.devicehive.shim.api.client.RpcClient;
+import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static com.devicehive.shim.api.Action.*;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+
+/**
+ * Lets concurrent identical read requests share one call of the delegate client, the response is handed to
+ * every caller that joined while the call was in flight. Requests are identical when their actions and
+ * bodies, principal included, serialize to the same JSON, so callers of different principals never share a call.
+ * Successful responses can optionally be reused for a short time, cache TTL of 0 disables the cache.
+ */
+public class CoalescingRpcClient implements RpcClient {
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingRpcClient.class);
+
+    public static final Set<Action> READ_ACTIONS = EnumSet.of(
+            LIST_USER_REQUEST, COUNT_USER_REQUEST,
+            LIST_NETWORK_REQUEST, COUNT_NETWORK_REQUEST,
+            LIST_DEVICE_TYPE_REQUEST, COUNT_DEVICE_TYPE_REQUEST,
+            LIST_DEVICE_REQUEST, COUNT_DEVICE_REQUEST,
+            LIST_PLUGIN_REQUEST, COUNT_PLUGIN_REQUEST);
+
+    private static final String OVERLOADED_MESSAGE = "Too many requests in flight";
+    private static final int CACHE_PURGE_THRESHOLD = 10000;
+
+    private final RpcClient delegate;
+    private final Gson gson;
+    private final Set<Action> actions;
+    private final long cacheTtlMs;
+
+    private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CachedResponse> cache = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CoalescingRpcClient(RpcClient delegate, Gson gson, long cacheTtlMs) {
+        this(delegate, gson, READ_ACTIONS, cacheTtlMs);
+    }
+
+    public CoalescingRpcClient(RpcClient delegate, Gson gson, Set<Action> actions, long cacheTtlMs) {
+        this.delegate = delegate;
+        this.gson = gson;
+        this.actions = actions;
+        this.cacheTtlMs = cacheTtlMs;
+    }
+
+    @Override
+    public void start() {
+        delegate.start();
+    }
+
+    @Override
+    public void call(Request request, Consumer<Response> callback) {
+        if (!tryCall(request, callback)) {
+            throw new ClientOverloadedException(OVERLOADED_MESSAGE);
+        }
+    }
+
+    @Override
+    public boolean tryCall(Request request, Consumer<Response> callback) {
+        if (!request.isSingleReplyExpected() || request.getBody() == null || !actions.contains(request.getBody().getAction())) {
+            return delegate.tryCall(request, callback);
+        }
+        final String key = request.getBody().getAction() + gson.toJson(request.getBody());
+
+        if (cacheTtlMs > 0) {
+            CachedResponse cached = cache.get(key);
+            if (cached != null) {
+                if (cached.expiresAt > System.currentTimeMillis()) {
+                    cacheHits.incrementAndGet();
+                    callback.accept(cached.response);
+                    return true;
+                }
+                cache.remove(key, cached);
+            }
+        }
+
+        final Flight flight = new Flight(callback);
+        Flight existing;
+        while ((existing = flights.putIfAbsent(key, flight)) != null) {
+            if (existing.join(callback)) {
+                coalesced.incrementAndGet();
+                return true;
+            }
+            // completed meanwhile, its response is being handed out
+            flights.remove(key, existing);
+        }
+        misses.incrementAndGet();
+
+        if (!delegate.tryCall(request, response -> complete(key, flight, response))) {
+            flights.remove(key, flight);
+            List<Consumer<Response>> joined = flight.close();
+            Response rejected = Response.newBuilder()
+                    .withBody(new ErrorResponse(OVERLOADED_MESSAGE))
+                    .withCorrelationId(request.getCorrelationId())
+                    .withLast(true)
+                    .buildFailed(SC_SERVICE_UNAVAILABLE);
+            // the initiating caller learns about rejection from the return value
+            joined.subList(1, joined.size()).forEach(cb -> deliver(cb, rejected));
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void push(Request request) {
+        delegate.push(request);
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    private void complete(String key, Flight flight, Response response) {
+        flights.remove(key, flight);
+        if (cacheTtlMs > 0 && !response.isFailed()) {
+            long now = System.currentTimeMillis();
+            if (cache.size() >= CACHE_PURGE_THRESHOLD) {
+                cache.values().removeIf(cached -> cached.expiresAt <= now);
+            }
+            cache.put(key, new CachedResponse(response, now + cacheTtlMs));
+        }
+        flight.close().forEach(callback -> deliver(callback, response));
+    }
+
+    private void deliver(Consumer<Response> callback, Response response) {
+        try {
+            callback.accept(response);
+        } catch (Exception e) {
+            logger.error("Callback of coalesced call failed, correlationId: {}", response.getCorrelationId(), e);
+        }
+    }
+
+    /**
+     * @return calls answered by joining an identical call in flight
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return coalescable calls sent to the delegate client
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getFlights() {
+        return flights.size();
+    }
+
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    private static class Flight {
+        private final List<Consumer<Response>> callbacks = new ArrayList<>(2);
+        private boolean closed;
+
+        private Flight(Consumer<Response> callback) {
+            callbacks.add(callback);
+        }
+
+        synchronized boolean join(Consumer<Response> callback) {
+            if (closed) {
+                return false;
+            }
+            callbacks.add(callback);
+            return true;
+        }
+
+        synchronized List<Consumer<Response>> close() {
+            closed = true;
+            return callbacks;
+        }
+    }
+
+    private static class CachedResponse {
+        private final Response response;
+        private final long expiresAt;
+
+        private CachedResponse(Response response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
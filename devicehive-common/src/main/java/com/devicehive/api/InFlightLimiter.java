@@ -0,0 +1,115 @@
+package com.devicehive.api;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.shim.api.Action;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds number of calls waiting for responses, in total and per request action. Per action limits are
+ * given as comma separated {@code ACTION:limit} pairs, e.g. {@code NOTIFICATION_INSERT_REQUEST:2000,LIST_DEVICE_REQUEST:500}.
+ * Limit of 0 means no limit.
+ */
+public class InFlightLimiter {
+
+    private final int maxInFlight;
+    private final Map<Action, Integer> actionLimits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicIntegerArray actionInFlight = new AtomicIntegerArray(Action.values().length);
+    private final AtomicLong rejected = new AtomicLong();
+
+    public InFlightLimiter(int maxInFlight, String actionLimits) {
+        this.maxInFlight = maxInFlight;
+        this.actionLimits = parseActionLimits(actionLimits);
+    }
+
+    /**
+     * Takes a slot for a call of the action unless total or action limit is reached.
+     *
+     * @return false if the call has to be rejected
+     */
+    public boolean tryAcquire(Action action) {
+        if (inFlight.incrementAndGet() > maxInFlight && maxInFlight > 0) {
+            inFlight.decrementAndGet();
+            rejected.incrementAndGet();
+            return false;
+        }
+        if (action != null) {
+            Integer limit = actionLimits.get(action);
+            if (actionInFlight.incrementAndGet(action.ordinal()) > limit && limit > 0) {
+                actionInFlight.decrementAndGet(action.ordinal());
+                inFlight.decrementAndGet();
+                rejected.incrementAndGet();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void release(Action action) {
+        inFlight.decrementAndGet();
+        if (action != null) {
+            actionInFlight.decrementAndGet(action.ordinal());
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getInFlight(Action action) {
+        return actionInFlight.get(action.ordinal());
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @return number of calls rejected since start
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private static Map<Action, Integer> parseActionLimits(String actionLimits) {
+        Map<Action, Integer> limits = new EnumMap<>(Action.class);
+        for (Action action : Action.values()) {
+            limits.put(action, 0);
+        }
+        if (actionLimits == null || actionLimits.trim().isEmpty()) {
+            return limits;
+        }
+        for (String pair : actionLimits.split(",")) {
+            String[] parts = pair.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid in-flight limit '" + pair + "', expected ACTION:limit");
+            }
+            limits.put(Action.valueOf(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+        return limits;
+    }
+}
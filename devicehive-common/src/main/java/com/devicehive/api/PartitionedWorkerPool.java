@@ -0,0 +1,90 @@
+package com.devicehive.api;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.ServerEvent;
+import com.devicehive.shim.api.Request;
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.IgnoreExceptionHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.WorkHandler;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Alternative to LMAX {@link com.lmax.disruptor.WorkerPool} which keeps order of requests with the same partition key.
+ * Every handler is a single threaded lane that reads the whole ring buffer and takes only events whose partition key
+ * hashes to it, so requests of one device run one by one in arrival order while requests of different devices run
+ * on all lanes in parallel. Requests without partition key are spread by correlation id. A batch of requests is
+ * expected to be grouped by lane and goes to the lane of its first request.
+ * <p>
+ * A lane busy with a slow request holds back the ring buffer for all lanes once the buffer wraps around.
+ */
+public class PartitionedWorkerPool implements ServerEventWorkers {
+
+    private final RingBuffer<ServerEvent> ringBuffer;
+    private final BatchEventProcessor<ServerEvent>[] lanes;
+
+    @SuppressWarnings("unchecked")
+    public PartitionedWorkerPool(RingBuffer<ServerEvent> ringBuffer, WorkHandler<ServerEvent>[] handlers) {
+        this.ringBuffer = ringBuffer;
+        this.lanes = new BatchEventProcessor[handlers.length];
+        SequenceBarrier barrier = ringBuffer.newBarrier();
+        for (int i = 0; i < handlers.length; i++) {
+            int lane = i;
+            WorkHandler<ServerEvent> handler = handlers[i];
+            lanes[i] = new BatchEventProcessor<>(ringBuffer, barrier, (event, sequence, endOfBatch) -> {
+                if (laneOf(event.get(), handlers.length) == lane) {
+                    handler.onEvent(event);
+                }
+            });
+            // unlike a worker of the pool, a stopped lane would stall the whole ring buffer
+            lanes[i].setExceptionHandler(new IgnoreExceptionHandler());
+            ringBuffer.addGatingSequences(lanes[i].getSequence());
+        }
+    }
+
+    @Override
+    public RingBuffer<ServerEvent> start(Executor executor) {
+        for (BatchEventProcessor<ServerEvent> lane : lanes) {
+            executor.execute(lane);
+        }
+        return ringBuffer;
+    }
+
+    @Override
+    public void drainAndHalt() {
+        long cursor = ringBuffer.getCursor();
+        for (BatchEventProcessor<ServerEvent> lane : lanes) {
+            while (lane.getSequence().get() < cursor) {
+                Thread.yield();
+            }
+            lane.halt();
+        }
+    }
+
+    public static int laneOf(Request request, int lanes) {
+        String key = request.getPartitionKey() != null ? request.getPartitionKey() : request.getCorrelationId();
+        int hash = key == null ? 0 : key.hashCode();
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % lanes;
+    }
+}
@@ -20,56 +20,303 @@ package com.devicehive.api;
  * #L%
  */
 
+import com.devicehive.model.rpc.ErrorResponse;
+import com.devicehive.shim.api.Action;
 import com.devicehive.shim.api.Response;
+import com.devicehive.util.HashedTimerWheel;
+import com.devicehive.util.StripedExecutor;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
+import static javax.servlet.http.HttpServletResponse.SC_GATEWAY_TIMEOUT;
+
+/**
+ * Matches responses to callbacks of sent requests by correlation id.
+ * <p>
+ * Every callback has a deadline enforced by a hashed timer wheel, so lost responses don't leak callbacks.
+ * A single reply call expires when no response arrives within the request timeout. A streaming call
+ * expires when it is idle for the stream idle timeout, any response counts as activity. Streaming calls
+ * of a subscription registered with {@link #addSubscription} never expire, quiet subscriptions are normal,
+ * they live until {@link #removeSubscription} is called. Expired callbacks receive a failed response
+ * with {@code 504} status.
+ * <p>
+ * Callbacks of the same correlation id run one by one in the order responses arrive, so events of a
+ * subscription are never reordered, callbacks of different correlation ids run in parallel.
+ * <p>
+ * Single reply calls registered with {@link #tryAddRequestCallback} count against the {@link InFlightLimiter}
+ * until their callback is removed, streaming calls are not limited.
+ */
 public class RequestResponseMatcher {
     private static final Logger logger = LoggerFactory.getLogger(RequestResponseMatcher.class);
 
-    private final ConcurrentHashMap<String, Consumer<Response>> correlationMap = new ConcurrentHashMap<>();
+    public static final long DEFAULT_REQUEST_TIMEOUT_MS = 60000;
+    public static final long DEFAULT_STREAM_IDLE_TIMEOUT_MS = 300000;
+    public static final int DEFAULT_CALLBACK_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_CALLBACK_QUEUE_CAPACITY = 1024;
+
+    private static final long TICK_MS = 100;
+    private static final int WHEEL_SIZE = 1024;
+    private static final String TIMEOUT_MESSAGE = "Request timed out";
+
+    private final ConcurrentHashMap<String, PendingCall> correlationMap = new ConcurrentHashMap<>();
     private final SetMultimap<Long, String> subscriptionMap = Multimaps.synchronizedSetMultimap(HashMultimap.create());
 
-    //TODO [rafa] we do not really need FJP, but rather some other pool implementation. Though FJP looks good, it might be over kill for our use case.
-    private final ForkJoinPool executionPool = new ForkJoinPool();
+    private final StripedExecutor executionPool;
+
+    private final long requestTimeoutMs;
+    private final long streamIdleTimeoutMs;
+    private final HashedTimerWheel<PendingCall> timeouts;
+    private final AtomicLong expiredCalls = new AtomicLong();
+
+    private volatile InFlightLimiter inFlightLimiter = new InFlightLimiter(0, null);
+    private volatile RpcLatencyRecorder latencyRecorder;
+
+    public RequestResponseMatcher() {
+        this(DEFAULT_REQUEST_TIMEOUT_MS, DEFAULT_STREAM_IDLE_TIMEOUT_MS);
+    }
+
+    public RequestResponseMatcher(long requestTimeoutMs, long streamIdleTimeoutMs) {
+        this(requestTimeoutMs, streamIdleTimeoutMs, DEFAULT_CALLBACK_THREADS, DEFAULT_CALLBACK_QUEUE_CAPACITY);
+    }
+
+    public RequestResponseMatcher(long requestTimeoutMs, long streamIdleTimeoutMs, int callbackThreads, int callbackQueueCapacity) {
+        this.requestTimeoutMs = requestTimeoutMs;
+        this.streamIdleTimeoutMs = streamIdleTimeoutMs;
+        this.executionPool = new StripedExecutor("rpc-callback", callbackThreads, callbackQueueCapacity);
+        this.executionPool.start();
+        this.timeouts = new HashedTimerWheel<>("rpc-callback-timeouts", TICK_MS, WHEEL_SIZE, this::onTimeout);
+        this.timeouts.start();
+    }
 
+    /**
+     * Registers callback of a call that expects a single reply.
+     */
     public void addRequestCallback(String correlationId, Consumer<Response> callback) {
-        correlationMap.put(correlationId, callback);
+        addRequestCallback(correlationId, callback, true);
+    }
+
+    public void addRequestCallback(String correlationId, Consumer<Response> callback, boolean singleReplyExpected) {
+        register(new PendingCall(correlationId, callback, !singleReplyExpected, System.currentTimeMillis(), null, null));
+    }
+
+    /**
+     * Registers callback of a call unless it is a single reply call and the in-flight limit is reached.
+     *
+     * @return false if the call is rejected and callback is not registered
+     */
+    public boolean tryAddRequestCallback(String correlationId, Action action, Consumer<Response> callback, boolean singleReplyExpected) {
+        InFlightLimiter limiter = null;
+        if (singleReplyExpected) {
+            limiter = inFlightLimiter;
+            if (!limiter.tryAcquire(action)) {
+                logger.debug("Call {} of {} rejected, {} calls in flight", correlationId, action, limiter.getInFlight());
+                return false;
+            }
+        }
+        register(new PendingCall(correlationId, callback, !singleReplyExpected, System.currentTimeMillis(), action, limiter));
+        return true;
     }
 
     public void removeRequestCallback(String correlationId) {
-        correlationMap.remove(correlationId);
+        released(correlationMap.remove(correlationId));
+    }
+
+    /**
+     * Completes the call with a failed response, e.g. when the request could not be sent.
+     */
+    public void failRequest(String correlationId, int errorCode, String message) {
+        PendingCall call = correlationMap.remove(correlationId);
+        if (call != null) {
+            released(call);
+            executionPool.execute(correlationId, () -> call.callback.accept(failedResponse(correlationId, errorCode, message)));
+        }
     }
 
     public void offerResponse(Response response) {
-        Consumer<Response> callback = correlationMap.get(response.getCorrelationId());
-        if (callback != null) {
-            executionPool.execute(() -> {
+        if (response.isBatch()) {
+            response.getCorrelationIds().forEach(correlationId -> offerResponse(response.unpack(correlationId)));
+            return;
+        }
+        PendingCall call = correlationMap.get(response.getCorrelationId());
+        if (call != null) {
+            if (call.streaming) {
+                call.lastActivity = System.currentTimeMillis();
+            }
+            RpcLatencyRecorder recorder = latencyRecorder;
+            if (recorder != null && response.getTimings() != null) {
+                recorder.recordReply(call.action != null ? call.action : response.getAction(), response.getTimings(), System.currentTimeMillis());
+            }
+            executionPool.execute(call.correlationId, () -> {
                 try {
-                    callback.accept(response);
+                    call.callback.accept(response);
                 } finally {
-                    if (response.isLast()) {
-                        correlationMap.remove(response.getCorrelationId());
+                    if (response.isLast() && correlationMap.remove(response.getCorrelationId(), call)) {
+                        released(call);
                     }
                 }
             });
         } else {
-            logger.warn("Callback was not found for {}. Map size: {}, response: {}", response.getCorrelationId(), correlationMap.size(), response.getBody());
+            // body is left undecoded, nobody is going to consume it
+            logger.warn("Callback was not found for {}. Map size: {}, action: {}", response.getCorrelationId(), correlationMap.size(), response.getAction());
         }
     }
 
+    /**
+     * Binds the streaming call to the subscription, so it lives until the subscription is removed.
+     */
     public void addSubscription(Long subscriptionId, String correlationId) {
-       subscriptionMap.put(subscriptionId, correlationId);
+        subscriptionMap.put(subscriptionId, correlationId);
+        PendingCall call = correlationMap.get(correlationId);
+        if (call != null) {
+            call.subscribed = true;
+        }
     }
 
+    /**
+     * Forgets the subscription along with callbacks of the calls that created it.
+     */
     public void removeSubscription(Long subscriptionId) {
-        subscriptionMap.removeAll(subscriptionId);
+        Set<String> correlationIds = subscriptionMap.removeAll(subscriptionId);
+        correlationIds.forEach(correlationId -> released(correlationMap.remove(correlationId)));
+    }
+
+    public void setInFlightLimiter(InFlightLimiter inFlightLimiter) {
+        this.inFlightLimiter = inFlightLimiter;
+    }
+
+    public InFlightLimiter getInFlightLimiter() {
+        return inFlightLimiter;
+    }
+
+    /**
+     * Enables recording of latencies from timing stamps of replies, clients stamp their requests only if it is set.
+     */
+    public void setLatencyRecorder(RpcLatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    /**
+     * @return recorder of reply latencies, null if timing is disabled
+     */
+    public RpcLatencyRecorder getLatencyRecorder() {
+        return latencyRecorder;
+    }
+
+    /**
+     * @return number of calls waiting for responses
+     */
+    public int getPendingCalls() {
+        return correlationMap.size();
+    }
+
+    /**
+     * @return number of calls expired since start
+     */
+    public long getExpiredCalls() {
+        return expiredCalls.get();
+    }
+
+    /**
+     * @return sorted ages of pending calls in milliseconds
+     */
+    public long[] getPendingCallAges() {
+        long now = System.currentTimeMillis();
+        long[] ages = correlationMap.values().stream()
+                .mapToLong(call -> now - call.createdAt)
+                .toArray();
+        Arrays.sort(ages);
+        return ages;
+    }
+
+    /**
+     * @return number of callbacks waiting for execution, per callback thread
+     */
+    public int[] getCallbackQueueDepths() {
+        return executionPool.getQueueDepths();
+    }
+
+    public int getCallbackQueueCapacity() {
+        return executionPool.getQueueCapacity();
+    }
+
+    public void shutdown() {
+        timeouts.stop();
+        executionPool.shutdown();
+    }
+
+    private void onTimeout(PendingCall call) {
+        if (correlationMap.get(call.correlationId) != call) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (call.streaming && call.subscribed) {
+            timeouts.schedule(call, now + streamIdleTimeoutMs);
+            return;
+        }
+        long deadline = call.deadline();
+        if (deadline > now) {
+            timeouts.schedule(call, deadline);
+            return;
+        }
+        if (correlationMap.remove(call.correlationId, call)) {
+            released(call);
+            expiredCalls.incrementAndGet();
+            logger.debug("Call {} expired, streaming: {}", call.correlationId, call.streaming);
+            executionPool.execute(call.correlationId, () -> call.callback.accept(failedResponse(call.correlationId, SC_GATEWAY_TIMEOUT, TIMEOUT_MESSAGE)));
+        }
+    }
+
+    private void register(PendingCall call) {
+        released(correlationMap.put(call.correlationId, call));
+        timeouts.schedule(call, call.deadline());
+    }
+
+    private void released(PendingCall call) {
+        if (call != null && call.limiter != null) {
+            call.limiter.release(call.action);
+        }
+    }
+
+    private Response failedResponse(String correlationId, int errorCode, String message) {
+        return Response.newBuilder()
+                .withBody(new ErrorResponse(message))
+                .withCorrelationId(correlationId)
+                .withLast(true)
+                .buildFailed(errorCode);
+    }
+
+    private class PendingCall {
+        private final String correlationId;
+        private final Consumer<Response> callback;
+        private final boolean streaming;
+        private final long createdAt;
+        private final Action action;
+        private final InFlightLimiter limiter;
+        private volatile long lastActivity;
+        private volatile boolean subscribed;
+
+        PendingCall(String correlationId, Consumer<Response> callback, boolean streaming, long createdAt,
+                    Action action, InFlightLimiter limiter) {
+            this.correlationId = correlationId;
+            this.callback = callback;
+            this.streaming = streaming;
+            this.createdAt = createdAt;
+            this.lastActivity = createdAt;
+            this.action = action;
+            this.limiter = limiter;
+        }
+
+        long deadline() {
+            return streaming ? lastActivity + streamIdleTimeoutMs : createdAt + requestTimeoutMs;
+        }
     }
 }
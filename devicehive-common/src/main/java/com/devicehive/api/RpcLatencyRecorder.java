@@ -0,0 +1,105 @@
+package com.devicehive.api;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.api.Timings;
+import com.devicehive.util.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Latency distributions of RPC calls per request action and stage, recorded from {@link Timings} stamps.
+ * Client side records every stage of a reply, server side only the stages it stamps itself.
+ */
+public class RpcLatencyRecorder {
+
+    private static final long HIGHEST_LATENCY_MS = 3600000;
+
+    public enum Stage {
+        /** client send to server receive, i.e. transport of the request */
+        REQUEST_TRANSIT,
+        /** server receive to handler start, i.e. waiting in the server queue */
+        SERVER_QUEUE,
+        HANDLER,
+        /** handler end to server send */
+        SERVER_SEND,
+        /** server send to client receive, i.e. transport of the response */
+        RESPONSE_TRANSIT,
+        TOTAL
+    }
+
+    public interface HistogramVisitor {
+        void visit(Action action, Stage stage, LatencyHistogram histogram);
+    }
+
+    private static final Action[] ACTIONS = Action.values();
+    private static final Stage[] STAGES = Stage.values();
+
+    private final AtomicReferenceArray<LatencyHistogram> histograms = new AtomicReferenceArray<>(ACTIONS.length * STAGES.length);
+
+    /**
+     * Records stages of a reply received by the client.
+     */
+    public void recordReply(Action action, Timings timings, long receivedAt) {
+        if (action == null || timings == null) {
+            return;
+        }
+        recordServer(action, timings);
+        record(action, Stage.REQUEST_TRANSIT, timings.getClientSend(), timings.getServerReceive());
+        record(action, Stage.RESPONSE_TRANSIT, timings.getServerSend(), receivedAt);
+        record(action, Stage.TOTAL, timings.getClientSend(), receivedAt);
+    }
+
+    /**
+     * Records stages taken on the server.
+     */
+    public void recordServer(Action action, Timings timings) {
+        if (action == null || timings == null) {
+            return;
+        }
+        record(action, Stage.SERVER_QUEUE, timings.getServerReceive(), timings.getHandlerStart());
+        record(action, Stage.HANDLER, timings.getHandlerStart(), timings.getHandlerEnd());
+        record(action, Stage.SERVER_SEND, timings.getHandlerEnd(), timings.getServerSend());
+    }
+
+    public void forEach(HistogramVisitor visitor) {
+        for (int i = 0; i < histograms.length(); i++) {
+            LatencyHistogram histogram = histograms.get(i);
+            if (histogram != null) {
+                visitor.visit(ACTIONS[i / STAGES.length], STAGES[i % STAGES.length], histogram);
+            }
+        }
+    }
+
+    private void record(Action action, Stage stage, long from, long to) {
+        if (from == 0 || to == 0) {
+            return;
+        }
+        int index = action.ordinal() * STAGES.length + stage.ordinal();
+        LatencyHistogram histogram = histograms.get(index);
+        if (histogram == null) {
+            histograms.compareAndSet(index, null, new LatencyHistogram(HIGHEST_LATENCY_MS));
+            histogram = histograms.get(index);
+        }
+        histogram.record(to - from);
+    }
+}
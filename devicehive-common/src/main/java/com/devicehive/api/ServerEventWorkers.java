@@ -0,0 +1,62 @@
+package com.devicehive.api;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.ServerEvent;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.WorkerPool;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Handlers of server events published to a ring buffer.
+ */
+public interface ServerEventWorkers {
+
+    /**
+     * Starts handlers on threads of the executor.
+     *
+     * @return ring buffer to publish events to
+     */
+    RingBuffer<ServerEvent> start(Executor executor);
+
+    /**
+     * Waits until all published events are handled and stops handlers.
+     */
+    void drainAndHalt();
+
+    /**
+     * Any handler of the pool takes any event, so requests with the same partition key may run concurrently.
+     */
+    static ServerEventWorkers pooled(WorkerPool<ServerEvent> workerPool) {
+        return new ServerEventWorkers() {
+            @Override
+            public RingBuffer<ServerEvent> start(Executor executor) {
+                return workerPool.start(executor);
+            }
+
+            @Override
+            public void drainAndHalt() {
+                workerPool.drainAndHalt();
+            }
+        };
+    }
+}
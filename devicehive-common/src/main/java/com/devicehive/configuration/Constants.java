@@ -59,6 +59,7 @@ public class Constants {
     public static final String DB_SECRET_VAR_NAME = "jwt.secret";
     public static final String REQUEST_TOPIC = "request_topic";
     public static final String SUBSCRIPTION_TOPIC = "subscription_update";
+    public static final String SUBSCRIPTION_SNAPSHOT_TOPIC = "subscription_snapshot";
     public final static String USER_ID = "userId";
     public final static String X_FORWARDED_PROTO_HEADER_NAME = "X-Forwarded-Proto";
     public final static String X_FORWARDED_PORT_HEADER_NAME = "X-Forwarded-Port";
@@ -75,6 +76,8 @@ public class Constants {
     public static final String START_TIMESTAMP = "start";
     public static final String END_TIMESTAMP = "end";
     public static final String LIMIT = "limit";
+    public static final String PREDICATE = "predicate";
+    public static final String CONFLATION_WINDOW = "conflationWindow";
     public static final String COMMAND_ID = "commandId";
     public static final String RETURN_COMMANDS = "returnCommands";
     public static final String RETURN_UPDATED_COMMANDS = "returnUpdatedCommands";
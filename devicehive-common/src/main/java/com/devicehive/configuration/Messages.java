@@ -143,6 +143,8 @@ public class Messages {
     public static final String ACTIVE_PLUGIN_UPDATED = BidBundle.get("ACTIVE_PLUGIN_UPDATED");
     public static final String PLUGIN_SUBSCRIPTION_NOT_VALID = BidBundle.get("PLUGIN_SUBSCRIPTION_NOT_VALID");
     public static final String NO_ACCESS_TO_PLUGIN = BidBundle.get("NO_ACCESS_TO_PLUGIN");
+    public static final String INVALID_PAYLOAD_PREDICATE = BidBundle.get("INVALID_PAYLOAD_PREDICATE");
+    public static final String INVALID_CONFLATION_WINDOW = BidBundle.get("INVALID_CONFLATION_WINDOW");
 
     /**
      * Bundle to extract localized strings from property files.
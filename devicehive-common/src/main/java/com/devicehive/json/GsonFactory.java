@@ -31,6 +31,7 @@ import com.devicehive.model.eventbus.events.NotificationEvent;
 import com.devicehive.model.rpc.*;
 import com.devicehive.shim.api.Action;
 import com.devicehive.shim.api.Body;
+import com.devicehive.shim.api.EncodedBody;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
@@ -43,6 +44,7 @@ import static com.devicehive.json.strategies.JsonPolicyDef.Policy;
 public class GsonFactory {
 
     private static Map<Policy, Gson> cache = new ConcurrentHashMap<>();
+    private static RuntimeTypeAdapterFactory<Body> bodyTypes = createBodyTypes();
     private static Gson gson = createGsonBuilder().create();
 
     public static Gson createGson() {
@@ -63,8 +65,16 @@ public class GsonFactory {
     }
 
 
-    private static GsonBuilder createGsonBuilder() {
-        RuntimeTypeAdapterFactory<Body> req = RuntimeTypeAdapterFactory.of(Body.class, "a")
+    /**
+     * @return body class registered for the action, null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public static Class<? extends Body> getBodyType(Action action) {
+        return (Class<? extends Body>) bodyTypes.getSubtype(action.ordinal());
+    }
+
+    private static RuntimeTypeAdapterFactory<Body> createBodyTypes() {
+        return RuntimeTypeAdapterFactory.of(Body.class, "a")
                 .registerSubtype(ErrorResponse.class, Action.ERROR_RESPONSE.ordinal())
 
                 .registerSubtype(CommandInsertRequest.class, Action.COMMAND_INSERT_REQUEST.ordinal())
@@ -122,8 +132,13 @@ public class GsonFactory {
                 .registerSubtype(DeviceDeleteRequest.class, Action.DEVICE_DELETE_REQUEST.ordinal())
                 .registerSubtype(DeviceDeleteResponse.class, Action.DEVICE_DELETE_RESPONSE.ordinal())
 
-                .registerSubtype(CountResponse.class, Action.COUNT_RESPONSE.ordinal());
+                .registerSubtype(CountResponse.class, Action.COUNT_RESPONSE.ordinal())
 
+                .registerSubtype(SubscriptionHeartbeatRequest.class, Action.SUBSCRIPTION_HEARTBEAT_REQUEST.ordinal())
+                .registerSubtype(SubscriptionHeartbeatResponse.class, Action.SUBSCRIPTION_HEARTBEAT_RESPONSE.ordinal());
+    }
+
+    private static GsonBuilder createGsonBuilder() {
         return new GsonBuilder()
                 .disableHtmlEscaping()
                 .serializeNulls()
@@ -132,7 +147,8 @@ public class GsonFactory {
                 .registerTypeAdapter(Date.class, new TimestampAdapter())
                 .registerTypeAdapter(UserRole.class, new UserRoleAdapter())
                 .registerTypeAdapter(UserStatus.class, new UserStatusAdapter())
-                .registerTypeAdapterFactory(req);
+                .registerTypeAdapter(EncodedBody.class, new EncodedBodyAdapter())
+                .registerTypeAdapterFactory(bodyTypes);
     }
 
 }
@@ -0,0 +1,49 @@
+package com.devicehive.json.adapters;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.shim.api.EncodedBody;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes pre-encoded body JSON as is. Encoded bodies are never read back, receivers get the original body type.
+ */
+public class EncodedBodyAdapter extends TypeAdapter<EncodedBody> {
+
+    @Override
+    public void write(JsonWriter out, EncodedBody value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.jsonValue(value.getJson());
+        }
+    }
+
+    @Override
+    public EncodedBody read(JsonReader in) throws IOException {
+        throw new JsonParseException("Encoded body can not be deserialized, use original body type instead");
+    }
+}
@@ -193,6 +193,13 @@ public final class RuntimeTypeAdapterFactory<T> implements TypeAdapterFactory {
         return this;
     }
 
+    /**
+     * Returns the subtype registered with {@code label}, or null if there is none.
+     */
+    public Class<?> getSubtype(Integer label) {
+        return labelToSubtype.get(label);
+    }
+
     public <R> TypeAdapter<R> create(Gson gson, TypeToken<R> type) {
         if (type.getRawType() != baseType) {
             return null;
@@ -22,15 +22,34 @@ package com.devicehive.model;
 
 import com.devicehive.shim.api.Request;
 
+import java.util.List;
+
 public class ServerEvent {
 
     private Request request;
+    private List<Request> batch;
 
     public void set(Request request) {
         this.request = request;
+        this.batch = null;
+    }
+
+    /**
+     * Carries requests of the same action to be handled at once, {@link #get()} returns the first of them.
+     */
+    public void setBatch(List<Request> batch) {
+        this.request = batch.get(0);
+        this.batch = batch;
     }
 
     public Request get() {
         return request;
     }
+
+    /**
+     * @return requests of the batch, null if the event carries a single request
+     */
+    public List<Request> getBatch() {
+        return batch;
+    }
 }
@@ -105,6 +105,14 @@ public class Filter implements Portable {
         return joiner.toString();
     }
 
+    /**
+     * @return key to partition requests on this filter by: device id for device filters, so that they reach
+     * the node publishing events of that device, first key otherwise
+     */
+    public String getPartitionKey() {
+        return deviceId != null ? deviceId : getFirstKey();
+    }
+
     public String getDeviceIgnoredFirstKey() {
         StringJoiner joiner = new StringJoiner(",");
 
@@ -20,73 +20,303 @@ package com.devicehive.model.eventbus;
  * #L%
  */
 
+import com.devicehive.model.eventbus.events.Event;
 import com.devicehive.vo.DeviceVO;
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import com.google.gson.Gson;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
- * Class for handling all subscriber's filters
+ * Class for handling all subscriber's filters.
+ * Lookups are lock-free, register and unregister touch only the cells the subscription lives in.
  */
 public abstract class FilterRegistry {
 
+    /**
+     * Placeholder for filter components that are not set, i.e. "any network", "any device" etc.
+     */
+    private static final Object ANY = new Object();
+
     /**
      * Table for holding subscription request id (i.e. subscriber) for particular filter.
-     * First key is comma-separated string combination of networkId, deviceTypeId and deviceId,
-     * second key is comma-separated string combination of eventName and name.
+     * Rows are looked up by networkId, deviceTypeId and deviceId as they come with the event, so matching
+     * does not build any keys. Each row holds cells by eventName and name, which are dropped with
+     * their last subscriber.
+     */
+    private final ConcurrentHashMap<Object, ConcurrentHashMap<Object, ConcurrentHashMap<Object, Row>>> subscriberTable =
+            new ConcurrentHashMap<>();
+
+    /**
+     * Reverse index from subscription id to the filters it was registered with, so unregister
+     * does not have to scan the whole table. Also serves as a source for registry snapshots.
+     * Entries are published only after the table cell is written and together with their first filter,
+     * so unregister racing with register never leaves a cell that is not indexed.
+     */
+    private final ConcurrentHashMap<Long, Map<Filter, Subscriber>> subscriptionIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Last lease renewal time by reply topic. Subscriptions delivered to topics, that never renewed
+     * a lease (e.g. plugin topics), don't expire.
      */
-    private final Table<String, String, Set<Subscriber>> subscriberTable = HashBasedTable.create();
+    private final ConcurrentHashMap<String, Long> leases = new ConcurrentHashMap<>();
+    private volatile long leaseTimeout;
+    private volatile BiConsumer<String, Long> leaseListener;
+
+    private volatile long bootstrapTime = -1;
+    private volatile int bootstrapEntries;
 
     public abstract void register(Filter filter, Subscriber subscriber);
 
     public abstract void unregister(Subscriber subscriber);
 
-    protected synchronized void processRegister(Filter filter, Subscriber subscriber) {
-        Set<Subscriber> subscribers = subscriberTable.get(filter.getFirstKey(), filter.getSecondKey());
-        if (subscribers == null) {
-            subscribers = new HashSet<>();
-            subscribers.add(subscriber);
-            subscriberTable.put(filter.getFirstKey(), filter.getSecondKey(), subscribers);
-        } else {
-            subscribers.add(subscriber);
-        }
+    protected void processRegister(Filter filter, Subscriber subscriber) {
+        addRegistration(filter, subscriber);
+    }
+
+    private void addRegistration(Filter filter, Subscriber subscriber) {
+        subscriberTable.compute(key(filter.getNetworkId()), (networkId, deviceTypes) -> {
+            if (deviceTypes == null) {
+                deviceTypes = new ConcurrentHashMap<>();
+            }
+            deviceTypes.compute(key(filter.getDeviceTypeId()), (deviceTypeId, devices) -> {
+                if (devices == null) {
+                    devices = new ConcurrentHashMap<>();
+                }
+                devices.compute(key(filter.getDeviceId()), (deviceId, row) -> {
+                    if (row == null) {
+                        row = new Row();
+                    }
+                    row.add(key(filter.getEventName()), key(filter.getName()), subscriber);
+                    return row;
+                });
+                return devices;
+            });
+            return deviceTypes;
+        });
+        subscriptionIndex.compute(subscriber.getId(), (id, registrations) -> {
+            if (registrations == null) {
+                registrations = new ConcurrentHashMap<>();
+            }
+            registrations.put(filter, subscriber);
+            return registrations;
+        });
     }
 
-    protected synchronized void processUnregister(Subscriber subscriber) {
-        subscriberTable.values().forEach(subscribers -> {
-            Iterator iterator = subscribers.iterator();
+    protected void processUnregister(Subscriber subscriber) {
+        Map<Filter, Subscriber> registrations = subscriptionIndex.remove(subscriber.getId());
+        if (registrations == null) {
+            return;
+        }
+        registrations.keySet().forEach(filter -> removeFromTable(filter, subscriber.getId()));
+    }
 
+    /**
+     * Removes registrations, which filters match the scope, e.g. the ones another node became responsible for.
+     *
+     * @return number of removed registrations
+     */
+    protected int dropRegistrations(Predicate<Filter> scope) {
+        int dropped = 0;
+        for (Map.Entry<Long, Map<Filter, Subscriber>> entry : subscriptionIndex.entrySet()) {
+            Iterator<Filter> iterator = entry.getValue().keySet().iterator();
             while (iterator.hasNext()) {
-                Object element = iterator.next();
-                if (element.equals(subscriber)) {
+                Filter filter = iterator.next();
+                if (scope.test(filter)) {
                     iterator.remove();
+                    removeFromTable(filter, entry.getKey());
+                    dropped++;
                 }
             }
-        });
+            subscriptionIndex.computeIfPresent(entry.getKey(), (id, registrations) -> registrations.isEmpty() ? null : registrations);
+        }
+        return dropped;
     }
 
     public Collection<Subscriber> getSubscribers(Filter filter) {
-        Set<Subscriber> subscribers = new HashSet<>();
-        Set<Subscriber> globalFilterSubscribers = subscriberTable.get("*,*,*", filter.getSecondKey());
-        if (globalFilterSubscribers != null) {
-            subscribers.addAll(globalFilterSubscribers);
+        List<Subscriber> subscribers = new ArrayList<>();
+        forEachSubscriber(filter.getNetworkId(), filter.getDeviceTypeId(), filter.getDeviceId(),
+                filter.getEventName(), filter.getName(), subscribers::add);
+        return subscribers;
+    }
+
+    /**
+     * Passes every subscriber of the event to the action, once per applicable filter.
+     * Does not create filters, keys or intermediate collections.
+     */
+    public void forEachSubscriber(Event event, Consumer<Subscriber> action) {
+        event.visitApplicableFilters((networkId, deviceTypeId, deviceId, eventName, name) ->
+                forEachSubscriber(networkId, deviceTypeId, deviceId, eventName, name, action));
+    }
+
+    private void forEachSubscriber(Long networkId, Long deviceTypeId, String deviceId, String eventName, String name,
+                                   Consumer<Subscriber> action) {
+        Object eventKey = key(eventName);
+        Object nameKey = key(name);
+        Map<Long, Subscriber> global = getCell(ANY, ANY, ANY, eventKey, nameKey);
+        Map<Long, Subscriber> deviceIgnored = getCell(key(networkId), key(deviceTypeId), ANY, eventKey, nameKey);
+        Map<Long, Subscriber> device = getCell(key(networkId), key(deviceTypeId), key(deviceId), eventKey, nameKey);
+        visit(global, null, null, action);
+        visit(deviceIgnored, global, null, action);
+        visit(device, global, deviceIgnored, action);
+    }
+
+    public void unregisterDevice(DeviceVO device) {
+        Row[] removed = new Row[1];
+        updateDevices(device.getNetworkId(), device.getDeviceTypeId(), devices ->
+                removed[0] = devices.remove(key(device.getDeviceId())));
+        if (removed[0] == null) {
+            return;
         }
-        Set<Subscriber> filterSubscribers = subscriberTable.get(filter.getDeviceIgnoredFirstKey(), filter.getSecondKey());
-        if (filterSubscribers != null) {
-            subscribers.addAll(filterSubscribers);
+        removed[0].subscriptionIds().forEach(id -> subscriptionIndex.computeIfPresent(id, (key, registrations) -> {
+            registrations.keySet().removeIf(filter -> Objects.equals(filter.getNetworkId(), device.getNetworkId()) &&
+                    Objects.equals(filter.getDeviceTypeId(), device.getDeviceTypeId()) &&
+                    Objects.equals(filter.getDeviceId(), device.getDeviceId()));
+            return registrations.isEmpty() ? null : registrations;
+        }));
+    }
+
+    /**
+     * @return registrations of subscription as REGISTER messages, empty list if subscription is unknown
+     */
+    public List<SubscribeMessage> getRegistrations(Long subscriptionId) {
+        Map<Filter, Subscriber> registrations = subscriptionIndex.get(subscriptionId);
+        if (registrations == null) {
+            return Collections.emptyList();
         }
-        Set<Subscriber> deviceFilterSubscribers = subscriberTable.get(filter.getFirstKey(), filter.getSecondKey());
-        if (deviceFilterSubscribers != null) {
-            subscribers.addAll(deviceFilterSubscribers);
+        List<SubscribeMessage> messages = new ArrayList<>(registrations.size());
+        registrations.forEach((filter, subscriber) -> messages.add(new SubscribeMessage(SubscribeAction.REGISTER, filter, subscriber)));
+        return messages;
+    }
+
+    public Set<Long> getSubscriptionIds() {
+        return Collections.unmodifiableSet(subscriptionIndex.keySet());
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptionIndex.size();
+    }
+
+    /**
+     * Replaces all registrations of subscription with the ones from snapshot.
+     * Empty registrations remove the subscription.
+     */
+    protected void restore(Long subscriptionId, Collection<SubscribeMessage> registrations) {
+        processUnregister(new Subscriber(subscriptionId, null, null));
+        registrations.forEach(message -> processRegister(message.getFilter(), message.getSubscriber()));
+    }
+
+    /**
+     * Replaces registrations of subscription, which filters match the scope, with the ones from snapshot.
+     * Registrations out of scope are kept. Unlike {@link #restore}, does not go through overridable register
+     * and unregister hooks.
+     *
+     * @return number of registrations added
+     */
+    protected int restore(Long subscriptionId, Predicate<Filter> scope, Collection<SubscribeMessage> registrations) {
+        subscriptionIndex.computeIfPresent(subscriptionId, (id, current) -> {
+            Iterator<Filter> iterator = current.keySet().iterator();
+            while (iterator.hasNext()) {
+                Filter filter = iterator.next();
+                if (scope.test(filter)) {
+                    iterator.remove();
+                    removeFromTable(filter, id);
+                }
+            }
+            return current.isEmpty() ? null : current;
+        });
+        int added = 0;
+        for (SubscribeMessage message : registrations) {
+            if (scope.test(message.getFilter())) {
+                addRegistration(message.getFilter(), message.getSubscriber());
+                added++;
+            }
         }
-        return subscribers;
+        return added;
     }
 
-    public void unregisterDevice(DeviceVO device) {
-        final Filter deviceFilter = new Filter(device.getNetworkId(), device.getDeviceTypeId(), device.getDeviceId(), null, null);
-        subscriberTable.row(deviceFilter.getFirstKey()).clear();
+    protected void bootstrapCompleted(long startTime, int entries) {
+        this.bootstrapTime = System.currentTimeMillis() - startTime;
+        this.bootstrapEntries = entries;
+    }
+
+    /**
+     * @return time in milliseconds it took to load registry state on startup, -1 if it was not loaded yet
+     */
+    public long getBootstrapTime() {
+        return bootstrapTime;
+    }
+
+    /**
+     * @return number of snapshot entries loaded on startup
+     */
+    public int getBootstrapEntries() {
+        return bootstrapEntries;
+    }
+
+    /**
+     * Renews leases of all subscriptions delivered to the reply topic.
+     */
+    public void renew(String replyTo) {
+        processRenew(replyTo, System.currentTimeMillis());
+    }
+
+    protected void processRenew(String replyTo, long renewedAt) {
+        Long renewal = leases.merge(replyTo, renewedAt, Math::max);
+        BiConsumer<String, Long> listener = leaseListener;
+        if (listener != null) {
+            listener.accept(replyTo, renewal);
+        }
+    }
+
+    /**
+     * Enables expiration of subscription leases.
+     *
+     * @param leaseTimeout time in milliseconds lease stays valid after renewal
+     * @param leaseListener receives reply topic and its last renewal time on each renewal
+     */
+    public void enableLeases(long leaseTimeout, BiConsumer<String, Long> leaseListener) {
+        this.leaseTimeout = leaseTimeout;
+        this.leaseListener = leaseListener;
+    }
+
+    /**
+     * @return last lease renewal time of the reply topic, null if topic has no lease
+     */
+    public Long getLeaseRenewal(String replyTo) {
+        return leases.get(replyTo);
+    }
+
+    public boolean isLeaseExpired(String replyTo) {
+        long timeout = leaseTimeout;
+        if (timeout <= 0 || leases.isEmpty()) {
+            return false;
+        }
+        Long renewal = leases.get(replyTo);
+        return renewal != null && renewal + timeout < System.currentTimeMillis();
+    }
+
+    /**
+     * Drops lease of the reply topic together with all subscriptions delivered to it,
+     * unless lease was renewed after the given time.
+     *
+     * @return ids of removed subscriptions
+     */
+    public Set<Long> reclaim(String replyTo, Long renewal) {
+        if (!leases.remove(replyTo, renewal)) {
+            return Collections.emptySet();
+        }
+        Set<Long> reclaimed = new HashSet<>();
+        subscriptionIndex.forEach((id, registrations) -> {
+            if (registrations.values().stream().anyMatch(subscriber -> replyTo.equals(subscriber.getReplyTo()))) {
+                reclaimed.add(id);
+            }
+        });
+        reclaimed.forEach(id -> processUnregister(new Subscriber(id, null, null)));
+        return reclaimed;
     }
 
     protected void handleSubscriptionMessage(String message, Gson gson) {
@@ -99,6 +329,121 @@ public abstract class FilterRegistry {
             case UNREGISTER:
                 processUnregister(subscribeMessage.getSubscriber());
                 break;
+            case SNAPSHOT_REQUEST:
+                processSnapshotRequest(subscribeMessage);
+                break;
+            case SNAPSHOT:
+                processSnapshot(subscribeMessage);
+                break;
+            case RENEW:
+                processRenew(subscribeMessage.getNode(), subscribeMessage.getTimestamp());
+                break;
+        }
+    }
+
+    /**
+     * Called when another node asks for registry state. Registries that bootstrap from peers should reply with
+     * SNAPSHOT messages.
+     */
+    protected void processSnapshotRequest(SubscribeMessage request) {
+    }
+
+    /**
+     * Called when part of registry state requested by some node arrives.
+     */
+    protected void processSnapshot(SubscribeMessage snapshot) {
+    }
+
+    private static Object key(Object component) {
+        return component != null ? component : ANY;
+    }
+
+    private void removeFromTable(Filter filter, Long subscriptionId) {
+        updateDevices(filter.getNetworkId(), filter.getDeviceTypeId(), devices ->
+                devices.computeIfPresent(key(filter.getDeviceId()), (deviceId, row) ->
+                        row.remove(key(filter.getEventName()), key(filter.getName()), subscriptionId) ? null : row));
+    }
+
+    private Map<Long, Subscriber> getCell(Object networkId, Object deviceTypeId, Object deviceId, Object eventName, Object name) {
+        Map<Object, ConcurrentHashMap<Object, Row>> deviceTypes = subscriberTable.get(networkId);
+        if (deviceTypes == null) {
+            return null;
+        }
+        Map<Object, Row> devices = deviceTypes.get(deviceTypeId);
+        if (devices == null) {
+            return null;
+        }
+        Row row = devices.get(deviceId);
+        return row != null ? row.get(eventName, name) : null;
+    }
+
+    /**
+     * Visits subscribers of the cell, skipping those already visited through one of the previous cells.
+     */
+    private static void visit(Map<Long, Subscriber> cell, Map<Long, Subscriber> visited, Map<Long, Subscriber> alsoVisited,
+                              Consumer<Subscriber> action) {
+        if (cell == null) {
+            return;
+        }
+        for (Subscriber subscriber : cell.values()) {
+            if ((visited == null || !visited.containsKey(subscriber.getId())) &&
+                    (alsoVisited == null || !alsoVisited.containsKey(subscriber.getId()))) {
+                action.accept(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Applies update to the devices map of network and device type, dropping maps that became empty.
+     */
+    private void updateDevices(Long networkId, Long deviceTypeId, Consumer<ConcurrentHashMap<Object, Row>> update) {
+        subscriberTable.computeIfPresent(key(networkId), (n, deviceTypes) -> {
+            deviceTypes.computeIfPresent(key(deviceTypeId), (t, devices) -> {
+                update.accept(devices);
+                return devices.isEmpty() ? null : devices;
+            });
+            return deviceTypes.isEmpty() ? null : deviceTypes;
+        });
+    }
+
+    /**
+     * Subscribers of one (networkId, deviceTypeId, deviceId) combination, grouped by eventName and name.
+     * Changed only inside compute of its devices map, so adding and removing cells never race.
+     */
+    private static class Row {
+
+        private final ConcurrentHashMap<Object, ConcurrentHashMap<Object, ConcurrentHashMap<Long, Subscriber>>> cells =
+                new ConcurrentHashMap<>();
+
+        void add(Object eventName, Object name, Subscriber subscriber) {
+            cells.computeIfAbsent(eventName, e -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(name, n -> new ConcurrentHashMap<>())
+                    .put(subscriber.getId(), subscriber);
+        }
+
+        /**
+         * @return true if row has no subscribers left
+         */
+        boolean remove(Object eventName, Object name, Long subscriptionId) {
+            cells.computeIfPresent(eventName, (e, names) -> {
+                names.computeIfPresent(name, (n, cell) -> {
+                    cell.remove(subscriptionId);
+                    return cell.isEmpty() ? null : cell;
+                });
+                return names.isEmpty() ? null : names;
+            });
+            return cells.isEmpty();
+        }
+
+        Map<Long, Subscriber> get(Object eventName, Object name) {
+            Map<Object, ConcurrentHashMap<Long, Subscriber>> names = cells.get(eventName);
+            return names != null ? names.get(name) : null;
+        }
+
+        Set<Long> subscriptionIds() {
+            Set<Long> ids = new HashSet<>();
+            cells.values().forEach(names -> names.values().forEach(cell -> ids.addAll(cell.keySet())));
+            return ids;
         }
     }
 }
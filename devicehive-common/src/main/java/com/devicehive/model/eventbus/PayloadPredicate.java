@@ -0,0 +1,315 @@
+package com.devicehive.model.eventbus;
+
+/*
+ * #%L
+ * DeviceHive Backend Logic
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.JsonStringWrapper;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Predicate over event parameters, evaluated before event is delivered to subscriber.
+ * Expression is a JSONPath comparison or several comparisons joined with {@code &&}, for example
+ * {@code $.temperature > 80 && $.sensor.state == 'on'}. Supported operators are
+ * {@code ==, !=, >, >=, <, <=}, values are numbers, quoted strings, {@code true}, {@code false} and {@code null}.
+ * Comparison with a value missing in parameters is false.
+ */
+public class PayloadPredicate {
+
+    private final String expression;
+    private final List<Comparison> comparisons;
+
+    private PayloadPredicate(String expression, List<Comparison> comparisons) {
+        this.expression = expression;
+        this.comparisons = comparisons;
+    }
+
+    /**
+     * @throws IllegalArgumentException if expression is not valid
+     */
+    public static PayloadPredicate compile(String expression) {
+        return new Parser(expression).parse();
+    }
+
+    /**
+     * Parses event parameters for evaluation, so that they can be parsed once for all predicates.
+     */
+    public static JsonElement parse(JsonStringWrapper parameters) {
+        return parameters != null && parameters.getJsonString() != null
+                ? new JsonParser().parse(parameters.getJsonString())
+                : JsonNull.INSTANCE;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public boolean test(JsonElement parameters) {
+        for (Comparison comparison : comparisons) {
+            if (!comparison.test(parameters)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private enum Operator {
+        EQ("=="), NE("!="), GE(">="), LE("<="), GT(">"), LT("<");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        boolean matches(int compared) {
+            switch (this) {
+                case EQ: return compared == 0;
+                case NE: return compared != 0;
+                case GE: return compared >= 0;
+                case LE: return compared <= 0;
+                case GT: return compared > 0;
+                default: return compared < 0;
+            }
+        }
+    }
+
+    private static class Comparison {
+        private final Object[] path;
+        private final Operator operator;
+        private final JsonElement value;
+        private final double number;
+
+        Comparison(Object[] path, Operator operator, JsonElement value) {
+            this.path = path;
+            this.operator = operator;
+            this.value = value;
+            this.number = value.isJsonPrimitive() && value.getAsJsonPrimitive().isNumber() ? value.getAsDouble() : Double.NaN;
+        }
+
+        boolean test(JsonElement parameters) {
+            JsonElement actual = resolve(parameters);
+            if (actual == null) {
+                return false;
+            }
+            if (value.isJsonNull() || actual.isJsonNull()) {
+                return matchesEquality(value.isJsonNull() && actual.isJsonNull());
+            }
+            if (!actual.isJsonPrimitive()) {
+                return false;
+            }
+            JsonPrimitive primitive = actual.getAsJsonPrimitive();
+            JsonPrimitive expected = value.getAsJsonPrimitive();
+            if (expected.isNumber() && primitive.isNumber()) {
+                return operator.matches(Double.compare(primitive.getAsDouble(), number));
+            }
+            if (expected.isString() && primitive.isString()) {
+                return operator.matches(primitive.getAsString().compareTo(expected.getAsString()));
+            }
+            if (expected.isBoolean() && primitive.isBoolean()) {
+                return matchesEquality(primitive.getAsBoolean() == expected.getAsBoolean());
+            }
+            return matchesEquality(false);
+        }
+
+        /**
+         * Values that can't be ordered are only equal or not equal.
+         */
+        private boolean matchesEquality(boolean equal) {
+            return operator == Operator.EQ ? equal : operator == Operator.NE && !equal;
+        }
+
+        private JsonElement resolve(JsonElement element) {
+            for (Object segment : path) {
+                if (segment instanceof String && element != null && element.isJsonObject()) {
+                    element = ((JsonObject) element).get((String) segment);
+                } else if (segment instanceof Integer && element != null && element.isJsonArray()) {
+                    JsonArray array = (JsonArray) element;
+                    int index = (Integer) segment;
+                    element = index < array.size() ? array.get(index) : null;
+                } else {
+                    return null;
+                }
+            }
+            return element;
+        }
+    }
+
+    private static class Parser {
+        private final String expression;
+        private int position;
+
+        Parser(String expression) {
+            if (expression == null || expression.trim().isEmpty()) {
+                throw new IllegalArgumentException("expression is empty");
+            }
+            this.expression = expression;
+        }
+
+        PayloadPredicate parse() {
+            List<Comparison> comparisons = new ArrayList<>();
+            do {
+                comparisons.add(comparison());
+            } while (consume("&&"));
+            skipWhitespace();
+            if (position < expression.length()) {
+                throw error("unexpected '" + expression.substring(position) + "'");
+            }
+            return new PayloadPredicate(expression, comparisons);
+        }
+
+        private Comparison comparison() {
+            Object[] path = path();
+            skipWhitespace();
+            for (Operator operator : Operator.values()) {
+                if (expression.startsWith(operator.symbol, position)) {
+                    position += operator.symbol.length();
+                    return new Comparison(path, operator, value());
+                }
+            }
+            throw error("comparison operator expected");
+        }
+
+        private Object[] path() {
+            skipWhitespace();
+            if (!consume("$")) {
+                throw error("path must start with '$'");
+            }
+            List<Object> segments = new ArrayList<>();
+            while (position < expression.length()) {
+                char c = expression.charAt(position);
+                if (c == '.') {
+                    position++;
+                    int start = position;
+                    while (position < expression.length() &&
+                            (Character.isLetterOrDigit(expression.charAt(position)) || expression.charAt(position) == '_')) {
+                        position++;
+                    }
+                    if (start == position) {
+                        throw error("property name expected");
+                    }
+                    segments.add(expression.substring(start, position));
+                } else if (c == '[') {
+                    position++;
+                    skipWhitespace();
+                    if (position < expression.length() && isQuote(expression.charAt(position))) {
+                        segments.add(quoted());
+                    } else {
+                        int start = position;
+                        while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                            position++;
+                        }
+                        if (start == position) {
+                            throw error("array index or quoted property name expected");
+                        }
+                        segments.add(Integer.valueOf(expression.substring(start, position)));
+                    }
+                    skipWhitespace();
+                    if (!consume("]")) {
+                        throw error("']' expected");
+                    }
+                } else {
+                    break;
+                }
+            }
+            if (segments.isEmpty()) {
+                throw error("path must select a property");
+            }
+            return segments.toArray();
+        }
+
+        private JsonElement value() {
+            skipWhitespace();
+            if (position >= expression.length()) {
+                throw error("value expected");
+            }
+            char c = expression.charAt(position);
+            if (isQuote(c)) {
+                return new JsonPrimitive(quoted());
+            }
+            int start = position;
+            while (position < expression.length() && !Character.isWhitespace(expression.charAt(position)) &&
+                    expression.charAt(position) != '&') {
+                position++;
+            }
+            String literal = expression.substring(start, position);
+            switch (literal) {
+                case "true":
+                    return new JsonPrimitive(true);
+                case "false":
+                    return new JsonPrimitive(false);
+                case "null":
+                    return JsonNull.INSTANCE;
+                default:
+                    try {
+                        return new JsonPrimitive(Double.valueOf(literal));
+                    } catch (NumberFormatException e) {
+                        throw error("invalid value '" + literal + "'");
+                    }
+            }
+        }
+
+        private String quoted() {
+            char quote = expression.charAt(position++);
+            int end = expression.indexOf(quote, position);
+            if (end < 0) {
+                throw error("unterminated string");
+            }
+            String value = expression.substring(position, end);
+            position = end + 1;
+            return value;
+        }
+
+        private boolean consume(String token) {
+            skipWhitespace();
+            if (expression.startsWith(token, position)) {
+                position += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+        }
+
+        private static boolean isQuote(char c) {
+            return c == '\'' || c == '"';
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position);
+        }
+    }
+}
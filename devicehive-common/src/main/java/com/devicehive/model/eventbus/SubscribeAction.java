@@ -22,7 +22,10 @@ package com.devicehive.model.eventbus;
 
 public enum SubscribeAction {
     REGISTER(0),
-    UNREGISTER(1);
+    UNREGISTER(1),
+    SNAPSHOT_REQUEST(2),
+    SNAPSHOT(3),
+    RENEW(4);
 
     private int value;
 
@@ -22,6 +22,8 @@ package com.devicehive.model.eventbus;
 
 import com.google.gson.annotations.SerializedName;
 
+import java.util.List;
+
 public class SubscribeMessage {
 
     @SerializedName("a")
@@ -33,6 +35,30 @@ public class SubscribeMessage {
     @SerializedName("s")
     private Subscriber subscriber;
 
+    /**
+     * Node, that requested registry snapshot or renewed subscription lease
+     */
+    @SerializedName("n")
+    private String node;
+
+    /**
+     * Registrations, carried by registry snapshot
+     */
+    @SerializedName("e")
+    private List<SubscribeMessage> entries;
+
+    /**
+     * Whether this is the last part of registry snapshot
+     */
+    @SerializedName("l")
+    private boolean last;
+
+    /**
+     * Time the subscription lease of the node was renewed at
+     */
+    @SerializedName("t")
+    private long timestamp;
+
     public SubscribeMessage(SubscribeAction action, Filter filter, Subscriber subscriber) {
         this.action = action.getValue();
         this.filter = filter;
@@ -44,6 +70,19 @@ public class SubscribeMessage {
         this.subscriber = subscriber;
     }
 
+    public SubscribeMessage(SubscribeAction action, String node, List<SubscribeMessage> entries, boolean last) {
+        this.action = action.getValue();
+        this.node = node;
+        this.entries = entries;
+        this.last = last;
+    }
+
+    public SubscribeMessage(SubscribeAction action, String node, long timestamp) {
+        this.action = action.getValue();
+        this.node = node;
+        this.timestamp = timestamp;
+    }
+
     public SubscribeAction getAction() {
         return SubscribeAction.getValueForIndex(action);
     }
@@ -67,4 +106,20 @@ public class SubscribeMessage {
     public void setSubscriber(Subscriber subscriber) {
         this.subscriber = subscriber;
     }
+
+    public String getNode() {
+        return node;
+    }
+
+    public List<SubscribeMessage> getEntries() {
+        return entries;
+    }
+
+    public boolean isLast() {
+        return last;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
 }
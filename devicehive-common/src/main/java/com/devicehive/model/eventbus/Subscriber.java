@@ -20,23 +20,31 @@ package com.devicehive.model.eventbus;
  * #L%
  */
 
-import com.hazelcast.nio.serialization.Portable;
 import com.hazelcast.nio.serialization.PortableReader;
 import com.hazelcast.nio.serialization.PortableWriter;
+import com.hazelcast.nio.serialization.VersionedPortable;
 
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Objects;
 
-public class Subscriber implements Portable, Serializable {
+public class Subscriber implements VersionedPortable, Serializable {
     private static final long serialVersionUID = 9114135595987844152L;
 
     public static final int FACTORY_ID = 1;
     public static final int CLASS_ID = 6;
+    /**
+     * Version 1 added predicate and conflation window, version 0 data is read without them.
+     */
+    public static final int CLASS_VERSION = 1;
 
     private Long id;
     private String replyTo;
     private String correlationId;
+    private String predicate;
+    private long conflationWindow;
+
+    private transient volatile PayloadPredicate payloadPredicate;
 
     public Subscriber() {
 
@@ -48,6 +56,16 @@ public class Subscriber implements Portable, Serializable {
         this.correlationId = correlationId;
     }
 
+    public Subscriber(Long id, String replyTo, String correlationId, String predicate) {
+        this(id, replyTo, correlationId);
+        this.predicate = predicate;
+    }
+
+    public Subscriber(Long id, String replyTo, String correlationId, String predicate, long conflationWindow) {
+        this(id, replyTo, correlationId, predicate);
+        this.conflationWindow = conflationWindow;
+    }
+
     public Long getId() {
         return id;
     }
@@ -60,6 +78,33 @@ public class Subscriber implements Portable, Serializable {
         return correlationId;
     }
 
+    public String getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * @return window in milliseconds over which events updating the same value are conflated to the latest one,
+     * 0 if every event is delivered
+     */
+    public long getConflationWindow() {
+        return conflationWindow;
+    }
+
+    /**
+     * @return predicate over event parameters, compiled on first use, null if subscriber accepts all events
+     */
+    public PayloadPredicate getPayloadPredicate() {
+        if (predicate == null) {
+            return null;
+        }
+        PayloadPredicate compiled = payloadPredicate;
+        if (compiled == null) {
+            compiled = PayloadPredicate.compile(predicate);
+            payloadPredicate = compiled;
+        }
+        return compiled;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -70,7 +115,7 @@ public class Subscriber implements Portable, Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, replyTo, correlationId);
+        return Objects.hash(id);
     }
 
     @Override
@@ -79,6 +124,8 @@ public class Subscriber implements Portable, Serializable {
                 "id='" + id + '\'' +
                 ", replyTo='" + replyTo + '\'' +
                 ", correlationId='" + correlationId + '\'' +
+                ", predicate='" + predicate + '\'' +
+                ", conflationWindow=" + conflationWindow +
                 '}';
     }
 
@@ -92,11 +139,18 @@ public class Subscriber implements Portable, Serializable {
         return CLASS_ID;
     }
 
+    @Override
+    public int getClassVersion() {
+        return CLASS_VERSION;
+    }
+
     @Override
     public void writePortable(PortableWriter writer) throws IOException {
         writer.writeLong("id", id);
         writer.writeUTF("replyTo", replyTo);
         writer.writeUTF("correlationId", correlationId);
+        writer.writeUTF("predicate", predicate);
+        writer.writeLong("conflationWindow", conflationWindow);
     }
 
     @Override
@@ -104,5 +158,11 @@ public class Subscriber implements Portable, Serializable {
         id = reader.readLong("id");
         replyTo = reader.readUTF("replyTo");
         correlationId = reader.readUTF("correlationId");
+        if (reader.hasField("predicate")) {
+            predicate = reader.readUTF("predicate");
+        }
+        if (reader.hasField("conflationWindow")) {
+            conflationWindow = reader.readLong("conflationWindow");
+        }
     }
 }
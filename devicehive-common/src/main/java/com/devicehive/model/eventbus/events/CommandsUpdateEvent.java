@@ -21,7 +21,9 @@ package com.devicehive.model.eventbus.events;
  */
 
 import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.JsonStringWrapper;
 import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.FilterVisitor;
 import com.devicehive.shim.api.Action;
 
 import java.util.Arrays;
@@ -52,10 +54,21 @@ public class CommandsUpdateEvent extends Event {
         return Arrays.asList(deviceFilter, deviceWithNameFilter);
     }
 
+    @Override
+    public void visitApplicableFilters(FilterVisitor visitor) {
+        visitor.visit(command.getNetworkId(), command.getDeviceTypeId(), command.getDeviceId(), Action.COMMANDS_UPDATE_EVENT.name(), null);
+        visitor.visit(command.getNetworkId(), command.getDeviceTypeId(), command.getDeviceId(), Action.COMMANDS_UPDATE_EVENT.name(), command.getCommand());
+    }
+
     public DeviceCommand getDeviceCommand() {
         return command;
     }
 
+    @Override
+    public JsonStringWrapper getParameters() {
+        return command.getParameters();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -20,7 +20,9 @@ package com.devicehive.model.eventbus.events;
  * #L%
  */
 
+import com.devicehive.model.JsonStringWrapper;
 import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.FilterVisitor;
 import com.devicehive.shim.api.Action;
 import com.devicehive.shim.api.Body;
 
@@ -42,4 +44,30 @@ public abstract class Event extends Body {
      */
     public abstract Collection<Filter> getApplicableFilters();
 
+    /**
+     * Visits the same filters as {@link #getApplicableFilters()} by their components.
+     * Used on the publishing path, so implementations should not allocate.
+     *
+     * @param visitor callback, invoked once per applicable filter
+     */
+    public void visitApplicableFilters(FilterVisitor visitor) {
+        getApplicableFilters().forEach(filter -> visitor.visit(filter.getNetworkId(), filter.getDeviceTypeId(),
+                filter.getDeviceId(), filter.getEventName(), filter.getName()));
+    }
+
+    /**
+     * @return parameters subscriber payload predicates are evaluated against, null if event has none
+     */
+    public JsonStringWrapper getParameters() {
+        return null;
+    }
+
+    /**
+     * @return key of the value this event updates, e.g. device and notification name, null if events
+     * can't be conflated and each of them has to be delivered
+     */
+    public String getConflationKey() {
+        return null;
+    }
+
 }
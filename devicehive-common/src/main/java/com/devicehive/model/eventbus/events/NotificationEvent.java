@@ -21,7 +21,9 @@ package com.devicehive.model.eventbus.events;
  */
 
 import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
 import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.FilterVisitor;
 import com.devicehive.shim.api.Action;
 
 import java.util.Arrays;
@@ -60,6 +62,22 @@ public class NotificationEvent extends Event {
         return Arrays.asList(deviceFilter, deviceWithNameFilter);
     }
 
+    @Override
+    public void visitApplicableFilters(FilterVisitor visitor) {
+        visitor.visit(notification.getNetworkId(), notification.getDeviceTypeId(), notification.getDeviceId(), Action.NOTIFICATION_EVENT.name(), null);
+        visitor.visit(notification.getNetworkId(), notification.getDeviceTypeId(), notification.getDeviceId(), Action.NOTIFICATION_EVENT.name(), notification.getNotification());
+    }
+
+    @Override
+    public JsonStringWrapper getParameters() {
+        return notification.getParameters();
+    }
+
+    @Override
+    public String getConflationKey() {
+        return notification.getDeviceId() + '/' + notification.getNotification();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
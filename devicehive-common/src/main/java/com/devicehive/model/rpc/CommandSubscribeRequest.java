@@ -35,6 +35,7 @@ public class CommandSubscribeRequest extends Body {
     private Date timestamp;
     private boolean returnUpdated;
     private Integer limit;
+    private String predicate;
 
     public CommandSubscribeRequest(Long subscriptionId, Filter filter, Set<String> names, Date timestamp,
                                    boolean returnUpdated, Integer limit) {
@@ -95,6 +96,14 @@ public class CommandSubscribeRequest extends Body {
         this.limit = limit;
     }
 
+    public String getPredicate() {
+        return predicate;
+    }
+
+    public void setPredicate(String predicate) {
+        this.predicate = predicate;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -110,12 +119,13 @@ public class CommandSubscribeRequest extends Body {
         return Objects.equals(subscriptionId, that.subscriptionId)
                 && Objects.equals(filter, that.filter)
                 && Objects.equals(names, that.names)
-                && Objects.equals(timestamp, that.timestamp);
+                && Objects.equals(timestamp, that.timestamp)
+                && Objects.equals(predicate, that.predicate);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), subscriptionId, filter, names, timestamp);
+        return Objects.hash(super.hashCode(), subscriptionId, filter, names, timestamp, predicate);
     }
 
     @Override
@@ -126,6 +136,7 @@ public class CommandSubscribeRequest extends Body {
                 + ", names=" + names
                 + ", timestamp=" + timestamp
                 + ", limit=" + limit
+                + ", predicate='" + predicate + '\''
                 + '}';
     }
 }
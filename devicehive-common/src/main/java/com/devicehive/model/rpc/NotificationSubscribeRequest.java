@@ -34,6 +34,8 @@ public class NotificationSubscribeRequest extends Body {
     private Filter filter;
     private Set<String> names;
     private Date timestamp;
+    private String predicate;
+    private Long conflationWindow;
 
     public NotificationSubscribeRequest(Long subscriptionId, Filter filter, Set<String> names, Date timestamp) {
         super(Action.NOTIFICATION_SUBSCRIBE_REQUEST);
@@ -75,6 +77,22 @@ public class NotificationSubscribeRequest extends Body {
         this.timestamp = timestamp;
     }
 
+    public String getPredicate() {
+        return predicate;
+    }
+
+    public void setPredicate(String predicate) {
+        this.predicate = predicate;
+    }
+
+    public Long getConflationWindow() {
+        return conflationWindow;
+    }
+
+    public void setConflationWindow(Long conflationWindow) {
+        this.conflationWindow = conflationWindow;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -84,12 +102,14 @@ public class NotificationSubscribeRequest extends Body {
         return Objects.equals(subscriptionId, that.subscriptionId) &&
                 Objects.equals(filter, that.filter) &&
                 Objects.equals(names, that.names) &&
-                Objects.equals(timestamp, that.timestamp);
+                Objects.equals(timestamp, that.timestamp) &&
+                Objects.equals(predicate, that.predicate) &&
+                Objects.equals(conflationWindow, that.conflationWindow);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), subscriptionId, filter, names, timestamp);
+        return Objects.hash(super.hashCode(), subscriptionId, filter, names, timestamp, predicate, conflationWindow);
     }
 
     @Override
@@ -99,6 +119,8 @@ public class NotificationSubscribeRequest extends Body {
                 ", filter=" + filter +
                 ", names=" + names +
                 ", timestamp=" + timestamp +
+                ", predicate='" + predicate + '\'' +
+                ", conflationWindow=" + conflationWindow +
                 '}';
     }
 }
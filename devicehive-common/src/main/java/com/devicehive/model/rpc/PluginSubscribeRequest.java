@@ -35,6 +35,7 @@ public class PluginSubscribeRequest extends BasePluginRequest {
     private boolean returnCommands;
     private boolean returnUpdatedCommands;
     private boolean returnNotifications;
+    private String predicate;
     
     public PluginSubscribeRequest() {
         super(Action.PLUGIN_SUBSCRIBE_REQUEST);
@@ -87,4 +88,12 @@ public class PluginSubscribeRequest extends BasePluginRequest {
     public void setReturnNotifications(boolean returnNotifications) {
         this.returnNotifications = returnNotifications;
     }
+
+    public String getPredicate() {
+        return predicate;
+    }
+
+    public void setPredicate(String predicate) {
+        this.predicate = predicate;
+    }
 }
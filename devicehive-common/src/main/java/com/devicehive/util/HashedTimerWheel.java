@@ -0,0 +1,131 @@
+package com.devicehive.util;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel. Timeouts are put into one of the buckets by their deadline and buckets are checked
+ * one per tick, so scheduling is O(1) and expiry never scans all pending timeouts.
+ * Timeouts can't be cancelled, expiry handler is expected to check whether timeout still applies.
+ */
+public class HashedTimerWheel<T> {
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimerWheel.class);
+
+    private final String name;
+    private final long tickMs;
+    private final Queue<Timeout<T>>[] buckets;
+    private final Consumer<T> expiryHandler;
+    private final AtomicInteger size = new AtomicInteger();
+
+    private volatile long lastTick = -1;
+    private ScheduledExecutorService ticker;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(String name, long tickMs, int wheelSize, Consumer<T> expiryHandler) {
+        this.name = name;
+        this.tickMs = tickMs;
+        this.expiryHandler = expiryHandler;
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> advance(System.currentTimeMillis()), tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedules expiry of the item. Deadlines in the past expire on the next tick.
+     */
+    public void schedule(T item, long deadline) {
+        long tick = Math.max((deadline + tickMs - 1) / tickMs, lastTick + 1);
+        buckets[(int) (tick % buckets.length)].add(new Timeout<>(item, deadline));
+        size.incrementAndGet();
+    }
+
+    /**
+     * Expires timeouts of all buckets passed since the previous call.
+     */
+    public synchronized void advance(long now) {
+        long currentTick = now / tickMs;
+        long firstTick = lastTick < 0 ? currentTick : Math.max(lastTick + 1, currentTick - buckets.length + 1);
+        for (long tick = firstTick; tick <= currentTick; tick++) {
+            Iterator<Timeout<T>> iterator = buckets[(int) (tick % buckets.length)].iterator();
+            while (iterator.hasNext()) {
+                Timeout<T> timeout = iterator.next();
+                if (timeout.deadline <= now) {
+                    iterator.remove();
+                    size.decrementAndGet();
+                    expire(timeout.item);
+                }
+            }
+        }
+        lastTick = currentTick;
+    }
+
+    /**
+     * @return number of pending timeouts
+     */
+    public int size() {
+        return size.get();
+    }
+
+    private void expire(T item) {
+        try {
+            expiryHandler.accept(item);
+        } catch (Exception e) {
+            logger.error("Timeout handler of {} failed", name, e);
+        }
+    }
+
+    private static class Timeout<T> {
+        private final T item;
+        private final long deadline;
+
+        Timeout(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.devicehive.util;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Executes tasks with the same key one by one in submission order, tasks with different keys in parallel.
+ * Keys are hashed to stripes, each stripe is a single thread with a bounded queue. Submitting to a full
+ * stripe blocks until the stripe catches up, so slow consumers push back instead of piling up tasks.
+ * Tasks must not block waiting for other tasks of the executor, they may share the stripe.
+ */
+public class StripedExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(StripedExecutor.class);
+
+    private static final int DRAIN_BATCH = 64;
+
+    private final String name;
+    private final int queueCapacity;
+    private final Stripe[] stripes;
+
+    private volatile boolean running;
+
+    public StripedExecutor(String name, int stripeCount, int queueCapacity) {
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(name + "-" + i, queueCapacity);
+        }
+    }
+
+    public void start() {
+        running = true;
+        for (Stripe stripe : stripes) {
+            stripe.thread.start();
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        for (Stripe stripe : stripes) {
+            stripe.thread.interrupt();
+        }
+    }
+
+    /**
+     * Queues the task to the stripe of the key, waits for room in the queue if the stripe is full.
+     */
+    public void execute(String key, Runnable task) {
+        if (!running) {
+            logger.warn("Task of {} is rejected, executor {} is shut down", key, name);
+            return;
+        }
+        try {
+            stripes[stripeOf(key)].queue.put(task);
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while queueing task of {} to {}", key, name);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return number of queued tasks of every stripe
+     */
+    public int[] getQueueDepths() {
+        int[] depths = new int[stripes.length];
+        for (int i = 0; i < stripes.length; i++) {
+            depths[i] = stripes[i].queue.size();
+        }
+        return depths;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    private int stripeOf(String key) {
+        int hash = key == null ? 0 : key.hashCode();
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % stripes.length;
+    }
+
+    private class Stripe implements Runnable {
+        private final BlockingQueue<Runnable> queue;
+        private final Thread thread;
+
+        Stripe(String threadName, int queueCapacity) {
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.thread = new Thread(this, threadName);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Runnable> batch = new ArrayList<>(DRAIN_BATCH);
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    break;
+                }
+                // tasks queued meanwhile are taken at once, not one lock round trip each
+                queue.drainTo(batch, DRAIN_BATCH - 1);
+                for (Runnable task : batch) {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        logger.error("Task of {} failed", thread.getName(), e);
+                    }
+                }
+                batch.clear();
+            }
+        }
+    }
+}
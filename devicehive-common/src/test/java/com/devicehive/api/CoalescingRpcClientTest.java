@@ -0,0 +1,101 @@
+package com.devicehive.api;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.json.GsonFactory;
+import com.devicehive.model.rpc.ListNetworkRequest;
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.client.RpcClient;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CoalescingRpcClientTest {
+
+    private final List<Consumer<Response>> sent = new ArrayList<>();
+    private final RpcClient delegate = new RpcClient() {
+        @Override
+        public void call(Request request, Consumer<Response> callback) {
+            sent.add(callback);
+        }
+
+        @Override
+        public void push(Request request) {
+        }
+    };
+
+    @Test
+    public void shouldShareCallOfIdenticalRequests() throws Exception {
+        CoalescingRpcClient client = new CoalescingRpcClient(delegate, GsonFactory.createGson(), 0);
+        List<Response> received = new ArrayList<>();
+
+        client.call(listNetworks("a"), received::add);
+        client.call(listNetworks("a"), received::add);
+        client.call(listNetworks("b"), received::add);
+        assertEquals(2, sent.size());
+        assertEquals(1, client.getCoalesced());
+        assertEquals(2, client.getMisses());
+
+        Response response = Response.newBuilder().withLast(true).buildSuccess();
+        sent.get(0).accept(response);
+        assertEquals(2, received.size());
+        assertSame(response, received.get(0));
+        assertSame(response, received.get(1));
+        assertEquals(1, client.getFlights());
+
+        client.call(listNetworks("a"), received::add);
+        assertEquals(3, sent.size());
+        assertEquals(0, client.getCacheHits());
+    }
+
+    @Test
+    public void shouldReuseCachedResponseWithinTtl() throws Exception {
+        CoalescingRpcClient client = new CoalescingRpcClient(delegate, GsonFactory.createGson(), 60000);
+        List<Response> received = new ArrayList<>();
+
+        client.call(listNetworks("a"), received::add);
+        sent.get(0).accept(Response.newBuilder().withLast(true).buildSuccess());
+        client.call(listNetworks("a"), received::add);
+
+        assertEquals(1, sent.size());
+        assertEquals(2, received.size());
+        assertEquals(1, client.getCacheHits());
+
+        client.call(listNetworks("b"), received::add);
+        sent.get(1).accept(Response.newBuilder().withLast(true).buildFailed(500));
+        client.call(listNetworks("b"), received::add);
+        assertEquals(3, sent.size());
+        assertTrue(received.get(2).isFailed());
+    }
+
+    private static Request listNetworks(String name) {
+        ListNetworkRequest body = new ListNetworkRequest();
+        body.setName(name);
+        return Request.newBuilder().withBody(body).build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.devicehive.api;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.ServerEvent;
+import com.devicehive.shim.api.Request;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.WorkHandler;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PartitionedWorkerPoolTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldHandleRequestsOfSamePartitionKeyInOrderOnOneLane() throws Exception {
+        Map<String, List<String>> handled = new ConcurrentHashMap<>();
+        Map<String, Set<String>> threads = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(8 * 500);
+        WorkHandler<ServerEvent>[] handlers = new WorkHandler[4];
+        for (int i = 0; i < handlers.length; i++) {
+            handlers[i] = event -> {
+                Request request = event.get();
+                handled.computeIfAbsent(request.getPartitionKey(), key -> new ArrayList<>()).add(request.getCorrelationId());
+                threads.computeIfAbsent(request.getPartitionKey(), key -> ConcurrentHashMap.newKeySet()).add(Thread.currentThread().getName());
+                done.countDown();
+            };
+        }
+        PartitionedWorkerPool pool = new PartitionedWorkerPool(RingBuffer.createMultiProducer(ServerEvent::new, 64), handlers);
+        ExecutorService executor = Executors.newFixedThreadPool(handlers.length);
+        RingBuffer<ServerEvent> ringBuffer = pool.start(executor);
+
+        for (int i = 0; i < 500; i++) {
+            for (int device = 0; device < 8; device++) {
+                Request request = Request.newBuilder()
+                        .withPartitionKey("device-" + device)
+                        .withCorrelationId(String.valueOf(i))
+                        .build();
+                ringBuffer.publishEvent((event, sequence, r) -> event.set(r), request);
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.drainAndHalt();
+        executor.shutdown();
+        assertEquals(8, handled.size());
+        handled.values().forEach(correlationIds -> {
+            for (int i = 0; i < correlationIds.size(); i++) {
+                assertEquals(String.valueOf(i), correlationIds.get(i));
+            }
+        });
+        threads.values().forEach(names -> assertEquals(1, names.size()));
+    }
+}
@@ -0,0 +1,120 @@
+package com.devicehive.api;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.api.Response;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RequestResponseMatcherTest {
+
+    private final RequestResponseMatcher matcher = new RequestResponseMatcher();
+
+    @Test
+    public void shouldUnpackBatchedResponseToEveryCallback() throws Exception {
+        CompletableFuture<Response> first = new CompletableFuture<>();
+        CompletableFuture<Response> second = new CompletableFuture<>();
+        matcher.addRequestCallback("first", first::complete);
+        matcher.addRequestCallback("second", second::complete);
+
+        matcher.offerResponse(Response.newBuilder()
+                .withCorrelationIds(Arrays.asList("first", "second"))
+                .withLast(false)
+                .buildSuccess());
+
+        assertEquals("first", first.get(5, TimeUnit.SECONDS).getCorrelationId());
+        assertEquals("second", second.get(5, TimeUnit.SECONDS).getCorrelationId());
+        assertFalse(first.get().isLast());
+    }
+
+    @Test
+    public void shouldFailExpiredCallWithGatewayTimeout() throws Exception {
+        RequestResponseMatcher matcher = new RequestResponseMatcher(200, 200);
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        matcher.addRequestCallback("call", future::complete);
+
+        Response response = future.get(5, TimeUnit.SECONDS);
+
+        assertTrue(response.isFailed());
+        assertEquals(504, response.getErrorCode());
+        assertEquals(0, matcher.getPendingCalls());
+        assertEquals(1, matcher.getExpiredCalls());
+        matcher.shutdown();
+    }
+
+    @Test
+    public void shouldExpireIdleStreamingCallUnlessSubscribed() throws Exception {
+        RequestResponseMatcher matcher = new RequestResponseMatcher(200, 300);
+        LinkedBlockingQueue<Response> subscribed = new LinkedBlockingQueue<>();
+        LinkedBlockingQueue<Response> idle = new LinkedBlockingQueue<>();
+        matcher.addRequestCallback("subscribed", subscribed::add, false);
+        matcher.addSubscription(1L, "subscribed");
+        matcher.addRequestCallback("idle", idle::add, false);
+
+        Response expired = idle.poll(5, TimeUnit.SECONDS);
+        assertEquals(504, expired.getErrorCode());
+
+        Thread.sleep(500);
+        assertTrue(subscribed.isEmpty());
+        assertEquals(1, matcher.getPendingCalls());
+
+        matcher.removeSubscription(1L);
+        assertEquals(0, matcher.getPendingCalls());
+        matcher.shutdown();
+    }
+
+    @Test
+    public void shouldRemoveCallbacksOfSubscription() {
+        matcher.addRequestCallback("stream", response -> {}, false);
+        matcher.addSubscription(1L, "stream");
+
+        matcher.removeSubscription(1L);
+
+        assertEquals(0, matcher.getPendingCalls());
+    }
+
+    @Test
+    public void shouldRejectCallsOverInFlightLimit() {
+        matcher.setInFlightLimiter(new InFlightLimiter(2, "LIST_DEVICE_REQUEST:1"));
+
+        assertTrue(matcher.tryAddRequestCallback("first", Action.LIST_DEVICE_REQUEST, response -> {}, true));
+        assertFalse(matcher.tryAddRequestCallback("second", Action.LIST_DEVICE_REQUEST, response -> {}, true));
+        assertTrue(matcher.tryAddRequestCallback("third", Action.COUNT_DEVICE_REQUEST, response -> {}, true));
+        assertFalse(matcher.tryAddRequestCallback("fourth", Action.COUNT_DEVICE_REQUEST, response -> {}, true));
+        assertTrue(matcher.tryAddRequestCallback("stream", Action.NOTIFICATION_SUBSCRIBE_REQUEST, response -> {}, false));
+        assertEquals(2, matcher.getInFlightLimiter().getRejected());
+
+        matcher.removeRequestCallback("first");
+        matcher.removeRequestCallback("third");
+
+        assertEquals(0, matcher.getInFlightLimiter().getInFlight());
+        assertTrue(matcher.tryAddRequestCallback("fifth", Action.LIST_DEVICE_REQUEST, response -> {}, true));
+    }
+}
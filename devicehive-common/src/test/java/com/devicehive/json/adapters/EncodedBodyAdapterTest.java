@@ -0,0 +1,61 @@
+package com.devicehive.json.adapters;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.json.GsonFactory;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import com.devicehive.model.eventbus.events.NotificationEvent;
+import com.devicehive.shim.api.Body;
+import com.devicehive.shim.api.EncodedBody;
+import com.devicehive.shim.api.Response;
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+public class EncodedBodyAdapterTest {
+
+    private final Gson gson = GsonFactory.createGson();
+
+    @Test
+    public void shouldWriteSameJsonAsOriginalBody() {
+        DeviceNotification notification = new DeviceNotification();
+        notification.setId(1L);
+        notification.setDeviceId("device");
+        notification.setNotification("temperature");
+        notification.setTimestamp(new Date());
+        notification.setParameters(new JsonStringWrapper("{\"value\":21.5}"));
+        NotificationEvent event = new NotificationEvent(notification);
+
+        Response plain = Response.newBuilder().withBody(event).withCorrelationId("c").withLast(false).buildSuccess();
+        Response encoded = Response.newBuilder()
+                .withBody(new EncodedBody(event, gson.toJson(event, Body.class)))
+                .withCorrelationId("c")
+                .withLast(false)
+                .buildSuccess();
+
+        assertEquals(gson.toJson(plain), gson.toJson(encoded));
+        assertEquals(event, gson.fromJson(gson.toJson(encoded), Response.class).getBody());
+    }
+}
@@ -0,0 +1,202 @@
+package com.devicehive.model.eventbus;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.vo.DeviceVO;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FilterRegistryTest {
+
+    private FilterRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new FilterRegistry() {
+            @Override
+            public void register(Filter filter, Subscriber subscriber) {
+                processRegister(filter, subscriber);
+            }
+
+            @Override
+            public void unregister(Subscriber subscriber) {
+                processUnregister(subscriber);
+            }
+        };
+    }
+
+    @Test
+    public void shouldMatchGlobalNetworkAndDeviceSubscriptions() {
+        registry.register(new Filter(null, null, null, "notification", null), new Subscriber(1L, "r", "c1"));
+        registry.register(new Filter(1L, 2L, null, "notification", null), new Subscriber(2L, "r", "c2"));
+        registry.register(new Filter(1L, 2L, "d1", "notification", null), new Subscriber(3L, "r", "c3"));
+        registry.register(new Filter(1L, 2L, "d2", "notification", null), new Subscriber(4L, "r", "c4"));
+
+        Collection<Subscriber> subscribers = registry.getSubscribers(new Filter(1L, 2L, "d1", "notification", null));
+        assertEquals(3, subscribers.size());
+    }
+
+    @Test
+    public void shouldVisitSubscriberOncePerFilter() {
+        registry.register(new Filter(null, null, null, "notification", null), new Subscriber(1L, "r", "c1"));
+        registry.register(new Filter(1L, 2L, "d1", "notification", null), new Subscriber(1L, "r", "c1"));
+
+        assertEquals(1, registry.getSubscribers(new Filter(1L, 2L, "d1", "notification", null)).size());
+        assertTrue(registry.getSubscribers(new Filter(1L, 2L, "d1", "command", null)).isEmpty());
+    }
+
+    @Test
+    public void shouldUnregisterByIdRegardlessOfCorrelationId() {
+        Filter filter = new Filter(1L, 2L, "d1", "notification", "temperature");
+        registry.register(filter, new Subscriber(1L, "r", "subscribe-request"));
+        registry.register(new Filter(1L, 2L, "d1", "notification", "humidity"), new Subscriber(1L, "r", "subscribe-request"));
+
+        registry.unregister(new Subscriber(1L, "r", "unsubscribe-request"));
+
+        assertTrue(registry.getSubscribers(filter).isEmpty());
+        assertTrue(registry.getSubscribers(new Filter(1L, 2L, "d1", "notification", "humidity")).isEmpty());
+    }
+
+    @Test
+    public void shouldDropDeviceRowOnDeviceRemoval() {
+        Filter filter = new Filter(1L, 2L, "d1", "notification", null);
+        registry.register(filter, new Subscriber(1L, "r", "c1"));
+
+        DeviceVO device = new DeviceVO();
+        device.setNetworkId(1L);
+        device.setDeviceTypeId(2L);
+        device.setDeviceId("d1");
+        registry.unregisterDevice(device);
+
+        assertTrue(registry.getSubscribers(filter).isEmpty());
+    }
+
+    @Test
+    public void shouldDropOnlyRegistrationsInScope() {
+        Filter network = new Filter(1L, 2L, null, "notification", null);
+        Filter device = new Filter(1L, 2L, "d1", "notification", null);
+        registry.register(network, new Subscriber(1L, "r", "c1"));
+        registry.register(device, new Subscriber(1L, "r", "c1"));
+        registry.register(device, new Subscriber(2L, "r", "c2"));
+
+        assertEquals(2, registry.dropRegistrations(filter -> filter.getDeviceId() != null));
+
+        assertEquals(1, registry.getSubscribers(device).size());
+        assertEquals(1, registry.getRegistrations(1L).size());
+        assertTrue(registry.getRegistrations(2L).isEmpty());
+        assertEquals(1, registry.getSubscriptionCount());
+    }
+
+    @Test
+    public void shouldRestoreSubscriptionFromRegistrations() {
+        Filter filter = new Filter(1L, 2L, "d1", "notification", null);
+        registry.register(filter, new Subscriber(1L, "r", "c1"));
+        registry.register(new Filter(1L, 2L, "d2", "notification", null), new Subscriber(1L, "r", "c1"));
+
+        FilterRegistry restored = new FilterRegistry() {
+            @Override
+            public void register(Filter filter, Subscriber subscriber) {
+            }
+
+            @Override
+            public void unregister(Subscriber subscriber) {
+            }
+        };
+        restored.restore(1L, registry.getRegistrations(1L));
+        assertEquals(1, restored.getSubscribers(filter).size());
+        assertEquals(2, restored.getRegistrations(1L).size());
+
+        restored.restore(1L, registry.getRegistrations(2L));
+        assertTrue(restored.getSubscribers(filter).isEmpty());
+        assertEquals(0, restored.getSubscriptionCount());
+    }
+
+    @Test
+    public void shouldReplaceOnlyRegistrationsInScopeOnRestore() {
+        Filter d1 = new Filter(1L, 2L, "d1", "notification", null);
+        Filter d2 = new Filter(1L, 2L, "d2", "notification", null);
+        Subscriber subscriber = new Subscriber(1L, "r", "c1");
+        registry.register(d1, subscriber);
+        registry.register(d2, subscriber);
+
+        int added = registry.restore(1L, filter -> "d1".equals(filter.getDeviceId()), Collections.emptyList());
+
+        assertEquals(0, added);
+        assertTrue(registry.getSubscribers(d1).isEmpty());
+        assertEquals(1, registry.getSubscribers(d2).size());
+        assertEquals(1, registry.getRegistrations(1L).size());
+
+        registry.restore(1L, filter -> "d2".equals(filter.getDeviceId()), Collections.emptyList());
+        assertEquals(0, registry.getSubscriptionCount());
+    }
+
+    @Test
+    public void shouldNotLeaveUnindexedSubscribersWhenUnregisterRacesRegister() {
+        Filter filter = new Filter(1L, 2L, "d1", "notification", null);
+        int subscriptions = 10000;
+
+        CompletableFuture<Void> registering = CompletableFuture.runAsync(() -> {
+            for (long id = 0; id < subscriptions; id++) {
+                registry.register(filter, new Subscriber(id, "r", "c"));
+            }
+        });
+        for (long id = 0; id < subscriptions; id++) {
+            // unregister as soon as the subscription becomes known
+            while (!registry.getSubscriptionIds().contains(id)) {
+                Thread.yield();
+            }
+            registry.unregister(new Subscriber(id, "r", "c"));
+        }
+        registering.join();
+
+        assertTrue(registry.getSubscribers(filter).isEmpty());
+        assertEquals(0, registry.getSubscriptionCount());
+    }
+
+    @Test
+    public void shouldReclaimSubscriptionsOfExpiredLease() {
+        Filter filter = new Filter(1L, 2L, "d1", "notification", null);
+        registry.register(filter, new Subscriber(1L, "dead-node", "c1"));
+        registry.register(filter, new Subscriber(2L, "live-node", "c2"));
+        registry.register(filter, new Subscriber(3L, "plugin", "c3"));
+        registry.enableLeases(1000, (replyTo, renewal) -> {});
+        registry.processRenew("dead-node", 0);
+        registry.processRenew("live-node", System.currentTimeMillis());
+
+        assertTrue(registry.isLeaseExpired("dead-node"));
+        assertFalse(registry.isLeaseExpired("live-node"));
+        assertFalse(registry.isLeaseExpired("plugin"));
+
+        assertTrue(registry.reclaim("dead-node", 1L).isEmpty());
+        assertEquals(Collections.singleton(1L), registry.reclaim("dead-node", 0L));
+        assertEquals(2, registry.getSubscribers(filter).size());
+        assertNull(registry.getLeaseRenewal("dead-node"));
+    }
+}
@@ -0,0 +1,58 @@
+package com.devicehive.model.eventbus;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.JsonStringWrapper;
+import com.google.gson.JsonElement;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PayloadPredicateTest {
+
+    private static JsonElement parameters(String json) {
+        return PayloadPredicate.parse(new JsonStringWrapper(json));
+    }
+
+    @Test
+    public void shouldCompareNumbersStringsAndNestedPaths() {
+        JsonElement parameters = parameters("{\"temperature\": 31.5, \"unit\": \"C\", \"sensors\": [{\"state\": \"on\"}]}");
+
+        assertTrue(PayloadPredicate.compile("$.temperature > 30").test(parameters));
+        assertFalse(PayloadPredicate.compile("$.temperature <= 30").test(parameters));
+        assertTrue(PayloadPredicate.compile("$.unit == 'C' && $.sensors[0].state != \"off\"").test(parameters));
+        assertFalse(PayloadPredicate.compile("$.unit == 'C' && $.sensors[0]['state'] == 'off'").test(parameters));
+    }
+
+    @Test
+    public void shouldNotMatchMissingOrEmptyParameters() {
+        PayloadPredicate predicate = PayloadPredicate.compile("$.temperature > 30");
+
+        assertFalse(predicate.test(parameters("{\"humidity\": 50}")));
+        assertFalse(predicate.test(PayloadPredicate.parse(null)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMalformedExpression() {
+        PayloadPredicate.compile("temperature >");
+    }
+}
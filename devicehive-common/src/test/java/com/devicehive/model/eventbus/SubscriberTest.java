@@ -0,0 +1,103 @@
+package com.devicehive.model.eventbus;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.DevicePortableFactory;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.Portable;
+import com.hazelcast.nio.serialization.PortableReader;
+import com.hazelcast.nio.serialization.PortableWriter;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SubscriberTest {
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder()
+            .addPortableFactory(Subscriber.FACTORY_ID, new DevicePortableFactory())
+            .build();
+
+    @Test
+    public void shouldRoundTripPortableSubscriber() {
+        Subscriber subscriber = new Subscriber(1L, "reply_topic", "correlation", "$.value > 20", 500);
+
+        Subscriber read = serializationService.toObject(serializationService.toData(subscriber));
+
+        assertEquals("reply_topic", read.getReplyTo());
+        assertEquals("$.value > 20", read.getPredicate());
+        assertEquals(500, read.getConflationWindow());
+    }
+
+    @Test
+    public void shouldReadPortableSubscriberWrittenBeforePredicateAndConflation() {
+        Data data = serializationService.toData(new SubscriberV0(1L, "reply_topic", "correlation"));
+
+        Subscriber read = serializationService.toObject(data);
+
+        assertEquals(Long.valueOf(1L), read.getId());
+        assertEquals("reply_topic", read.getReplyTo());
+        assertEquals("correlation", read.getCorrelationId());
+        assertNull(read.getPredicate());
+        assertEquals(0, read.getConflationWindow());
+    }
+
+    /**
+     * Subscriber as it was written by nodes before class version 1.
+     */
+    private static class SubscriberV0 implements Portable {
+        private final Long id;
+        private final String replyTo;
+        private final String correlationId;
+
+        SubscriberV0(Long id, String replyTo, String correlationId) {
+            this.id = id;
+            this.replyTo = replyTo;
+            this.correlationId = correlationId;
+        }
+
+        @Override
+        public int getFactoryId() {
+            return Subscriber.FACTORY_ID;
+        }
+
+        @Override
+        public int getClassId() {
+            return Subscriber.CLASS_ID;
+        }
+
+        @Override
+        public void writePortable(PortableWriter writer) throws IOException {
+            writer.writeLong("id", id);
+            writer.writeUTF("replyTo", replyTo);
+            writer.writeUTF("correlationId", correlationId);
+        }
+
+        @Override
+        public void readPortable(PortableReader reader) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
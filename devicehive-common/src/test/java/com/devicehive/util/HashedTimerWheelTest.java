@@ -0,0 +1,66 @@
+package com.devicehive.util;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HashedTimerWheelTest {
+
+    @Test
+    public void shouldExpireTimeoutsWhenDeadlinePassed() {
+        List<String> expired = new ArrayList<>();
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>("test-wheel", 100, 8, expired::add);
+        wheel.advance(10_000);
+
+        wheel.schedule("a", 10_250);
+        wheel.schedule("b", 12_000);
+        wheel.advance(10_200);
+        assertTrue(expired.isEmpty());
+
+        wheel.advance(10_300);
+        assertEquals(1, expired.size());
+        assertEquals("a", expired.get(0));
+        assertEquals(1, wheel.size());
+
+        wheel.advance(11_900);
+        assertEquals(1, expired.size());
+        wheel.advance(12_050);
+        assertEquals(2, expired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void shouldExpireOverdueTimeoutOnNextTick() {
+        List<String> expired = new ArrayList<>();
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>("test-wheel", 100, 8, expired::add);
+        wheel.advance(10_000);
+
+        wheel.schedule("a", 5_000);
+        wheel.advance(10_100);
+        assertEquals(1, expired.size());
+    }
+}
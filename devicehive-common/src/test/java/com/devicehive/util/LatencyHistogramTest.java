@@ -0,0 +1,56 @@
+package com.devicehive.util;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldMapEveryValueToBucketNotAboveIt() {
+        for (long value = 0; value < 1 << 20; value += 7) {
+            long lower = LatencyHistogram.valueOf(LatencyHistogram.indexOf(value));
+            assertTrue(lower <= value);
+            assertTrue(value - lower <= Math.max(1, value / 32));
+        }
+    }
+
+    @Test
+    public void shouldReportPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram(60000);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        histogram.record(-5);
+        histogram.record(120000);
+
+        assertEquals(1002, histogram.getTotalCount());
+        assertEquals(60000, histogram.getMaxValue());
+        long p50 = histogram.getValueAtPercentile(50);
+        assertTrue("p50 " + p50, p50 >= 485 && p50 <= 501);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue("p99 " + p99, p99 >= 960 && p99 <= 992);
+        assertEquals(0, new LatencyHistogram(1000).getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,63 @@
+package com.devicehive.util;
+
+/*
+ * #%L
+ * DeviceHive Common Module
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StripedExecutorTest {
+
+    @Test
+    public void shouldRunTasksOfSameKeyInSubmissionOrder() throws Exception {
+        StripedExecutor executor = new StripedExecutor("test-striped", 4, 16);
+        executor.start();
+        ConcurrentHashMap<String, List<Integer>> executed = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(8 * 1000);
+
+        for (int i = 0; i < 1000; i++) {
+            for (int key = 0; key < 8; key++) {
+                String name = "key-" + key;
+                int sequence = i;
+                executor.execute(name, () -> {
+                    executed.computeIfAbsent(name, k -> new ArrayList<>()).add(sequence);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executed.values().forEach(sequences -> {
+            assertEquals(1000, sequences.size());
+            for (int i = 0; i < sequences.size(); i++) {
+                assertEquals(i, (int) sequences.get(i));
+            }
+        });
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,60 @@
+package com.devicehive.application;
+
+/*
+ * #%L
+ * DeviceHive Java Server Common business logic
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.api.CoalescingRpcClient;
+import com.devicehive.json.GsonFactory;
+import com.devicehive.shim.api.client.RpcClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps the RpcClient of whichever transport is active so identical concurrent list and count requests
+ * of the same principal share one backend call.
+ */
+@Component
+public class CoalescingRpcClientPostProcessor implements BeanPostProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(CoalescingRpcClientPostProcessor.class);
+
+    @Value("${rpc.client.coalescing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rpc.client.coalescing.cache-ttl.ms:0}")
+    private long cacheTtlMs;
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (enabled && bean instanceof RpcClient && !(bean instanceof CoalescingRpcClient)) {
+            logger.info("Identical list and count requests share RPC calls, result cache TTL {} ms", cacheTtlMs);
+            return new CoalescingRpcClient((RpcClient) bean, GsonFactory.createGson(), cacheTtlMs);
+        }
+        return bean;
+    }
+}
@@ -150,6 +150,8 @@ public interface DeviceNotificationResource {
      *                   instead.
      * @param timeout    Waiting timeout in seconds (default: 30 seconds, maximum: 60 seconds). Specify 0 to disable
      *                   waiting.
+     * @param conflationWindow Window in milliseconds over which notifications with the same name are conflated,
+     *                   so that only the latest one is returned. Not conflated if not specified.
      */
     @GET
     @Path("/{deviceId}/notification/poll")
@@ -187,6 +189,9 @@ public interface DeviceNotificationResource {
             @Max(value = Constants.MAX_WAIT_TIMEOUT, message = "Timeout can't be more than " + Constants.MAX_WAIT_TIMEOUT + " seconds. ")
             @QueryParam("waitTimeout")
             long timeout,
+            @ApiParam(name = "conflationWindow", value = "Window in milliseconds over which notifications with the same name are conflated to the latest one")
+            @QueryParam("conflationWindow")
+            Long conflationWindow,
             @Suspended AsyncResponse asyncResponse) throws Exception;
 
     @GET
@@ -230,6 +235,9 @@ public interface DeviceNotificationResource {
             @ApiParam(name = "timestamp", value = "Timestamp to start from")
             @QueryParam("timestamp")
             String timestamp,
+            @ApiParam(name = "conflationWindow", value = "Window in milliseconds over which notifications with the same name are conflated to the latest one")
+            @QueryParam("conflationWindow")
+            Long conflationWindow,
             @Suspended AsyncResponse asyncResponse) throws Exception;
 
     /**
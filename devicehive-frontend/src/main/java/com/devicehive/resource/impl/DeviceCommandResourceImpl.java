@@ -36,6 +36,7 @@ import com.devicehive.resource.util.ResponseFactory;
 import com.devicehive.service.BaseFilterService;
 import com.devicehive.service.DeviceCommandService;
 import com.devicehive.service.DeviceService;
+import com.devicehive.service.exception.BackendException;
 import com.devicehive.service.time.TimestampService;
 import com.devicehive.util.HiveValidator;
 import com.devicehive.vo.DeviceVO;
@@ -160,11 +161,17 @@ public class DeviceCommandResourceImpl implements DeviceCommandResource {
             }
         };
 
+        BiConsumer<BackendException, Long> failureCallback = (e, subscriptionId) -> {
+            if (!asyncResponse.isDone()) {
+                asyncResponse.resume(ResponseFactory.response(e));
+            }
+        };
+
         Set<Filter> filters = filterService.getFilterList(deviceId, networks, deviceTypes, COMMAND_EVENT.name(), names, authentication);
 
         if (!filters.isEmpty()) {
             Pair<Long, CompletableFuture<List<DeviceCommand>>> pair = commandService
-                    .sendSubscribeRequest(filters, names, ts, returnUpdated, limit, callback);
+                    .sendSubscribeRequest(filters, names, ts, returnUpdated, limit, null, callback, failureCallback);
             pair.getRight().thenAccept(collection -> {
                 if (!collection.isEmpty() && !asyncResponse.isDone()) {
                     asyncResponse.resume(ResponseFactory.response(
@@ -253,9 +260,15 @@ public class DeviceCommandResourceImpl implements DeviceCommandResource {
             }
         };
 
+        BiConsumer<BackendException, Long> failureCallback = (e, subscriptionId) -> {
+            if (!asyncResponse.isDone()) {
+                asyncResponse.resume(ResponseFactory.response(e));
+            }
+        };
+
         if (!command.getIsUpdated()) {
             CompletableFuture<Pair<Long, DeviceCommand>> future = commandService
-                    .sendSubscribeToUpdateRequest(Long.valueOf(commandId), device, callback);
+                    .sendSubscribeToUpdateRequest(Long.valueOf(commandId), device, callback, failureCallback);
             future.thenAccept(pair -> {
                 final DeviceCommand deviceCommand = pair.getRight();
                 if (!asyncResponse.isDone() && deviceCommand.getIsUpdated()) {
@@ -35,6 +35,7 @@ import com.devicehive.resource.util.ResponseFactory;
 import com.devicehive.service.BaseFilterService;
 import com.devicehive.service.DeviceNotificationService;
 import com.devicehive.service.DeviceService;
+import com.devicehive.service.exception.BackendException;
 import com.devicehive.service.time.TimestampService;
 import com.devicehive.util.HiveValidator;
 import com.devicehive.vo.DeviceVO;
@@ -157,15 +158,16 @@ public class DeviceNotificationResourceImpl implements DeviceNotificationResourc
      */
     @Override
     public void poll(final String deviceId, final String namesString, final String timestamp,
-                     final long timeout, final AsyncResponse asyncResponse) throws Exception {
-        poll(timeout, deviceId, null, null, namesString, timestamp, asyncResponse);
+                     final long timeout, final Long conflationWindow, final AsyncResponse asyncResponse) throws Exception {
+        poll(timeout, deviceId, null, null, namesString, timestamp, conflationWindow, asyncResponse);
     }
 
     @Override
     public void pollMany(final long timeout, String deviceIdsString, String networkIdsString, final String deviceTypeIdsString,
-                         final String namesString, final String timestamp, final AsyncResponse asyncResponse)
-            throws Exception {
-        poll(timeout, deviceIdsString, networkIdsString, deviceTypeIdsString, namesString, timestamp, asyncResponse);
+                         final String namesString, final String timestamp, final Long conflationWindow,
+                         final AsyncResponse asyncResponse) throws Exception {
+        poll(timeout, deviceIdsString, networkIdsString, deviceTypeIdsString, namesString, timestamp, conflationWindow,
+                asyncResponse);
     }
 
     private void poll(final long timeout,
@@ -174,8 +176,10 @@ public class DeviceNotificationResourceImpl implements DeviceNotificationResourc
                       final String deviceTypeIdsCsv,
                       final String namesCsv,
                       final String timestamp,
+                      final Long conflationWindow,
                       final AsyncResponse asyncResponse) throws InterruptedException {
         final HiveAuthentication authentication = (HiveAuthentication) SecurityContextHolder.getContext().getAuthentication();
+        filterService.validateConflationWindow(conflationWindow);
 
         final Date ts = Optional.ofNullable(timestamp).map(TimestampQueryParamParser::parse)
                 .orElse(timestampService.getDate());
@@ -213,11 +217,17 @@ public class DeviceNotificationResourceImpl implements DeviceNotificationResourc
             }
         };
 
+        BiConsumer<BackendException, Long> failureCallback = (e, subscriptionId) -> {
+            if (!asyncResponse.isDone()) {
+                asyncResponse.resume(ResponseFactory.response(e));
+            }
+        };
+
         Set<Filter> filters = filterService.getFilterList(deviceId, networks, deviceTypes, NOTIFICATION_EVENT.name(), names, authentication);
 
         if (!filters.isEmpty()) {
             Pair<Long, CompletableFuture<List<DeviceNotification>>> pair = notificationService
-                    .subscribe(filters, names, ts, callback);
+                    .subscribe(filters, names, ts, null, conflationWindow, callback, failureCallback);
             pair.getRight().thenAccept(collection -> {
                 if (!collection.isEmpty() && !asyncResponse.isDone()) {
                     asyncResponse.resume(ResponseFactory.response(
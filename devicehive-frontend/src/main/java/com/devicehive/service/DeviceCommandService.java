@@ -29,6 +29,7 @@ import com.devicehive.model.eventbus.events.CommandsUpdateEvent;
 import com.devicehive.model.rpc.*;
 import com.devicehive.model.updates.DeviceCommandUpdate;
 import com.devicehive.model.wrappers.DeviceCommandWrapper;
+import com.devicehive.service.exception.BackendException;
 import com.devicehive.service.helpers.LongIdGenerator;
 import com.devicehive.service.helpers.ResponseConsumer;
 import com.devicehive.service.time.TimestampService;
@@ -48,6 +49,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -141,20 +143,42 @@ public class DeviceCommandService {
         return future.thenApply(r -> ((CommandInsertResponse) r.getBody()).getDeviceCommand());
     }
 
+    /**
+     * Subscribes to commands matching any of the filters. If the backend fails any of the subscribe calls,
+     * before or after the subscription is confirmed, the whole subscription is closed and failure callback is
+     * notified once, the returned future then completes exceptionally unless it is already done.
+     */
     public Pair<Long, CompletableFuture<List<DeviceCommand>>> sendSubscribeRequest(
             final Set<Filter> filters,
             final Set<String> names,
             final Date timestamp,
             final boolean returnUpdated,
             final Integer limit,
-            final BiConsumer<DeviceCommand, Long> callback) throws InterruptedException {
+            final String predicate,
+            final BiConsumer<DeviceCommand, Long> callback,
+            final BiConsumer<BackendException, Long> failureCallback) throws InterruptedException {
 
         final Long subscriptionId = idGenerator.generate();
+        final AtomicBoolean failed = new AtomicBoolean();
         Collection<CompletableFuture<Collection<DeviceCommand>>> futures = filters.stream()
-                .map(filter -> new CommandSubscribeRequest(subscriptionId, filter, names, timestamp, returnUpdated, limit))
+                .map(filter -> {
+                    CommandSubscribeRequest subscribeRequest = new CommandSubscribeRequest(subscriptionId, filter, names,
+                            timestamp, returnUpdated, limit);
+                    subscribeRequest.setPredicate(predicate);
+                    return subscribeRequest;
+                })
                 .map(subscribeRequest -> {
                     CompletableFuture<Collection<DeviceCommand>> future = new CompletableFuture<>();
                     Consumer<Response> responseConsumer = response -> {
+                        if (response.isFailed()) {
+                            BackendException e = ResponseConsumer.failure(response);
+                            future.completeExceptionally(e);
+                            if (failed.compareAndSet(false, true)) {
+                                closeFailedSubscription(subscriptionId, e);
+                                failureCallback.accept(e, subscriptionId);
+                            }
+                            return;
+                        }
                         Action resAction = response.getBody().getAction();
                         if (resAction.equals(Action.COMMAND_SUBSCRIBE_RESPONSE)) {
                             future.complete(response.getBody().cast(CommandSubscribeResponse.class).getCommands());
@@ -169,7 +193,7 @@ public class DeviceCommandService {
                     };
                     Request request = Request.newBuilder()
                             .withBody(subscribeRequest)
-                            .withPartitionKey(subscribeRequest.getFilter().getFirstKey())
+                            .withPartitionKey(subscribeRequest.getFilter().getPartitionKey())
                             .withSingleReply(false)
                             .build();
                     rpcClient.call(request, responseConsumer);
@@ -204,12 +228,26 @@ public class DeviceCommandService {
         return future;
     }
 
-    public CompletableFuture<Pair<Long, DeviceCommand>> sendSubscribeToUpdateRequest(final long commandId, final DeviceVO device, BiConsumer<DeviceCommand, Long> callback) {
+    /**
+     * Subscribes to updates of the command. If the backend fails the call, the subscription is closed and
+     * failure callback is notified, the returned future then completes exceptionally unless it is already done.
+     */
+    public CompletableFuture<Pair<Long, DeviceCommand>> sendSubscribeToUpdateRequest(final long commandId, final DeviceVO device,
+                                                                                    BiConsumer<DeviceCommand, Long> callback,
+                                                                                    BiConsumer<BackendException, Long> failureCallback) {
         CompletableFuture<Pair<Long, DeviceCommand>> future = new CompletableFuture<>();
         final Long subscriptionId = idGenerator.generate();
         Consumer<Response> responseConsumer = response -> {
+            if (response.isFailed()) {
+                BackendException e = ResponseConsumer.failure(response);
+                future.completeExceptionally(e);
+                closeFailedSubscription(subscriptionId, e);
+                failureCallback.accept(e, subscriptionId);
+                return;
+            }
             Action resAction = response.getBody().getAction();
             if (resAction.equals(Action.COMMAND_UPDATE_SUBSCRIBE_RESPONSE)) {
+                requestResponseMatcher.addSubscription(subscriptionId, response.getCorrelationId());
                 future.complete(Pair.of(response.getBody().cast(CommandUpdateSubscribeResponse.class).getSubscriptionId(), response.getBody().cast(CommandUpdateSubscribeResponse.class).getDeviceCommand()));
             } else if (resAction.equals(COMMAND_UPDATE_EVENT)) {
                 callback.accept(response.getBody().cast(CommandUpdateEvent.class).getDeviceCommand(), subscriptionId);
@@ -220,10 +258,18 @@ public class DeviceCommandService {
         Filter filter = new Filter(device.getNetworkId(), device.getDeviceTypeId(), Long.toString(commandId), COMMAND_UPDATE_EVENT.name(), null);
         rpcClient.call(Request.newBuilder()
                 .withBody(new CommandUpdateSubscribeRequest(commandId, device.getDeviceId(), subscriptionId, filter))
+                .withPartitionKey(device.getDeviceId())
+                .withSingleReply(false)
                 .build(), responseConsumer);
         return future;
     }
 
+    private void closeFailedSubscription(Long subscriptionId, BackendException e) {
+        logger.warn("Command subscription {} failed with code {}: {}", subscriptionId, e.getErrorCode(), e.getMessage());
+        requestResponseMatcher.removeSubscription(subscriptionId);
+        sendUnsubscribeRequest(Collections.singleton(subscriptionId));
+    }
+
     public CompletableFuture<Void> update(DeviceCommand cmd, DeviceCommandUpdate commandUpdate) {
         hiveValidator.validate(commandUpdate);
         if (cmd == null) {
@@ -244,10 +290,12 @@ public class DeviceCommandService {
         CompletableFuture<Response> commandUpdateFuture = new CompletableFuture<>();
         rpcClient.call(Request.newBuilder()
                 .withBody(new CommandUpdateRequest(cmd))
+                .withPartitionKey(cmd.getDeviceId())
                 .build(), new ResponseConsumer(commandUpdateFuture));
         CompletableFuture<Response> commandsUpdateFuture = new CompletableFuture<>();
         rpcClient.call(Request.newBuilder()
                 .withBody(new CommandsUpdateRequest(cmd))
+                .withPartitionKey(cmd.getDeviceId())
                 .build(), new ResponseConsumer(commandsUpdateFuture));
         return CompletableFuture.allOf(commandUpdateFuture, commandsUpdateFuture).thenApply(response -> null);
     }
@@ -27,6 +27,7 @@ import com.devicehive.model.eventbus.Filter;
 import com.devicehive.model.eventbus.events.NotificationEvent;
 import com.devicehive.model.rpc.*;
 import com.devicehive.model.wrappers.DeviceNotificationWrapper;
+import com.devicehive.service.exception.BackendException;
 import com.devicehive.service.helpers.LongIdGenerator;
 import com.devicehive.service.helpers.ResponseConsumer;
 import com.devicehive.service.time.TimestampService;
@@ -44,6 +45,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -126,20 +128,43 @@ public class DeviceNotificationService {
         return future.thenApply(r -> r.getBody().cast(NotificationInsertResponse.class).getDeviceNotification());
     }
 
+    /**
+     * Subscribes to notifications matching any of the filters. If the backend fails any of the subscribe calls,
+     * before or after the subscription is confirmed, the whole subscription is closed and failure callback is
+     * notified once, the returned future then completes exceptionally unless it is already done.
+     */
     public Pair<Long, CompletableFuture<List<DeviceNotification>>> subscribe(
             final Set<Filter> filters,
             final Set<String> names,
             final Date timestamp,
-            final BiConsumer<DeviceNotification, Long> callback) {
+            final String predicate,
+            final Long conflationWindow,
+            final BiConsumer<DeviceNotification, Long> callback,
+            final BiConsumer<BackendException, Long> failureCallback) {
 
         final Long subscriptionId = idGenerator.generate();
+        final AtomicBoolean failed = new AtomicBoolean();
         Set<NotificationSubscribeRequest> subscribeRequests = filters.stream()
-                .map(filter -> new NotificationSubscribeRequest(subscriptionId, filter, names, timestamp))
+                .map(filter -> {
+                    NotificationSubscribeRequest subscribeRequest = new NotificationSubscribeRequest(subscriptionId, filter, names, timestamp);
+                    subscribeRequest.setPredicate(predicate);
+                    subscribeRequest.setConflationWindow(conflationWindow);
+                    return subscribeRequest;
+                })
                 .collect(Collectors.toSet());
         Collection<CompletableFuture<Collection<DeviceNotification>>> futures = new ArrayList<>();
         for (NotificationSubscribeRequest sr : subscribeRequests) {
             CompletableFuture<Collection<DeviceNotification>> future = new CompletableFuture<>();
             Consumer<Response> responseConsumer = response -> {
+                if (response.isFailed()) {
+                    BackendException e = ResponseConsumer.failure(response);
+                    future.completeExceptionally(e);
+                    if (failed.compareAndSet(false, true)) {
+                        closeFailedSubscription(subscriptionId, e);
+                        failureCallback.accept(e, subscriptionId);
+                    }
+                    return;
+                }
                 Action resAction = response.getBody().getAction();
                 if (resAction.equals(Action.NOTIFICATION_SUBSCRIBE_RESPONSE)) {
                     NotificationSubscribeResponse r = response.getBody().cast(NotificationSubscribeResponse.class);
@@ -155,7 +180,7 @@ public class DeviceNotificationService {
             futures.add(future);
             Request request = Request.newBuilder()
                     .withBody(sr)
-                    .withPartitionKey(sr.getFilter().getFirstKey())
+                    .withPartitionKey(sr.getFilter().getPartitionKey())
                     .withSingleReply(false)
                     .build();
             rpcClient.call(request, responseConsumer);
@@ -189,6 +214,12 @@ public class DeviceNotificationService {
         return future;
     }
 
+    private void closeFailedSubscription(Long subscriptionId, BackendException e) {
+        logger.warn("Notification subscription {} failed with code {}: {}", subscriptionId, e.getErrorCode(), e.getMessage());
+        requestResponseMatcher.removeSubscription(subscriptionId);
+        unsubscribe(Collections.singleton(subscriptionId));
+    }
+
     public DeviceNotification convertWrapperToNotification(DeviceNotificationWrapper notificationSubmit, DeviceVO device) {
         DeviceNotification notification = new DeviceNotification();
         notification.setId(Math.abs(new Random().nextInt()));
@@ -0,0 +1,123 @@
+package com.devicehive.util;
+
+/*
+ * #%L
+ * DeviceHive Frontend Logic
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.api.CoalescingRpcClient;
+import com.devicehive.api.InFlightLimiter;
+import com.devicehive.api.RequestResponseMatcher;
+import com.devicehive.api.RpcLatencyRecorder;
+import com.devicehive.proxy.api.ProxyClientStats;
+import com.devicehive.shim.api.client.RpcClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Exposes pending RPC callbacks, their expiry rate and age distribution, calls rejected by the in-flight
+ * limit, depth of callback queues, hits of request coalescing and latencies of replies per request action and
+ * stage, e.g. {@code rpc.client.latency.notification_insert_request.total.p99}, and proxy connection counters
+ * such as in-flight messages per connection, reconnects and sizes of batched frames through actuator metrics.
+ * Expiry rate is averaged over the interval between two consecutive reads.
+ */
+@Component
+public class RpcClientMetrics implements PublicMetrics {
+
+    private final RequestResponseMatcher requestResponseMatcher;
+    private final RpcClient rpcClient;
+
+    private long lastReadAt = System.currentTimeMillis();
+    private long lastExpiredCalls;
+
+    @Autowired
+    public RpcClientMetrics(RequestResponseMatcher requestResponseMatcher, RpcClient rpcClient) {
+        this.requestResponseMatcher = requestResponseMatcher;
+        this.rpcClient = rpcClient;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        long[] ages = requestResponseMatcher.getPendingCallAges();
+        List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>("rpc.client.pending", ages.length));
+        metrics.add(new Metric<>("rpc.client.expired", requestResponseMatcher.getExpiredCalls()));
+        metrics.add(new Metric<>("rpc.client.expired.rate", expiryRate()));
+        metrics.add(new Metric<>("rpc.client.pending.age.p50", percentile(ages, 50)));
+        metrics.add(new Metric<>("rpc.client.pending.age.p99", percentile(ages, 99)));
+        metrics.add(new Metric<>("rpc.client.pending.age.max", ages.length == 0 ? 0 : ages[ages.length - 1]));
+
+        InFlightLimiter limiter = requestResponseMatcher.getInFlightLimiter();
+        metrics.add(new Metric<>("rpc.client.inflight", limiter.getInFlight()));
+        metrics.add(new Metric<>("rpc.client.inflight.max", limiter.getMaxInFlight()));
+        metrics.add(new Metric<>("rpc.client.rejected", limiter.getRejected()));
+
+        int[] depths = requestResponseMatcher.getCallbackQueueDepths();
+        metrics.add(new Metric<>("rpc.client.callbacks.queued", Arrays.stream(depths).sum()));
+        metrics.add(new Metric<>("rpc.client.callbacks.queued.max", Arrays.stream(depths).max().orElse(0)));
+        metrics.add(new Metric<>("rpc.client.callbacks.queue.capacity", requestResponseMatcher.getCallbackQueueCapacity()));
+
+        if (rpcClient instanceof CoalescingRpcClient) {
+            CoalescingRpcClient coalescing = (CoalescingRpcClient) rpcClient;
+            metrics.add(new Metric<>("rpc.client.coalescing.hits", coalescing.getCoalesced()));
+            metrics.add(new Metric<>("rpc.client.coalescing.cache.hits", coalescing.getCacheHits()));
+            metrics.add(new Metric<>("rpc.client.coalescing.misses", coalescing.getMisses()));
+            metrics.add(new Metric<>("rpc.client.coalescing.flights", coalescing.getFlights()));
+            metrics.add(new Metric<>("rpc.client.coalescing.cache.size", coalescing.getCacheSize()));
+        }
+
+        RpcLatencyRecorder latencyRecorder = requestResponseMatcher.getLatencyRecorder();
+        if (latencyRecorder != null) {
+            latencyRecorder.forEach((action, stage, histogram) -> {
+                String prefix = "rpc.client.latency." + action.name().toLowerCase() + "." + stage.name().toLowerCase();
+                metrics.add(new Metric<>(prefix + ".count", histogram.getTotalCount()));
+                metrics.add(new Metric<>(prefix + ".p50", histogram.getValueAtPercentile(50)));
+                metrics.add(new Metric<>(prefix + ".p99", histogram.getValueAtPercentile(99)));
+                metrics.add(new Metric<>(prefix + ".max", histogram.getMaxValue()));
+            });
+        }
+
+        ProxyClientStats.forEach((name, value) -> metrics.add(new Metric<>(name, value)));
+        return metrics;
+    }
+
+    private synchronized double expiryRate() {
+        long now = System.currentTimeMillis();
+        long expiredCalls = requestResponseMatcher.getExpiredCalls();
+        long elapsed = now - lastReadAt;
+        double rate = elapsed > 0 ? (expiredCalls - lastExpiredCalls) * 1000.0 / elapsed : 0;
+        lastReadAt = now;
+        lastExpiredCalls = expiredCalls;
+        return rate;
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+}
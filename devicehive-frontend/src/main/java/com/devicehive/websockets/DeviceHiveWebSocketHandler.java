@@ -28,6 +28,7 @@ import com.devicehive.model.SubscriptionInfo;
 import com.devicehive.resource.exceptions.ExpiredTokenException;
 import com.devicehive.service.DeviceCommandService;
 import com.devicehive.service.DeviceNotificationService;
+import com.devicehive.shim.api.client.ClientOverloadedException;
 import com.devicehive.websockets.converters.JsonMessageBuilder;
 import com.devicehive.websockets.handlers.CommandHandlers;
 import com.devicehive.websockets.handlers.NotificationHandlers;
@@ -59,6 +60,7 @@ import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.stream.Collectors;
 
@@ -145,6 +147,17 @@ public class DeviceHiveWebSocketHandler extends TextWebSocketHandler {
             } else {
                 response = webSocketClientHandler.buildErrorResponse(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, ex.getMessage());
             }
+        } catch (ClientOverloadedException ex) {
+            logger.warn("Request rejected: {}", ex.getMessage());
+            response = webSocketClientHandler.buildErrorResponse(HttpServletResponse.SC_SERVICE_UNAVAILABLE, ex.getMessage());
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof ClientOverloadedException) {
+                logger.warn("Request rejected: {}", ex.getCause().getMessage());
+                response = webSocketClientHandler.buildErrorResponse(HttpServletResponse.SC_SERVICE_UNAVAILABLE, ex.getCause().getMessage());
+            } else {
+                logger.error("Error executing the request: {}", ex.getMessage());
+                response = webSocketClientHandler.buildErrorResponse(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, ex.getMessage());
+            }
         } catch (NoSuchElementException ex) {
             logger.error("Error executing the request: {}", ex.getMessage());
             response = webSocketClientHandler.buildErrorResponse(HttpServletResponse.SC_NOT_FOUND, ex.getMessage());
@@ -36,6 +36,7 @@ import com.devicehive.resource.util.JsonTypes;
 import com.devicehive.service.BaseFilterService;
 import com.devicehive.service.DeviceCommandService;
 import com.devicehive.service.DeviceService;
+import com.devicehive.service.exception.BackendException;
 import com.devicehive.vo.*;
 import com.devicehive.websockets.converters.WebSocketResponse;
 import com.google.gson.Gson;
@@ -105,6 +106,8 @@ public class CommandHandlers {
         final Integer limit = Optional.ofNullable(gson.fromJson(request.get(LIMIT), Integer.class)).orElse(DEFAULT_TAKE);
         final Boolean returnUpdated = Optional.ofNullable(gson.fromJson(request.get(RETURN_UPDATED_COMMANDS), Boolean.class))
                 .orElse(DEFAULT_RETURN_UPDATED_COMMANDS);
+        final String predicate = gson.fromJson(request.get(PREDICATE), String.class);
+        filterService.validatePredicate(predicate);
 
         logger.debug("command/subscribe requested for device: {}. Networks: {}. Device types: {}. Timestamp: {}. Names {} Session: {}",
                 deviceId, networks, deviceTypes, timestamp, names, session);
@@ -116,9 +119,16 @@ public class CommandHandlers {
                 JsonObject json = createCommandMessage(command, subscriptionId, returnUpdated);
                 clientHandler.sendMessage(json, session);
             };
+            BiConsumer<BackendException, Long> failureCallback = (e, subscriptionId) -> {
+                ((CopyOnWriteArraySet) session
+                        .getAttributes()
+                        .get(SUBSCRIPTION_SET_NAME))
+                        .remove(new SubscriptionInfo(subscriptionId));
+                clientHandler.sendErrorResponse(request, e.getErrorCode(), e.getMessage(), session);
+            };
 
             Pair<Long, CompletableFuture<List<DeviceCommand>>> pair = commandService
-                    .sendSubscribeRequest(filters, names, timestamp, returnUpdated, limit, callback);
+                    .sendSubscribeRequest(filters, names, timestamp, returnUpdated, limit, predicate, callback, failureCallback);
 
             logger.debug("command/subscribe done for devices: {}. Networks: {}. Device types: {}. Timestamp: {}. Names {} Session: {}",
                     deviceId, networks, deviceTypes, timestamp, names, session.getId());
@@ -38,6 +38,7 @@ import com.devicehive.resource.util.JsonTypes;
 import com.devicehive.service.BaseFilterService;
 import com.devicehive.service.DeviceNotificationService;
 import com.devicehive.service.DeviceService;
+import com.devicehive.service.exception.BackendException;
 import com.devicehive.util.ServerResponsesFactory;
 import com.devicehive.vo.*;
 import com.devicehive.websockets.converters.WebSocketResponse;
@@ -103,6 +104,10 @@ public class NotificationHandlers {
         Set<Long> networks = gson.fromJson(request.getAsJsonArray(NETWORK_IDS), JsonTypes.LONG_SET_TYPE);
         Set<Long> deviceTypes = gson.fromJson(request.getAsJsonArray(DEVICE_TYPE_IDS), JsonTypes.LONG_SET_TYPE);
         final Set<String> names = gson.fromJson(request.get(Constants.NAMES), JsonTypes.STRING_SET_TYPE);
+        final String predicate = gson.fromJson(request.get(Constants.PREDICATE), String.class);
+        filterService.validatePredicate(predicate);
+        final Long conflationWindow = gson.fromJson(request.get(Constants.CONFLATION_WINDOW), Long.class);
+        filterService.validateConflationWindow(conflationWindow);
 
         logger.debug("notification/subscribe requested for device: {}. Networks: {}. Device types: {}. Timestamp: {}. Names {} Session: {}",
                 deviceId, networks, deviceTypes, timestamp, names, session);
@@ -114,9 +119,16 @@ public class NotificationHandlers {
                 JsonObject json = ServerResponsesFactory.createNotificationInsertMessage(notification, subscriptionId);
                 clientHandler.sendMessage(json, session);
             };
+            BiConsumer<BackendException, Long> failureCallback = (e, subscriptionId) -> {
+                ((CopyOnWriteArraySet) session
+                        .getAttributes()
+                        .get(SUBSCRIPTION_SET_NAME))
+                        .remove(new SubscriptionInfo(subscriptionId));
+                clientHandler.sendErrorResponse(request, e.getErrorCode(), e.getMessage(), session);
+            };
 
             Pair<Long, CompletableFuture<List<DeviceNotification>>> pair = notificationService
-                    .subscribe(filters, names, timestamp, callback);
+                    .subscribe(filters, names, timestamp, predicate, conflationWindow, callback, failureCallback);
 
             logger.debug("notification/subscribe done for devices: {}. Networks: {}. Device types: {}. Timestamp: {}. Names {} Session: {}",
                     deviceId, networks, deviceTypes, timestamp, names, session.getId());
@@ -20,8 +20,12 @@ package com.devicehive.websockets.util;
  * #L%
  */
 
+import com.devicehive.model.rpc.SubscriptionHeartbeatRequest;
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.client.RpcClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
@@ -40,6 +44,13 @@ public class SessionMonitor {
 
     private ConcurrentMap<String, WebSocketSession> sessionMap = new ConcurrentHashMap<>();
 
+    private RpcClient rpcClient;
+
+    @Autowired
+    public void setRpcClient(RpcClient rpcClient) {
+        this.rpcClient = rpcClient;
+    }
+
     public void registerSession(final WebSocketSession session) {
         sessionMap.put(session.getId(), session);
     }
@@ -76,6 +87,22 @@ public class SessionMonitor {
         }
     }
 
+    /**
+     * Renews leases of all subscriptions of this node with a single heartbeat, so that backends
+     * reclaim them if the node goes down without unsubscribing.
+     */
+    @Scheduled(fixedDelayString = "${subscription.lease.heartbeat.ms:15000}")
+    public void renewSubscriptionLeases() {
+        Request request = Request.newBuilder()
+                .withBody(new SubscriptionHeartbeatRequest())
+                .build();
+        rpcClient.call(request, response -> {
+            if (response.isFailed()) {
+                logger.warn("Subscription lease renewal failed with code {}", response.getErrorCode());
+            }
+        });
+    }
+
     @PreDestroy
     public void closeAllSessions() {
         for (WebSocketSession session : sessionMap.values()) {
@@ -25,6 +25,7 @@ import com.devicehive.proxy.ProxyResponseHandler;
 import com.devicehive.proxy.api.NotificationHandler;
 import com.devicehive.proxy.client.WebSocketKafkaProxyClient;
 import com.devicehive.proxy.config.WebSocketKafkaProxyConfig;
+import com.devicehive.api.InFlightLimiter;
 import com.devicehive.api.RequestResponseMatcher;
 import com.google.gson.Gson;
 import org.springframework.beans.factory.annotation.Value;
@@ -73,9 +74,29 @@ public class PluginProxyClientConfig {
         }
     }
 
+    @Value("${rpc.client.request.timeout.ms:60000}")
+    private long requestTimeoutMs;
+
+    @Value("${rpc.client.stream.idle-timeout.ms:300000}")
+    private long streamIdleTimeoutMs;
+
+    @Value("${rpc.client.callback.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int callbackThreads;
+
+    @Value("${rpc.client.callback.queue-capacity:1024}")
+    private int callbackQueueCapacity;
+
+    @Value("${rpc.client.in-flight.max:0}")
+    private int maxInFlight;
+
+    @Value("${rpc.client.in-flight.per-action:}")
+    private String actionInFlightLimits;
+
     @Bean
     public RequestResponseMatcher requestResponseMatcher() {
-        return new RequestResponseMatcher();
+        RequestResponseMatcher matcher = new RequestResponseMatcher(requestTimeoutMs, streamIdleTimeoutMs, callbackThreads, callbackQueueCapacity);
+        matcher.setInFlightLimiter(new InFlightLimiter(maxInFlight, actionInFlightLimits));
+        return matcher;
     }
 
     @Bean
@@ -40,6 +40,8 @@ public class FilterEntity {
 
     private boolean returnNotifications;
 
+    private String predicate;
+
     public FilterEntity(String deviceId, String networkIds, String deviceTypeIds, String names, boolean returnCommands,
                         boolean returnUpdatedCommands, boolean returnNotifications) {
         this.deviceId = deviceId;
@@ -52,7 +54,7 @@ public class FilterEntity {
     }
 
     public FilterEntity(String filterString) {
-        String[] filters = filterString.split("/");
+        String[] filters = filterString.split("/", 6);
 
         String typesString = filters[0];
         if (typesString.equals(ANY)) {
@@ -86,6 +88,8 @@ public class FilterEntity {
 
         names = filters[4];
         if (names.equals(ANY)) names = null;
+
+        if (filters.length > 5) predicate = filters[5];
     }
 
     public String getDeviceId() {
@@ -143,4 +147,12 @@ public class FilterEntity {
     public void setReturnNotifications(boolean returnNotifications) {
         this.returnNotifications = returnNotifications;
     }
+
+    public String getPredicate() {
+        return predicate;
+    }
+
+    public void setPredicate(String predicate) {
+        this.predicate = predicate;
+    }
 }
@@ -65,6 +65,10 @@ public class PluginReqisterQuery {
     @QueryParam(RETURN_NOTIFICATIONS)
     private Boolean returnNotifications;
 
+    @ApiParam(name = PREDICATE, value = "Predicate over event parameters, e.g. $.temperature > 30")
+    @QueryParam(PREDICATE)
+    private String predicate;
+
     public String getDeviceId() {
         return deviceId;
     }
@@ -121,17 +125,26 @@ public class PluginReqisterQuery {
         this.returnNotifications = returnNotifications;
     }
 
+    public String getPredicate() {
+        return predicate;
+    }
+
+    public void setPredicate(String predicate) {
+        this.predicate = predicate;
+    }
+
     public PluginSubscribeRequest toRequest(Set<Filter> filters) {
         PluginSubscribeRequest request = new PluginSubscribeRequest();
         request.setFilters(filters);
         request.setReturnCommands(Optional.ofNullable(returnCommands).orElse(true));
         request.setReturnUpdatedCommands(Optional.ofNullable(returnUpdatedCommands).orElse(true));
         request.setReturnNotifications(Optional.ofNullable(returnNotifications).orElse(true));
+        request.setPredicate(predicate);
         
         return request;
     }
 
-    // Filter format <notification/command/command_update>/<networkIDs>/<deviceTypeIDs>/<deviceID>/<eventNames>
+    // Filter format <notification/command/command_update>/<networkIDs>/<deviceTypeIDs>/<deviceID>/<eventNames>[/<predicate>]
     // TODO - change to embedded entity for better code readability
     public String constructFilterString() {
         StringJoiner sj = new StringJoiner("/");
@@ -171,6 +184,10 @@ public class PluginReqisterQuery {
             sj.add(ANY);
         }
 
+        if (predicate != null && !predicate.isEmpty()) {
+            sj.add(predicate);
+        }
+
         return sj.toString();
     }
 
@@ -28,6 +28,7 @@ import com.devicehive.proxy.api.payload.TopicsPayload;
 import com.devicehive.shim.api.Request;
 import com.devicehive.shim.api.RequestType;
 import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.client.ClientOverloadedException;
 import com.devicehive.shim.api.client.RpcClient;
 import com.devicehive.api.RequestResponseMatcher;
 import com.google.gson.Gson;
@@ -47,6 +48,10 @@ import java.util.function.Consumer;
 public class PluginProxyClient implements RpcClient {
     private static final Logger logger = LoggerFactory.getLogger(PluginProxyClient.class);
 
+    private static final String OVERLOADED_MESSAGE = "Too many requests in flight";
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final String NOT_SENT_MESSAGE = "Connection to proxy is not available";
+
     private final String requestTopic;
     private final String replyToTopic;
     private final ProxyClient client;
@@ -63,10 +68,20 @@ public class PluginProxyClient implements RpcClient {
 
     @Override
     public void call(Request request, Consumer<Response> callback) {
-        requestResponseMatcher.addRequestCallback(request.getCorrelationId(), callback);
+        if (!tryCall(request, callback)) {
+            throw new ClientOverloadedException(OVERLOADED_MESSAGE);
+        }
+    }
+
+    @Override
+    public boolean tryCall(Request request, Consumer<Response> callback) {
+        if (!requestResponseMatcher.tryAddRequestCallback(request.getCorrelationId(), request.getAction(), callback, request.isSingleReplyExpected())) {
+            return false;
+        }
         logger.debug("Request callback added for request: {}, correlationId: {}", request.getBody(), request.getCorrelationId());
 
         push(request);
+        return true;
     }
 
     @Override
@@ -76,7 +91,10 @@ public class PluginProxyClient implements RpcClient {
         }
         request.setReplyTo(replyToTopic);
 
-        client.push(ProxyMessageBuilder.notification(new NotificationCreatePayload(requestTopic, gson.toJson(request)))); // toDo: use request partition key
+        boolean sent = client.send(ProxyMessageBuilder.notification(new NotificationCreatePayload(requestTopic, gson.toJson(request)))); // toDo: use request partition key
+        if (!sent) {
+            requestResponseMatcher.failRequest(request.getCorrelationId(), SERVICE_UNAVAILABLE, NOT_SENT_MESSAGE);
+        }
     }
     
     public void createTopic(List<String> topics) {
@@ -115,7 +133,7 @@ public class PluginProxyClient implements RpcClient {
             requestResponseMatcher.addRequestCallback(request.getCorrelationId(), pingFuture::complete);
             logger.debug("Request callback added for request: {}, correlationId: {}", request.getBody(), request.getCorrelationId());
 
-            client.push(ProxyMessageBuilder.notification(new NotificationCreatePayload(requestTopic, gson.toJson(request)))); // toDo: use request partition key
+            client.send(ProxyMessageBuilder.notification(new NotificationCreatePayload(requestTopic, gson.toJson(request)))); // toDo: use request partition key
 
             Response response = null;
             try {
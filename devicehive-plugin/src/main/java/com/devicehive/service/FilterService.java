@@ -67,10 +67,15 @@ public class FilterService {
         request.setReturnCommands(filterEntity.isReturnCommands());
         request.setReturnUpdatedCommands(filterEntity.isReturnUpdatedCommands());
         request.setReturnNotifications(filterEntity.isReturnNotifications());
+        request.setPredicate(filterEntity.getPredicate());
 
         return request;
     }
 
+    public void validatePredicate(String predicate) {
+        filterService.validatePredicate(predicate);
+    }
+
     private Set<Filter> createFilters(FilterEntity filterEntity) {
         final HiveAuthentication authentication = (HiveAuthentication) SecurityContextHolder.getContext().getAuthentication();
         return filterService.getFilterList(filterEntity.getDeviceId(), toLongSet(filterEntity.getNetworkIds()),
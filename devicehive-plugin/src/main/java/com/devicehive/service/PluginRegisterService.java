@@ -226,6 +226,7 @@ public class PluginRegisterService {
 
         final boolean isFilterUpdated = pluginUpdateQuery.getDeviceId() != null || pluginUpdateQuery.getNetworkIds() != null ||
                 pluginUpdateQuery.getDeviceTypeIds() != null || pluginUpdateQuery.getNames() != null ||
+                pluginUpdateQuery.getPredicate() != null ||
                 pluginUpdateQuery.isReturnCommands() != null ||
                 pluginUpdateQuery.isReturnUpdatedCommands() != null ||
                 pluginUpdateQuery.isReturnNotifications() != null;
@@ -289,6 +290,7 @@ public class PluginRegisterService {
             logger.error("Requested subscription is not valid. Please, set at least one 'return*' parameter to true.");
             throw new HiveException(Messages.PLUGIN_SUBSCRIPTION_NOT_VALID, BAD_REQUEST.getStatusCode());
         }
+        filterService.validatePredicate(pluginReqisterQuery.getPredicate());
     }
 
     private JwtTokenVO createPluginTokens(String topicName, String authorization) {
@@ -20,7 +20,17 @@ package com.devicehive.proxy.api;
  * #L%
  */
 
+import com.google.gson.JsonElement;
+
 public interface NotificationHandler {
 
     void handle(String message, ProxyClient client);
+
+    /**
+     * Handles a message the proxy embedded as raw JSON. Handlers that bind it straight from the tree avoid
+     * parsing its text again.
+     */
+    default void handle(JsonElement message, ProxyClient client) {
+        handle(message.toString(), client);
+    }
 }
@@ -35,4 +35,25 @@ public abstract class ProxyClient {
     public abstract void shutdown();
 
     public abstract CompletableFuture<ProxyMessage> push(ProxyMessage message);
+
+    /**
+     * Sends the message without waiting for its response, e.g. notifications nobody checks the result of.
+     * Unlike {@link #push(ProxyMessage)}, nothing is kept per message once it's sent.
+     *
+     * @return false if the message could not be sent, e.g. no connection to the proxy is open
+     */
+    public boolean send(ProxyMessage message) {
+        return !push(message).isCompletedExceptionally();
+    }
+
+    /**
+     * @return messages pushed whose response has not been received yet
+     */
+    public int getPendingCount() {
+        return 0;
+    }
+
+    public boolean isConnected() {
+        return true;
+    }
 }
@@ -0,0 +1,173 @@
+package com.devicehive.proxy.api;
+
+/*
+ * #%L
+ * DeviceHive Proxy API Interfaces
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Counters of proxy clients shared by all connections of the process, read by actuator metrics of applications.
+ */
+public final class ProxyClientStats {
+
+    private static final AtomicLong batches = new AtomicLong();
+    private static final AtomicLong batchedMessages = new AtomicLong();
+    private static final AtomicLong sizeFlushes = new AtomicLong();
+    private static final AtomicLong lingerFlushes = new AtomicLong();
+    private static final AtomicLong maxBatchSize = new AtomicLong();
+    private static final AtomicLong sentFrames = new AtomicLong();
+    private static final AtomicLong sentMessages = new AtomicLong();
+    private static final AtomicLong sentRawMessages = new AtomicLong();
+    private static final AtomicLong sentChars = new AtomicLong();
+    private static final AtomicLong expiredResponses = new AtomicLong();
+    private static final AtomicLong reconnects = new AtomicLong();
+    private static final AtomicLong reconnectFailures = new AtomicLong();
+
+    private static final AtomicInteger connectionIds = new AtomicInteger();
+    private static final Map<Integer, ProxyClient> connections = new ConcurrentHashMap<>();
+
+    private ProxyClientStats() {
+    }
+
+    /**
+     * @return id of the connection in metrics, to be passed to {@link #unregister(int)} once it's shut down
+     */
+    public static int register(ProxyClient connection) {
+        int id = connectionIds.incrementAndGet();
+        connections.put(id, connection);
+        return id;
+    }
+
+    public static void unregister(int id) {
+        connections.remove(id);
+    }
+
+    /**
+     * @param length of the frame in chars, equal to its size in bytes for ASCII JSON
+     * @param rawJson whether notification messages of the frame were embedded as raw JSON
+     */
+    public static void frameSent(int messages, int length, boolean rawJson) {
+        sentFrames.incrementAndGet();
+        sentMessages.addAndGet(messages);
+        sentChars.addAndGet(length);
+        if (rawJson) {
+            sentRawMessages.addAndGet(messages);
+        }
+    }
+
+    public static void responseExpired() {
+        expiredResponses.incrementAndGet();
+    }
+
+    public static void reconnected() {
+        reconnects.incrementAndGet();
+    }
+
+    public static void reconnectFailed() {
+        reconnectFailures.incrementAndGet();
+    }
+
+    public static void batchSent(int size, boolean full) {
+        batches.incrementAndGet();
+        batchedMessages.addAndGet(size);
+        (full ? sizeFlushes : lingerFlushes).incrementAndGet();
+        long max;
+        while (size > (max = maxBatchSize.get())) {
+            if (maxBatchSize.compareAndSet(max, size)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return frames carrying batched messages
+     */
+    public static long getBatches() {
+        return batches.get();
+    }
+
+    public static long getBatchedMessages() {
+        return batchedMessages.get();
+    }
+
+    /**
+     * @return batches sent because they reached the size bound
+     */
+    public static long getSizeFlushes() {
+        return sizeFlushes.get();
+    }
+
+    /**
+     * @return batches sent because the linger time of their first message expired, or on close
+     */
+    public static long getLingerFlushes() {
+        return lingerFlushes.get();
+    }
+
+    public static long getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    public static long getReconnects() {
+        return reconnects.get();
+    }
+
+    public static long getReconnectFailures() {
+        return reconnectFailures.get();
+    }
+
+    /**
+     * Passes every counter to the visitor by metric name, e.g. {@code proxy.connection.3.inflight} for pending
+     * messages of a connection.
+     */
+    public static void forEach(BiConsumer<String, Number> visitor) {
+        long batchCount = batches.get();
+        visitor.accept("proxy.batch.frames", batchCount);
+        visitor.accept("proxy.batch.messages", batchedMessages.get());
+        visitor.accept("proxy.batch.size.avg", batchCount == 0 ? 0 : (double) batchedMessages.get() / batchCount);
+        visitor.accept("proxy.batch.size.max", maxBatchSize.get());
+        visitor.accept("proxy.batch.flush.size", sizeFlushes.get());
+        visitor.accept("proxy.batch.flush.linger", lingerFlushes.get());
+
+        long sentMessageCount = sentMessages.get();
+        visitor.accept("proxy.sent.frames", sentFrames.get());
+        visitor.accept("proxy.sent.messages", sentMessageCount);
+        visitor.accept("proxy.sent.messages.raw-json", sentRawMessages.get());
+        visitor.accept("proxy.sent.chars", sentChars.get());
+        visitor.accept("proxy.sent.chars.per-message", sentMessageCount == 0 ? 0 : (double) sentChars.get() / sentMessageCount);
+
+        int open = 0;
+        for (Map.Entry<Integer, ProxyClient> connection : connections.entrySet()) {
+            if (connection.getValue().isConnected()) {
+                open++;
+            }
+            visitor.accept("proxy.connection." + connection.getKey() + ".inflight", connection.getValue().getPendingCount());
+        }
+        visitor.accept("proxy.connections", connections.size());
+        visitor.accept("proxy.connections.open", open);
+        visitor.accept("proxy.responses.expired", expiredResponses.get());
+        visitor.accept("proxy.reconnects", reconnects.get());
+        visitor.accept("proxy.reconnect.failures", reconnectFailures.get());
+    }
+}
@@ -22,6 +22,8 @@ package com.devicehive.proxy.api.payload;
 
 import com.google.gson.annotations.SerializedName;
 
+import java.util.List;
+
 public class HealthPayload implements Payload {
 
     @SerializedName("prx")
@@ -36,6 +38,9 @@ public class HealthPayload implements Payload {
     @SerializedName("comm")
     private String messageBrokerStatus;
 
+    @SerializedName("feat")
+    private List<String> features;
+
     public HealthPayload(String proxyStatus, String messageBufferStatus, Double messageBufferFillPercentage, String messageBrokerStatus) {
         this.proxyStatus = proxyStatus;
         this.messageBufferStatus = messageBufferStatus;
@@ -75,6 +80,17 @@ public class HealthPayload implements Payload {
         this.messageBrokerStatus = messageBrokerStatus;
     }
 
+    /**
+     * @return protocol features the proxy supports, null for proxies that don't advertise any
+     */
+    public List<String> getFeatures() {
+        return features;
+    }
+
+    public void setFeatures(List<String> features) {
+        this.features = features;
+    }
+
     @Override
     public String toString() {
         return "HealthPayload{" +
@@ -82,6 +98,7 @@ public class HealthPayload implements Payload {
                 ", messageBufferStatus='" + messageBufferStatus + '\'' +
                 ", messageBufferFillPercentage=" + messageBufferFillPercentage +
                 ", messageBrokerStatus='" + messageBrokerStatus + '\'' +
+                ", features=" + features +
                 '}';
     }
 }
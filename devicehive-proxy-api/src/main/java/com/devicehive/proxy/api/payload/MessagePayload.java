@@ -20,6 +20,7 @@ package com.devicehive.proxy.api.payload;
  * #L%
  */
 
+import com.google.gson.JsonElement;
 import com.google.gson.annotations.SerializedName;
 
 public class MessagePayload implements Payload {
@@ -27,14 +28,33 @@ public class MessagePayload implements Payload {
     @SerializedName("m")
     protected String message;
 
+    private transient JsonElement json;
+
     public MessagePayload(String message) {
         this.message = message;
     }
 
+    /**
+     * @param json message the proxy embedded as raw JSON rather than as an escaped string
+     */
+    public MessagePayload(JsonElement json) {
+        this.json = json;
+    }
+
     public String getMessage() {
+        if (message == null && json != null) {
+            message = json.toString();
+        }
         return message;
     }
 
+    /**
+     * @return message embedded as raw JSON, already parsed with the frame, null if it was sent as a string
+     */
+    public JsonElement getJson() {
+        return json;
+    }
+
     public void setMessage(String message) {
         this.message = message;
     }
@@ -42,7 +62,7 @@ public class MessagePayload implements Payload {
     @Override
     public String toString() {
         return "Payload{" +
-                "message='" + message + '\'' +
+                "message='" + getMessage() + '\'' +
                 '}';
     }
 }
@@ -28,11 +28,14 @@ import com.devicehive.proxy.api.ProxyMessageBuilder;
 import com.devicehive.proxy.api.payload.NotificationCreatePayload;
 import com.devicehive.proxy.api.payload.SubscribePayload;
 import com.devicehive.proxy.api.payload.TopicsPayload;
+import com.devicehive.proxy.client.ProxyClientPool;
 import com.devicehive.proxy.client.WebSocketKafkaProxyClient;
 import com.devicehive.proxy.config.WebSocketKafkaProxyConfig;
 import com.devicehive.shim.api.Request;
 import com.devicehive.shim.api.RequestType;
 import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.Timings;
+import com.devicehive.shim.api.client.ClientOverloadedException;
 import com.devicehive.shim.api.client.RpcClient;
 import com.google.gson.Gson;
 import com.lmax.disruptor.RingBuffer;
@@ -47,9 +50,13 @@ import java.util.function.Consumer;
 public class FrontendProxyClient implements RpcClient {
     private static final Logger logger = LoggerFactory.getLogger(FrontendProxyClient.class);
 
+    private static final String OVERLOADED_MESSAGE = "Too many requests in flight";
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final String NOT_SENT_MESSAGE = "Connection to proxy is not available";
+
     private final String requestTopic;
     private final String replyToTopic;
-    private final WebSocketKafkaProxyClient client;
+    private final ProxyClient client;
     private final WebSocketKafkaProxyConfig proxyConfig;
     private final NotificationHandler notificationHandler;
     private final RequestResponseMatcher requestResponseMatcher;
@@ -64,16 +71,33 @@ public class FrontendProxyClient implements RpcClient {
         this.requestResponseMatcher = requestResponseMatcher;
         this.gson = gson;
         this.ringBuffer = ringBuffer;
-        this.client = new WebSocketKafkaProxyClient((message, client) -> {});
-        client.setWebSocketKafkaProxyConfig(proxyConfig);
+        this.client = new ProxyClientPool((message, client) -> {}, proxyConfig);
     }
 
     @Override
     public void call(Request request, Consumer<Response> callback) {
-        requestResponseMatcher.addRequestCallback(request.getCorrelationId(), callback);
+        if (!tryCall(request, callback)) {
+            throw new ClientOverloadedException(OVERLOADED_MESSAGE);
+        }
+    }
+
+    @Override
+    public boolean tryCall(Request request, Consumer<Response> callback) {
+        if (!requestResponseMatcher.tryAddRequestCallback(request.getCorrelationId(), request.getAction(), callback, request.isSingleReplyExpected())) {
+            return false;
+        }
         logger.debug("Request callback added for request: {}, correlationId: {}", request.getBody(), request.getCorrelationId());
+        if (requestResponseMatcher.getLatencyRecorder() != null) {
+            request.setTimings(Timings.sent());
+        }
 
-        ringBuffer.publishEvent((serverEvent, sequence, response) -> serverEvent.set(response), request);
+        // publishEvent would block the caller until the ring buffer has room
+        if (!ringBuffer.tryPublishEvent((serverEvent, sequence, response) -> serverEvent.set(response), request)) {
+            logger.debug("Request {} rejected, ring buffer is full", request.getCorrelationId());
+            requestResponseMatcher.removeRequestCallback(request.getCorrelationId());
+            return false;
+        }
+        return true;
     }
 
     @Override
@@ -83,8 +107,11 @@ public class FrontendProxyClient implements RpcClient {
         }
         request.setReplyTo(replyToTopic);
 
-        client.push(ProxyMessageBuilder.notification(
+        boolean sent = client.send(ProxyMessageBuilder.notification(
                 new NotificationCreatePayload(requestTopic, gson.toJson(request), request.getPartitionKey())));
+        if (!sent) {
+            requestResponseMatcher.failRequest(request.getCorrelationId(), SERVICE_UNAVAILABLE, NOT_SENT_MESSAGE);
+        }
     }
 
     @Override
@@ -125,7 +152,7 @@ public class FrontendProxyClient implements RpcClient {
             requestResponseMatcher.addRequestCallback(request.getCorrelationId(), pingFuture::complete);
             logger.debug("Request callback added for request: {}, correlationId: {}", request.getBody(), request.getCorrelationId());
 
-            client.push(ProxyMessageBuilder.notification(
+            client.send(ProxyMessageBuilder.notification(
                     new NotificationCreatePayload(requestTopic, gson.toJson(request), request.getPartitionKey())));
 
             Response response = null;
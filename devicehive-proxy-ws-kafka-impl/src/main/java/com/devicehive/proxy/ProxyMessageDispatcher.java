@@ -24,7 +24,7 @@ import com.devicehive.proxy.api.ProxyClient;
 import com.devicehive.proxy.api.ProxyMessage;
 import com.devicehive.proxy.api.ProxyMessageBuilder;
 import com.devicehive.proxy.api.payload.NotificationCreatePayload;
-import com.devicehive.proxy.client.WebSocketKafkaProxyClient;
+import com.devicehive.proxy.client.ProxyClientPool;
 import com.devicehive.proxy.config.WebSocketKafkaProxyConfig;
 import com.devicehive.shim.api.Response;
 import com.devicehive.shim.api.server.MessageDispatcher;
@@ -39,15 +39,13 @@ public class ProxyMessageDispatcher implements MessageDispatcher {
     @Autowired
     public ProxyMessageDispatcher(Gson gson, WebSocketKafkaProxyConfig proxyConfig) {
         this.gson = gson;
-        WebSocketKafkaProxyClient webSocketKafkaProxyClient = new WebSocketKafkaProxyClient((message, client) -> {});
-        webSocketKafkaProxyClient.setWebSocketKafkaProxyConfig(proxyConfig);
-        this.proxyClient = webSocketKafkaProxyClient;
+        this.proxyClient = new ProxyClientPool((message, client) -> {}, proxyConfig);
         this.proxyClient.start();
     }
 
     @Override
     public void send(String to, Response response) {
         ProxyMessage responseMessage = ProxyMessageBuilder.notification(new NotificationCreatePayload(to, gson.toJson(response)));
-        proxyClient.push(responseMessage);
+        proxyClient.send(responseMessage);
     }
 }
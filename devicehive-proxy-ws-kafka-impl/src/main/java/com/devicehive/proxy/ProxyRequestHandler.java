@@ -25,6 +25,7 @@ import com.devicehive.proxy.api.NotificationHandler;
 import com.devicehive.proxy.api.ProxyClient;
 import com.devicehive.shim.api.Request;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.lmax.disruptor.RingBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,7 +47,19 @@ public class ProxyRequestHandler implements NotificationHandler {
     @Override
     public void handle(String message, ProxyClient client) {
         logger.debug("Received message from proxy client: " + message);
-        final Request request = gson.fromJson(message, Request.class);
+        publish(gson.fromJson(message, Request.class));
+    }
+
+    @Override
+    public void handle(JsonElement message, ProxyClient client) {
+        logger.debug("Received message from proxy client: {}", message);
+        publish(gson.fromJson(message, Request.class));
+    }
+
+    private void publish(Request request) {
+        if (request.getTimings() != null) {
+            request.getTimings().setServerReceive(System.currentTimeMillis());
+        }
 
         ringBuffer.publishEvent((serverEvent, sequence, response) -> serverEvent.set(response), request);
     }
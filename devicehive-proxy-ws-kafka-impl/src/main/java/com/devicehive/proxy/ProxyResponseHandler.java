@@ -26,11 +26,12 @@ import com.devicehive.proxy.api.NotificationHandler;
 import com.devicehive.proxy.api.ProxyClient;
 import com.devicehive.proxy.api.ProxyMessageBuilder;
 import com.devicehive.proxy.api.payload.NotificationCreatePayload;
-import com.devicehive.proxy.client.WebSocketKafkaProxyClient;
+import com.devicehive.proxy.client.ProxyClientPool;
 import com.devicehive.proxy.config.WebSocketKafkaProxyConfig;
 import com.devicehive.shim.api.Request;
 import com.devicehive.shim.api.Response;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
 import com.lmax.disruptor.WorkHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +41,9 @@ public class ProxyResponseHandler implements NotificationHandler, WorkHandler<Se
 
     private static final Logger logger = LoggerFactory.getLogger(ProxyResponseHandler.class);
 
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final String NOT_SENT_MESSAGE = "Connection to proxy is not available";
+
     private final Gson gson;
     private final String requestTopic;
     private final String replyToTopic;
@@ -52,9 +56,7 @@ public class ProxyResponseHandler implements NotificationHandler, WorkHandler<Se
         this.requestTopic = requestTopic;
         this.replyToTopic = replyToTopic;
         this.requestResponseMatcher = requestResponseMatcher;
-        WebSocketKafkaProxyClient webSocketKafkaProxyClient = new WebSocketKafkaProxyClient((message, client) -> {});
-        webSocketKafkaProxyClient.setWebSocketKafkaProxyConfig(proxyConfig);
-        this.proxyClient = webSocketKafkaProxyClient;
+        this.proxyClient = new ProxyClientPool((message, client) -> {}, proxyConfig);
     }
 
     public void start() {
@@ -69,6 +71,12 @@ public class ProxyResponseHandler implements NotificationHandler, WorkHandler<Se
         requestResponseMatcher.offerResponse(response);
     }
 
+    @Override
+    public void handle(JsonElement message, ProxyClient client) {
+        logger.debug("Received message from proxy client: {}", message);
+        requestResponseMatcher.offerResponse(gson.fromJson(message, Response.class));
+    }
+
     @Override
     public void onEvent(ServerEvent serverEvent) throws Exception {
         final Request request = serverEvent.get();
@@ -77,7 +85,10 @@ public class ProxyResponseHandler implements NotificationHandler, WorkHandler<Se
         }
         request.setReplyTo(replyToTopic);
 
-        proxyClient.push(ProxyMessageBuilder.notification(
+        boolean sent = proxyClient.send(ProxyMessageBuilder.notification(
                 new NotificationCreatePayload(requestTopic, gson.toJson(request), request.getPartitionKey())));
+        if (!sent) {
+            requestResponseMatcher.failRequest(request.getCorrelationId(), SERVICE_UNAVAILABLE, NOT_SENT_MESSAGE);
+        }
     }
 }
@@ -21,16 +21,18 @@ package com.devicehive.proxy;
  */
 
 import com.devicehive.api.HandlersMapper;
+import com.devicehive.api.RpcLatencyRecorder;
 import com.devicehive.model.ServerEvent;
 import com.devicehive.proxy.api.ProxyClient;
 import com.devicehive.proxy.api.ProxyMessage;
 import com.devicehive.proxy.api.ProxyMessageBuilder;
 import com.devicehive.proxy.api.payload.NotificationCreatePayload;
-import com.devicehive.proxy.client.WebSocketKafkaProxyClient;
+import com.devicehive.proxy.client.ProxyClientPool;
 import com.devicehive.proxy.config.WebSocketKafkaProxyConfig;
 import com.devicehive.shim.api.Action;
 import com.devicehive.shim.api.Request;
 import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.Timings;
 import com.devicehive.shim.api.server.RequestHandler;
 import com.google.gson.Gson;
 import com.lmax.disruptor.WorkHandler;
@@ -51,14 +53,15 @@ public class ProxyServerEventHandler implements WorkHandler<ServerEvent> {
     private final Gson gson;
     private final ProxyClient proxyClient;
     private final HandlersMapper requestHandlersMapper;
+    private final RpcLatencyRecorder latencyRecorder;
 
     @Autowired
-    public ProxyServerEventHandler(Gson gson, WebSocketKafkaProxyConfig proxyConfig, HandlersMapper requestHandlersMapper) {
+    public ProxyServerEventHandler(Gson gson, WebSocketKafkaProxyConfig proxyConfig, HandlersMapper requestHandlersMapper,
+                                   RpcLatencyRecorder latencyRecorder) {
         this.gson = gson;
         this.requestHandlersMapper = requestHandlersMapper;
-        WebSocketKafkaProxyClient webSocketKafkaProxyClient = new WebSocketKafkaProxyClient((message, client) -> {});
-        webSocketKafkaProxyClient.setWebSocketKafkaProxyConfig(proxyConfig);
-        this.proxyClient = webSocketKafkaProxyClient;
+        this.latencyRecorder = latencyRecorder;
+        this.proxyClient = new ProxyClientPool((message, client) -> {}, proxyConfig);
         this.proxyClient.start();
     }
 
@@ -66,6 +69,10 @@ public class ProxyServerEventHandler implements WorkHandler<ServerEvent> {
     public void onEvent(ServerEvent serverEvent) throws Exception {
         final Request request = serverEvent.get();
         final String replyTo = request.getReplyTo();
+        final Timings timings = request.getTimings();
+        if (timings != null) {
+            timings.setHandlerStart(System.currentTimeMillis());
+        }
 
         Response response;
 
@@ -85,15 +92,22 @@ public class ProxyServerEventHandler implements WorkHandler<ServerEvent> {
                         .buildFailed(404);
         }
 
+        if (timings != null) {
+            timings.setHandlerEnd(System.currentTimeMillis());
+            timings.setServerSend(timings.getHandlerEnd());
+            response.setTimings(timings);
+            latencyRecorder.recordServer(request.getAction(), timings);
+        }
+
         // set correlationId explicitly to prevent missing it in request
         response.setCorrelationId(request.getCorrelationId());
         ProxyMessage responseMessage = ProxyMessageBuilder.notification(new NotificationCreatePayload(replyTo, gson.toJson(response)));
-        proxyClient.push(responseMessage);
+        proxyClient.send(responseMessage);
     }
 
     private Response handleClientRequest(Request request) {
         Response response;
-        final Action action = request.getBody().getAction();
+        final Action action = request.getAction();
 
         RequestHandler requestHandler = requestHandlersMapper.requestHandlerMap().get(action);
         if (requestHandler == null) {
@@ -104,7 +118,7 @@ public class ProxyServerEventHandler implements WorkHandler<ServerEvent> {
                     .orElseThrow(() -> new NullPointerException("Response must not be null"));
         } catch (Exception e) {
             logger.error("Unexpected exception occurred during request handling (action='{}', handler='{}')",
-                    request.getBody().getAction().name(), requestHandler.getClass().getCanonicalName(), e);
+                    request.getAction(), requestHandler.getClass().getCanonicalName(), e);
 
             response = Response.newBuilder()
                     .withLast(request.isSingleReplyExpected())
@@ -23,31 +23,58 @@ package com.devicehive.proxy.client;
 import com.devicehive.proxy.api.ProxyMessage;
 import com.devicehive.proxy.api.payload.*;
 import com.google.gson.*;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 import javax.websocket.DecodeException;
 import javax.websocket.Decoder;
 import javax.websocket.EndpointConfig;
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-class GsonProxyMessageDecoder implements Decoder.Text<List<ProxyMessage>> {
+/**
+ * Decodes single messages and array frames in one streaming pass, reading payloads straight into their type. The
+ * message of a notification is accepted both as a JSON string, handed over as is, and as raw JSON embedded by
+ * proxies supporting {@link GsonProxyMessageEncoder#RAW_JSON}, which is kept parsed as handlers consume it as a tree.
+ * A payload preceding the type, status or, where its shape depends on it, the action of its message is buffered and
+ * read once they are known.
+ */
+public class GsonProxyMessageDecoder implements Decoder.Text<List<ProxyMessage>> {
 
-    private static final JsonParser parser = new JsonParser();
     private static final Gson gson = new Gson();
+    private static final TypeAdapter<TopicsPayload> topicsAdapter = gson.getAdapter(TopicsPayload.class);
+    private static final TypeAdapter<SubscribePayload> subscribeAdapter = gson.getAdapter(SubscribePayload.class);
+    private static final TypeAdapter<HealthPayload> healthAdapter = gson.getAdapter(HealthPayload.class);
+    private static final TypeAdapter<MessagePayload> messageAdapter = new MessagePayloadAdapter();
+    private static final JsonParser parser = new JsonParser();
 
     @Override
     public List<ProxyMessage> decode(String s) throws DecodeException {
-        JsonElement object = parser.parse(s);
-        if (object instanceof JsonArray) {
-            List<ProxyMessage> list = new ArrayList<>();
-            object.getAsJsonArray().forEach(elem -> list.add(buildMessage(elem.getAsJsonObject())));
-            return list;
-        }
-        if (object instanceof JsonObject) {
-            return Collections.singletonList(buildMessage(object.getAsJsonObject()));
+        JsonReader in = new JsonReader(new StringReader(s));
+        // same as JsonParser used before
+        in.setLenient(true);
+        try {
+            JsonToken token = in.peek();
+            if (token == JsonToken.BEGIN_ARRAY) {
+                List<ProxyMessage> list = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    list.add(readMessage(in));
+                }
+                in.endArray();
+                return list;
+            }
+            if (token == JsonToken.BEGIN_OBJECT) {
+                return Collections.singletonList(readMessage(in));
+            }
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
         }
         throw new JsonParseException(String.format("Cannot deserialize ProxyMessage from '%s'", s));
     }
@@ -67,47 +94,163 @@ class GsonProxyMessageDecoder implements Decoder.Text<List<ProxyMessage>> {
 
     }
 
-    @SuppressWarnings("unchecked")
-    private ProxyMessage buildMessage(JsonObject object) {
-        JsonElement t = object.get("t");
-        JsonElement a = object.get("a");
-        if (t == null) {
+    private ProxyMessage readMessage(JsonReader in) throws IOException {
+        String id = null;
+        String type = null;
+        String action = null;
+        boolean actionRead = false;
+        Integer status = null;
+        Payload payload = null;
+        boolean payloadReadBeforeAction = false;
+        JsonElement bufferedPayload = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    id = nextString(in);
+                    break;
+                case "t":
+                    type = nextString(in);
+                    break;
+                case "a":
+                    action = nextString(in);
+                    actionRead = true;
+                    break;
+                case "s":
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        status = in.nextInt();
+                    }
+                    break;
+                case "p":
+                    if (type != null && status != null && (actionRead || canReadBeforeAction(in, type, status))) {
+                        payload = readPayload(in, type, action, status);
+                        payloadReadBeforeAction = !actionRead;
+                    } else {
+                        bufferedPayload = parser.parse(in);
+                    }
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (type == null) {
             throw new JsonParseException("Cannot deserialize ProxyMessage because it does not define a field named 't'");
         }
-        String type = object.get("t").getAsString();
-        if (a != null) {
-            type += "/" + a.getAsString();
+        if (bufferedPayload != null && !bufferedPayload.isJsonNull()) {
+            payload = readBufferedPayload(bufferedPayload, type, action, status);
+        } else if (payloadReadBeforeAction && action != null && status == 0) {
+            // notification message read in advance, but the action turned up later
+            payload = null;
         }
+        return ProxyMessage.newBuilder()
+                .withId(id)
+                .withType(type)
+                .withAction(action)
+                .withStatus(status)
+                .withPayload(payload)
+                .build();
+    }
 
-        Integer status = object.get("s") != null ? object.get("s").getAsInt() : null;
-        ProxyMessage.Builder decoded = ProxyMessage.newBuilder()
-                .withId(object.get("id") != null ? object.get("id").getAsString() : null)
-                .withType(t.getAsString())
-                .withAction(a != null ? a.getAsString() : null)
-                .withStatus(status);
-        if (object.get("p") != null) {
-            if (status != null && status == 0) {
-                switch (type) {
-                    case "topic/create":
-                        decoded.withPayload(gson.fromJson(object.get("p"), TopicsPayload.class));
-                        break;
-                    case "topic/list":
-                        decoded.withPayload(gson.fromJson(object.get("p"), TopicsPayload.class));
-                        break;
-                    case "topic/subscribe":
-                        decoded.withPayload(gson.fromJson(object.get("p"), SubscribePayload.class));
-                        break;
-                    case "notif":
-                        decoded.withPayload(gson.fromJson(object.get("p"), MessagePayload.class));
+    private Payload readPayload(JsonReader in, String type, String action, Integer status) throws IOException {
+        TypeAdapter<? extends Payload> adapter = payloadAdapter(type, action, status);
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (adapter == null) {
+            in.skipValue();
+            return null;
+        }
+        return adapter.read(in);
+    }
+
+    private Payload readBufferedPayload(JsonElement payload, String type, String action, Integer status) {
+        TypeAdapter<? extends Payload> adapter = payloadAdapter(type, action, status);
+        return adapter != null ? adapter.fromJsonTree(payload) : null;
+    }
+
+    private static TypeAdapter<? extends Payload> payloadAdapter(String type, String action, Integer status) {
+        if (status == null || status != 0) {
+            return messageAdapter;
+        }
+        switch (type) {
+            case "topic":
+                if ("create".equals(action) || "list".equals(action)) {
+                    return topicsAdapter;
+                }
+                if ("subscribe".equals(action)) {
+                    return subscribeAdapter;
+                }
+                break;
+            case "notif":
+                if (action == null) {
+                    return messageAdapter;
+                }
+                break;
+            case "health":
+                if (action == null) {
+                    return healthAdapter;
+                }
+                break;
+        }
+        return null;
+    }
+
+    /**
+     * Payload of errors does not depend on the action, notifications without action carry a message. Any other
+     * payload has to wait for the action, as it may still follow.
+     */
+    private static boolean canReadBeforeAction(JsonReader in, String type, int status) throws IOException {
+        return status != 0 || "notif".equals(type) && in.peek() == JsonToken.BEGIN_OBJECT;
+    }
+
+    /**
+     * Reads the message as a string or, if it's embedded as raw JSON, as a tree. Messages are only decoded here.
+     */
+    private static class MessagePayloadAdapter extends TypeAdapter<MessagePayload> {
+
+        @Override
+        public MessagePayload read(JsonReader in) throws IOException {
+            String message = null;
+            JsonElement json = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!"m".equals(in.nextName())) {
+                    in.skipValue();
+                    continue;
+                }
+                switch (in.peek()) {
+                    case BEGIN_OBJECT:
+                    case BEGIN_ARRAY:
+                        json = parser.parse(in);
                         break;
-                    case "health":
-                        decoded.withPayload(gson.fromJson(object.get("p"), HealthPayload.class));
+                    case NULL:
+                        in.nextNull();
                         break;
+                    default:
+                        message = in.nextString();
                 }
-            } else {
-                decoded.withPayload(gson.fromJson(object.get("p"), MessagePayload.class));
             }
+            in.endObject();
+            return json != null ? new MessagePayload(json) : new MessagePayload(message);
+        }
+
+        @Override
+        public void write(JsonWriter out, MessagePayload value) {
+            throw new UnsupportedOperationException("Messages are encoded by GsonProxyMessageEncoder");
+        }
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
         }
-        return decoded.build();
+        return in.nextString();
     }
 }
@@ -21,19 +21,28 @@ package com.devicehive.proxy.client;
  */
 
 import com.devicehive.proxy.api.ProxyMessage;
-import com.devicehive.proxy.api.payload.Payload;
-import com.devicehive.proxy.api.payload.TopicsPayload;
+import com.devicehive.proxy.api.payload.NotificationCreatePayload;
 import com.google.gson.Gson;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
 
 import javax.websocket.EncodeException;
 import javax.websocket.Encoder;
 import javax.websocket.EndpointConfig;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.List;
 
-class GsonProxyMessageEncoder implements Encoder.Text<ProxyMessage> {
+/**
+ * Encodes proxy messages. Proxies that support {@link #RAW_JSON} get the message of a notification embedded as raw
+ * JSON, older ones get it as a JSON string, which escapes every quote of it and makes receivers parse it twice.
+ */
+public class GsonProxyMessageEncoder implements Encoder.Text<ProxyMessage> {
+
+    /**
+     * Feature advertised in the health payload by proxies that accept and deliver notification messages as raw JSON
+     */
+    public static final String RAW_JSON = "raw-json";
 
     private static Gson gson = new Gson();
 
@@ -42,6 +51,69 @@ class GsonProxyMessageEncoder implements Encoder.Text<ProxyMessage> {
         return gson.toJson(message);
     }
 
+    public static String encode(ProxyMessage message, boolean rawJson) {
+        if (!rawJson) {
+            return gson.toJson(message);
+        }
+        StringWriter writer = new StringWriter();
+        try {
+            write(new JsonWriter(writer), message);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Encodes messages sent at once as a JSON array frame
+     */
+    public static String encode(List<ProxyMessage> messages, boolean rawJson) {
+        if (!rawJson) {
+            return gson.toJson(messages);
+        }
+        StringWriter writer = new StringWriter();
+        try {
+            JsonWriter out = new JsonWriter(writer);
+            out.beginArray();
+            for (ProxyMessage message : messages) {
+                write(out, message);
+            }
+            out.endArray();
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return writer.toString();
+    }
+
+    // a JsonWriter over text is required, jsonValue is not supported by the tree writer of toJsonTree
+    private static void write(JsonWriter out, ProxyMessage message) throws IOException {
+        if (!(message.getPayload() instanceof NotificationCreatePayload)) {
+            gson.toJson(message, ProxyMessage.class, out);
+            return;
+        }
+        NotificationCreatePayload payload = (NotificationCreatePayload) message.getPayload();
+        // nulls are omitted as Gson does
+        out.beginObject();
+        if (message.getId() != null) {
+            out.name("id").value(message.getId());
+        }
+        out.name("t").value(message.getType());
+        if (message.getAction() != null) {
+            out.name("a").value(message.getAction());
+        }
+        if (message.getStatus() != null) {
+            out.name("s").value(message.getStatus());
+        }
+        out.name("p").beginObject();
+        out.name("t").value(payload.getTopic());
+        out.name("m").jsonValue(payload.getMessage());
+        if (payload.getPartition() != null) {
+            out.name("part").value(payload.getPartition());
+        }
+        out.endObject();
+        out.endObject();
+    }
+
     @Override
     public void init(EndpointConfig config) {
 
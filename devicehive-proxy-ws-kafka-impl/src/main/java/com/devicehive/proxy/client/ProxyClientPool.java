@@ -0,0 +1,118 @@
+package com.devicehive.proxy.client;
+
+/*
+ * #%L
+ * DeviceHive Proxy WebSocket Kafka Implementation
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import com.devicehive.proxy.api.NotificationHandler;
+import com.devicehive.proxy.api.ProxyClient;
+import com.devicehive.proxy.api.ProxyMessage;
+import com.devicehive.proxy.api.payload.NotificationCreatePayload;
+import com.devicehive.proxy.config.WebSocketKafkaProxyConfig;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads messages over {@code proxy.pool.size} connections to the proxy. A notification message goes through the
+ * connection picked by the hash of its topic and partition, so messages of the same topic and partition, e.g. replies
+ * to one frontend, reach the proxy in the order they were sent. Only while that connection is down they go through
+ * the next connection that is up, the same one for all of them. Other messages take connections in turn.
+ */
+public class ProxyClientPool extends ProxyClient {
+
+    private final WebSocketKafkaProxyConfig proxyConfig;
+    private final WebSocketKafkaProxyClient[] connections;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ProxyClientPool(NotificationHandler notificationHandler, WebSocketKafkaProxyConfig proxyConfig) {
+        super(notificationHandler);
+        this.proxyConfig = proxyConfig;
+        this.connections = new WebSocketKafkaProxyClient[Math.max(proxyConfig.getPoolSize(), 1)];
+    }
+
+    @Override
+    public void start() {
+        for (int i = 0; i < connections.length; i++) {
+            WebSocketKafkaProxyClient connection = new WebSocketKafkaProxyClient(notificationHandler);
+            connection.setWebSocketKafkaProxyConfig(proxyConfig);
+            connection.start();
+            connections[i] = connection;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        for (WebSocketKafkaProxyClient connection : connections) {
+            if (connection != null) {
+                connection.shutdown();
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<ProxyMessage> push(ProxyMessage message) {
+        return select(message).push(message);
+    }
+
+    @Override
+    public boolean send(ProxyMessage message) {
+        return select(message).send(message);
+    }
+
+    @Override
+    public int getPendingCount() {
+        int pending = 0;
+        for (WebSocketKafkaProxyClient connection : connections) {
+            pending += connection.getPendingCount();
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isConnected() {
+        for (WebSocketKafkaProxyClient connection : connections) {
+            if (connection.isConnected()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private WebSocketKafkaProxyClient select(ProxyMessage message) {
+        if (connections.length == 1) {
+            return connections[0];
+        }
+        int first;
+        if (message.getPayload() instanceof NotificationCreatePayload) {
+            NotificationCreatePayload payload = (NotificationCreatePayload) message.getPayload();
+            first = Math.floorMod(Objects.hash(payload.getTopic(), payload.getPartition()), connections.length);
+        } else {
+            first = Math.floorMod(next.getAndIncrement(), connections.length);
+        }
+        for (int i = 0; i < connections.length; i++) {
+            WebSocketKafkaProxyClient connection = connections[(first + i) % connections.length];
+            if (connection.isConnected()) {
+                return connection;
+            }
+        }
+        // none is connected, the message fails on the connection it belongs to
+        return connections[first];
+    }
+}
@@ -0,0 +1,95 @@
+package com.devicehive.proxy.client;
+
+/*
+ * #%L
+ * DeviceHive Proxy WebSocket Kafka Implementation
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.proxy.api.ProxyClientStats;
+import com.devicehive.proxy.api.ProxyMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Collects outbound messages of a connection and hands them over as one frame once the batch is full or
+ * the first message of the batch has waited for the linger time. Frames are handed over in the order their
+ * messages were offered, sizes and flush reasons are counted in {@link ProxyClientStats}.
+ */
+public class ProxyMessageBatcher {
+
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "proxy-batch-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Consumer<List<ProxyMessage>> sender;
+    private final int maxSize;
+    private final long lingerMs;
+
+    private List<ProxyMessage> pending;
+    private boolean scheduled;
+
+    /**
+     * @param sender sends a batch as one frame, called under the batcher's lock so it must not block
+     */
+    public ProxyMessageBatcher(Consumer<List<ProxyMessage>> sender, int maxSize, long lingerMs) {
+        this.sender = sender;
+        this.maxSize = maxSize;
+        this.lingerMs = lingerMs;
+        this.pending = new ArrayList<>(maxSize);
+    }
+
+    public synchronized void offer(ProxyMessage message) {
+        pending.add(message);
+        if (pending.size() >= maxSize) {
+            send(true);
+        } else if (!scheduled) {
+            scheduled = true;
+            flusher.schedule(this::lingerExpired, lingerMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends pending messages right away, e.g. before the connection is closed.
+     */
+    public synchronized void flush() {
+        if (!pending.isEmpty()) {
+            send(false);
+        }
+    }
+
+    private synchronized void lingerExpired() {
+        scheduled = false;
+        if (!pending.isEmpty()) {
+            send(false);
+        }
+    }
+
+    private void send(boolean full) {
+        List<ProxyMessage> batch = pending;
+        pending = new ArrayList<>(maxSize);
+        ProxyClientStats.batchSent(batch.size(), full);
+        sender.accept(batch);
+    }
+}
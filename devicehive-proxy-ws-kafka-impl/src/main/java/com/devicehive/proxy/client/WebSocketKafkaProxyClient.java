@@ -23,9 +23,13 @@ package com.devicehive.proxy.client;
 import com.devicehive.exceptions.HiveException;
 import com.devicehive.proxy.api.NotificationHandler;
 import com.devicehive.proxy.api.ProxyClient;
+import com.devicehive.proxy.api.ProxyClientStats;
 import com.devicehive.proxy.api.ProxyMessage;
+import com.devicehive.proxy.api.ProxyMessageBuilder;
+import com.devicehive.proxy.api.payload.HealthPayload;
 import com.devicehive.proxy.api.payload.MessagePayload;
 import com.devicehive.proxy.config.WebSocketKafkaProxyConfig;
+import com.devicehive.util.HashedTimerWheel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,7 +40,18 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Single WebSocket connection to the proxy. A connection closed by the proxy or the network is re-established with
+ * exponential backoff, and topics created or subscribed to through it are created and subscribed to again. Messages
+ * pushed while the connection is down fail right away, sending them reports failure. Once the proxy reports support for raw JSON in its health
+ * reply, notification messages are embedded in frames as is instead of as escaped strings. Pushed messages are tracked
+ * until their response arrives or {@code proxy.response.timeout.ms} passes, sent ones are not tracked at all.
+ */
 @ClientEndpoint(
         decoders = GsonProxyMessageDecoder.class,
         encoders = GsonProxyMessageEncoder.class
@@ -45,10 +60,29 @@ public class WebSocketKafkaProxyClient extends ProxyClient {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketKafkaProxyClient.class);
 
+    private static final ScheduledExecutorService reconnector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "proxy-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final long TICK_MS = 100;
+    private static final int WHEEL_SIZE = 1024;
+    private static final HashedTimerWheel<PendingMessage> timeouts =
+            new HashedTimerWheel<>("proxy-response-timeouts", TICK_MS, WHEEL_SIZE, WebSocketKafkaProxyClient::onTimeout);
+
+    static {
+        timeouts.start();
+    }
+
     private WebSocketKafkaProxyConfig webSocketKafkaProxyConfig;
-    private Map<String, CompletableFuture<ProxyMessage>> futureMap;
-    private Map<String, Boolean> ackReceived;
-    private Session session;
+    private Map<String, PendingMessage> pendingMessages;
+    private volatile Session session;
+    private volatile boolean closing;
+    private volatile boolean rawJson;
+    private ProxyMessageBatcher batcher;
+    private int connectionId;
+    private final List<ProxyMessage> setupMessages = new CopyOnWriteArrayList<>();
 
     public WebSocketKafkaProxyClient(NotificationHandler notificationHandler) {
         super(notificationHandler);
@@ -57,12 +91,14 @@ public class WebSocketKafkaProxyClient extends ProxyClient {
     @Override
     public void start() {
         try {
-            this.futureMap = new ConcurrentHashMap<>();
-            if (webSocketKafkaProxyConfig.getAckEnable()) {
-                this.ackReceived = new ConcurrentHashMap<>();
+            this.pendingMessages = new ConcurrentHashMap<>();
+            if (webSocketKafkaProxyConfig.getBatchLingerMs() > 0 && webSocketKafkaProxyConfig.getBatchMaxSize() > 1) {
+                this.batcher = new ProxyMessageBatcher(this::sendFrame, webSocketKafkaProxyConfig.getBatchMaxSize(),
+                        webSocketKafkaProxyConfig.getBatchLingerMs());
             }
-            WebSocketContainer container = ContainerProvider.getWebSocketContainer();
-            this.session = container.connectToServer(this, new URI("ws://" + webSocketKafkaProxyConfig.getProxyConnect()));
+            connect();
+            this.connectionId = ProxyClientStats.register(this);
+            negotiateRawJson();
         } catch (Exception e) {
             logger.error("Error during establishing connection: ", e);
             throw new RuntimeException(e);
@@ -71,8 +107,16 @@ public class WebSocketKafkaProxyClient extends ProxyClient {
 
     @Override
     public void shutdown() {
+        closing = true;
+        ProxyClientStats.unregister(connectionId);
         try {
-            session.close();
+            if (batcher != null) {
+                batcher.flush();
+            }
+            Session current = session;
+            if (current != null) {
+                current.close();
+            }
         } catch (IOException e) {
             logger.error("Error during closing connection: ", e);
         }
@@ -80,14 +124,140 @@ public class WebSocketKafkaProxyClient extends ProxyClient {
 
     @Override
     public CompletableFuture<ProxyMessage> push(ProxyMessage message) {
-        this.session.getAsyncRemote().sendObject(message);
+        recordSetup(message);
+        return track(message);
+    }
+
+    @Override
+    public boolean send(ProxyMessage message) {
+        recordSetup(message);
+        Session current = session;
+        if (current == null || !current.isOpen()) {
+            logger.warn("Message {} was not sent, connection to proxy is not available", message.getId());
+            return false;
+        }
+        write(current, message);
+        return true;
+    }
+
+    @Override
+    public int getPendingCount() {
+        return pendingMessages == null ? 0 : pendingMessages.size();
+    }
 
+    @Override
+    public boolean isConnected() {
+        Session current = session;
+        return current != null && current.isOpen();
+    }
+
+    private void recordSetup(ProxyMessage message) {
+        if ("topic".equals(message.getType())
+                && ("create".equals(message.getAction()) || "subscribe".equals(message.getAction()))) {
+            setupMessages.add(message);
+        }
+    }
+
+    private CompletableFuture<ProxyMessage> track(ProxyMessage message) {
         CompletableFuture<ProxyMessage> future = new CompletableFuture<>();
-        futureMap.put(message.getId(), future);
-        logger.debug("Message {} was sent", message);
+        Session current = session;
+        if (current == null || !current.isOpen()) {
+            logger.warn("Message {} was not sent, connection to proxy is not available", message.getId());
+            future.completeExceptionally(new HiveException("Connection to proxy is not available"));
+            return future;
+        }
+        PendingMessage pending = new PendingMessage(this, message.getId(), future);
+        pendingMessages.put(message.getId(), pending);
+        timeouts.schedule(pending, System.currentTimeMillis() + webSocketKafkaProxyConfig.getResponseTimeoutMs());
+        write(current, message);
         return future;
     }
 
+    private void write(Session current, ProxyMessage message) {
+        if (batcher != null) {
+            batcher.offer(message);
+        } else {
+            sendText(current, GsonProxyMessageEncoder.encode(message, rawJson), 1);
+        }
+        logger.debug("Message {} was sent", message);
+    }
+
+    private void sendFrame(List<ProxyMessage> messages) {
+        Session current = session;
+        if (current == null || !current.isOpen()) {
+            messages.forEach(message -> fail(message.getId(), "Connection to proxy closed before message was sent"));
+            return;
+        }
+        if (messages.size() == 1) {
+            sendText(current, GsonProxyMessageEncoder.encode(messages.get(0), rawJson), 1);
+        } else {
+            sendText(current, GsonProxyMessageEncoder.encode(messages, rawJson), messages.size());
+        }
+    }
+
+    private void sendText(Session current, String frame, int messages) {
+        current.getAsyncRemote().sendText(frame);
+        ProxyClientStats.frameSent(messages, frame.length(), rawJson);
+    }
+
+    private void negotiateRawJson() {
+        if (!webSocketKafkaProxyConfig.isRawJsonEnabled()) {
+            return;
+        }
+        track(ProxyMessageBuilder.health()).thenAccept(reply -> {
+            HealthPayload health = reply.getPayload() instanceof HealthPayload ? (HealthPayload) reply.getPayload() : null;
+            rawJson = health != null && health.getFeatures() != null
+                    && health.getFeatures().contains(GsonProxyMessageEncoder.RAW_JSON);
+            logger.info("Proxy {} notification messages as raw JSON", rawJson ? "accepts" : "does not accept");
+        });
+    }
+
+    private void fail(String id, String reason) {
+        PendingMessage pending = pendingMessages.remove(id);
+        if (pending != null) {
+            pending.future.completeExceptionally(new HiveException(reason));
+        }
+    }
+
+    private static void onTimeout(PendingMessage pending) {
+        // the timeout of a message that got its response in time can't be cancelled, it's ignored here
+        if (pending.client.pendingMessages.remove(pending.id, pending)) {
+            ProxyClientStats.responseExpired();
+            pending.future.completeExceptionally(new HiveException("No response from proxy for message " + pending.id));
+        }
+    }
+
+    private void connect() throws Exception {
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        this.session = container.connectToServer(this, new URI("ws://" + webSocketKafkaProxyConfig.getProxyConnect()));
+    }
+
+    private void scheduleReconnect(long delayMs) {
+        reconnector.schedule(() -> reconnect(delayMs), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void reconnect(long delayMs) {
+        if (closing) {
+            return;
+        }
+        try {
+            connect();
+        } catch (Exception e) {
+            long nextDelayMs = Math.min(delayMs * 2, webSocketKafkaProxyConfig.getReconnectBackoffMaxMs());
+            ProxyClientStats.reconnectFailed();
+            logger.warn("Reconnect to proxy failed, next attempt in {} ms: {}", nextDelayMs, e.getMessage());
+            scheduleReconnect(nextDelayMs);
+            return;
+        }
+        ProxyClientStats.reconnected();
+        negotiateRawJson();
+        logger.info("Reconnected to proxy, restoring {} topic subscriptions", setupMessages.size());
+        setupMessages.forEach(message -> track(message).exceptionally(ex -> {
+            logger.error("Failed to restore topic subscription {}", message, ex);
+            return null;
+        }));
+    }
+
     @OnOpen
     public void onOpen(Session session) {
         this.session = session;
@@ -96,11 +266,14 @@ public class WebSocketKafkaProxyClient extends ProxyClient {
 
     @OnClose
     public void onClose(Session userSession, CloseReason reason) {
-        logger.info("WebSocket session {} closed, close code {}", session.getId(), reason.getCloseCode());
-        this.session = null;
-        futureMap.clear();
-        if (webSocketKafkaProxyConfig.getAckEnable()) {
-            ackReceived.clear();
+        logger.info("WebSocket session {} closed, close code {}", userSession.getId(), reason.getCloseCode());
+        if (userSession == session) {
+            this.session = null;
+            this.rawJson = false;
+        }
+        pendingMessages.keySet().forEach(id -> fail(id, "Connection to proxy closed"));
+        if (!closing) {
+            scheduleReconnect(webSocketKafkaProxyConfig.getReconnectBackoffMs());
         }
     }
 
@@ -116,22 +289,20 @@ public class WebSocketKafkaProxyClient extends ProxyClient {
 
             String id = message.getId();
             if (id != null) {
-                CompletableFuture<ProxyMessage> future = futureMap.get(id);
-                if (future != null) {
+                PendingMessage pending = pendingMessages.get(id);
+                if (pending != null) {
                     if (webSocketKafkaProxyConfig.getAckEnable() && "ack".equals(message.getType())) {
                         if (message.getStatus() != 0) {
                             throw new HiveException("Acknowledgement failed for request id " + id);
                         }
-                        ackReceived.put(id, true);
+                        pending.acknowledged = true;
                         logger.debug("Acknowledgement message {} received for request id {}", message, id);
                     } else {
-                        if (webSocketKafkaProxyConfig.getAckEnable() && !ackReceived.getOrDefault(id, false)) {
+                        if (webSocketKafkaProxyConfig.getAckEnable() && !pending.acknowledged) {
                             throw new HiveException("No acknowledgement received for request id " + id);
                         }
-                        future.complete(message);
-                        futureMap.remove(id);
-                        if (webSocketKafkaProxyConfig.getAckEnable()) {
-                            ackReceived.remove(id);
+                        if (pendingMessages.remove(id, pending)) {
+                            pending.future.complete(message);
                         }
                     }
                 }
@@ -139,7 +310,11 @@ public class WebSocketKafkaProxyClient extends ProxyClient {
 
             if ("notif".equals(message.getType()) && message.getAction() == null) {
                 MessagePayload payload = (MessagePayload) message.getPayload();
-                notificationHandler.handle(payload.getMessage(), this);
+                if (payload.getJson() != null) {
+                    notificationHandler.handle(payload.getJson(), this);
+                } else {
+                    notificationHandler.handle(payload.getMessage(), this);
+                }
             }
             logger.debug("Message {} was received", message);
         });
@@ -148,4 +323,17 @@ public class WebSocketKafkaProxyClient extends ProxyClient {
     public void setWebSocketKafkaProxyConfig(WebSocketKafkaProxyConfig webSocketKafkaProxyConfig) {
         this.webSocketKafkaProxyConfig = webSocketKafkaProxyConfig;
     }
+
+    private static class PendingMessage {
+        private final WebSocketKafkaProxyClient client;
+        private final String id;
+        private final CompletableFuture<ProxyMessage> future;
+        private volatile boolean acknowledged;
+
+        private PendingMessage(WebSocketKafkaProxyClient client, String id, CompletableFuture<ProxyMessage> future) {
+            this.client = client;
+            this.id = id;
+            this.future = future;
+        }
+    }
 }
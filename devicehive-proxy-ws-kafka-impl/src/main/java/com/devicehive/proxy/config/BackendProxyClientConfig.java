@@ -21,6 +21,9 @@ package com.devicehive.proxy.config;
  */
 
 import com.devicehive.api.HandlersMapper;
+import com.devicehive.api.PartitionedWorkerPool;
+import com.devicehive.api.RpcLatencyRecorder;
+import com.devicehive.api.ServerEventWorkers;
 import com.devicehive.model.ServerEvent;
 import com.devicehive.model.eventbus.FilterRegistry;
 import com.devicehive.proxy.ProxyMessageDispatcher;
@@ -58,22 +61,31 @@ public class BackendProxyClientConfig {
     private WebSocketKafkaProxyConfig proxyConfig;
 
     @Bean
-    public WorkerPool<ServerEvent> workerPool(Gson gson, WebSocketKafkaProxyConfig proxyConfig, HandlersMapper requestHandlersMapper) {
+    public RpcLatencyRecorder rpcServerLatencyRecorder() {
+        return new RpcLatencyRecorder();
+    }
+
+    @Bean
+    public ServerEventWorkers serverEventWorkers(Gson gson, WebSocketKafkaProxyConfig proxyConfig, HandlersMapper requestHandlersMapper,
+                                                 RpcLatencyRecorder latencyRecorder) {
         final ProxyServerEventHandler[] workHandlers = new ProxyServerEventHandler[proxyConfig.getWorkerThreads()];
         IntStream.range(0, proxyConfig.getWorkerThreads()).forEach(
-                nbr -> workHandlers[nbr] = new ProxyServerEventHandler(gson, proxyConfig, requestHandlersMapper)
+                nbr -> workHandlers[nbr] = new ProxyServerEventHandler(gson, proxyConfig, requestHandlersMapper, latencyRecorder)
         );
         final RingBuffer<ServerEvent> ringBuffer = RingBuffer.createMultiProducer(ServerEvent::new, proxyConfig.getBufferSize(), getWaitStrategy());
+        if (proxyConfig.isPartitionAffinity()) {
+            return new PartitionedWorkerPool(ringBuffer, workHandlers);
+        }
         final SequenceBarrier barrier = ringBuffer.newBarrier();
         WorkerPool<ServerEvent> workerPool = new WorkerPool<>(ringBuffer, barrier, new FatalExceptionHandler(), workHandlers);
         ringBuffer.addGatingSequences(workerPool.getWorkerSequences());
-        return workerPool;
+        return ServerEventWorkers.pooled(workerPool);
     }
 
     @Bean
-    public NotificationHandler notificationHandler(Gson gson, WorkerPool<ServerEvent> workerPool) {
+    public NotificationHandler notificationHandler(Gson gson, ServerEventWorkers serverEventWorkers) {
         final ExecutorService execService = Executors.newFixedThreadPool(proxyConfig.getWorkerThreads());
-        RingBuffer<ServerEvent> ringBuffer = workerPool.start(execService);
+        RingBuffer<ServerEvent> ringBuffer = serverEventWorkers.start(execService);
         return new ProxyRequestHandler(gson, ringBuffer);
     }
 
@@ -20,7 +20,9 @@ package com.devicehive.proxy.config;
  * #L%
  */
 
+import com.devicehive.api.InFlightLimiter;
 import com.devicehive.api.RequestResponseMatcher;
+import com.devicehive.api.RpcLatencyRecorder;
 import com.devicehive.model.ServerEvent;
 import com.devicehive.proxy.FrontendProxyClient;
 import com.devicehive.proxy.ProxyResponseHandler;
@@ -77,9 +79,35 @@ public class FrontendProxyClientConfig {
         }
     }
 
+    @Value("${rpc.client.request.timeout.ms:60000}")
+    private long requestTimeoutMs;
+
+    @Value("${rpc.client.stream.idle-timeout.ms:300000}")
+    private long streamIdleTimeoutMs;
+
+    @Value("${rpc.client.callback.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int callbackThreads;
+
+    @Value("${rpc.client.callback.queue-capacity:1024}")
+    private int callbackQueueCapacity;
+
+    @Value("${rpc.client.in-flight.max:0}")
+    private int maxInFlight;
+
+    @Value("${rpc.client.in-flight.per-action:}")
+    private String actionInFlightLimits;
+
+    @Value("${rpc.client.timing.enabled:true}")
+    private boolean timingEnabled;
+
     @Bean
     public RequestResponseMatcher requestResponseMatcher() {
-        return new RequestResponseMatcher();
+        RequestResponseMatcher matcher = new RequestResponseMatcher(requestTimeoutMs, streamIdleTimeoutMs, callbackThreads, callbackQueueCapacity);
+        matcher.setInFlightLimiter(new InFlightLimiter(maxInFlight, actionInFlightLimits));
+        if (timingEnabled) {
+            matcher.setLatencyRecorder(new RpcLatencyRecorder());
+        }
+        return matcher;
     }
 
     @Bean
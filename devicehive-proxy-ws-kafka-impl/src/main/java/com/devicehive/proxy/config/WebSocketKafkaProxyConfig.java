@@ -40,6 +40,9 @@ public class WebSocketKafkaProxyConfig {
     @Value("${proxy.worker.threads:3}")
     private int workerThreads;
 
+    @Value("${proxy.worker.partition-affinity:false}")
+    private boolean partitionAffinity;
+
     @Value("${lmax.buffer-size:1024}")
     private int bufferSize;
 
@@ -49,6 +52,30 @@ public class WebSocketKafkaProxyConfig {
     @Value("${proxy.ack.enable:false}")
     private boolean ackEnable;
 
+    @Value("${proxy.subscription.bootstrap.timeout.ms:10000}")
+    private long subscriptionBootstrapTimeoutMs;
+
+    @Value("${proxy.batch.linger.ms:0}")
+    private long batchLingerMs;
+
+    @Value("${proxy.batch.max-size:100}")
+    private int batchMaxSize;
+
+    @Value("${proxy.response.timeout.ms:30000}")
+    private long responseTimeoutMs;
+
+    @Value("${proxy.raw-json.enabled:true}")
+    private boolean rawJsonEnabled;
+
+    @Value("${proxy.pool.size:1}")
+    private int poolSize;
+
+    @Value("${proxy.reconnect.backoff.ms:500}")
+    private long reconnectBackoffMs;
+
+    @Value("${proxy.reconnect.backoff.max.ms:30000}")
+    private long reconnectBackoffMaxMs;
+
     public String getProxyConnect() {
         return proxyConnect;
     }
@@ -65,6 +92,10 @@ public class WebSocketKafkaProxyConfig {
         return workerThreads;
     }
 
+    public boolean isPartitionAffinity() {
+        return partitionAffinity;
+    }
+
     public int getBufferSize() {
         return bufferSize;
     }
@@ -76,4 +107,36 @@ public class WebSocketKafkaProxyConfig {
     public boolean getAckEnable() {
         return ackEnable;
     }
+
+    public long getSubscriptionBootstrapTimeoutMs() {
+        return subscriptionBootstrapTimeoutMs;
+    }
+
+    public long getBatchLingerMs() {
+        return batchLingerMs;
+    }
+
+    public int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    public long getResponseTimeoutMs() {
+        return responseTimeoutMs;
+    }
+
+    public boolean isRawJsonEnabled() {
+        return rawJsonEnabled;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public long getReconnectBackoffMs() {
+        return reconnectBackoffMs;
+    }
+
+    public long getReconnectBackoffMaxMs() {
+        return reconnectBackoffMaxMs;
+    }
 }
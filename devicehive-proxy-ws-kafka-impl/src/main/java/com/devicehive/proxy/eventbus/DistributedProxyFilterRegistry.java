@@ -25,60 +25,123 @@ import com.devicehive.model.eventbus.Filter;
 import com.devicehive.model.eventbus.FilterRegistry;
 import com.devicehive.model.eventbus.SubscribeMessage;
 import com.devicehive.model.eventbus.Subscriber;
+import com.devicehive.proxy.api.ProxyClient;
+import com.devicehive.proxy.api.ProxyMessage;
 import com.devicehive.proxy.api.ProxyMessageBuilder;
 import com.devicehive.proxy.api.payload.MessagePayload;
 import com.devicehive.proxy.api.payload.NotificationCreatePayload;
 import com.devicehive.proxy.api.payload.SubscribePayload;
-import com.devicehive.proxy.client.WebSocketKafkaProxyClient;
+import com.devicehive.proxy.client.ProxyClientPool;
 import com.devicehive.proxy.config.WebSocketKafkaProxyConfig;
 import com.google.gson.Gson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.devicehive.configuration.Constants.SUBSCRIPTION_TOPIC;
-import static com.devicehive.model.eventbus.SubscribeAction.REGISTER;
-import static com.devicehive.model.eventbus.SubscribeAction.UNREGISTER;
+import static com.devicehive.model.eventbus.SubscribeAction.*;
 
+/**
+ * Filter registry replicated through the WS proxy. Proxy topics can't be read from the beginning, so a starting
+ * node asks its peers for registry state and loads the SNAPSHOT messages addressed to it.
+ */
 public class DistributedProxyFilterRegistry extends FilterRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(DistributedProxyFilterRegistry.class);
+
+    private static final int SNAPSHOT_CHUNK_SIZE = 1000;
 
     private final Gson gson;
+    private final String nodeId = UUID.randomUUID().toString();
 
-    private final WebSocketKafkaProxyClient proxyClient; // todo: fault tolerance, synchronisation, lifetime of kafka topic (log.retention)
+    private final ProxyClient proxyClient;
+    private final ScheduledExecutorService bootstrapTimer = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicInteger loadedEntries = new AtomicInteger();
+    private final long bootstrapStartTime;
+    private volatile boolean bootstrapped;
 
     public DistributedProxyFilterRegistry(Gson gson, WebSocketKafkaProxyConfig proxyConfig) {
         this.gson = gson;
-        this.proxyClient = new WebSocketKafkaProxyClient((message, proxyClient) -> handleSubscriptionMessage(message, gson));
-        proxyClient.setWebSocketKafkaProxyConfig(proxyConfig);
+        this.proxyClient = new ProxyClientPool((message, proxyClient) -> handleSubscriptionMessage(message, gson), proxyConfig);
         proxyClient.start();
-        proxyClient.push(ProxyMessageBuilder.subscribe(new SubscribePayload(SUBSCRIPTION_TOPIC, "fr-" + UUID.randomUUID()))).thenAccept(message -> {
-            if (message.getStatus() == null || message.getStatus() != 0) {
-                MessagePayload payload = (MessagePayload) message.getPayload();
-                throw new HiveException("Response message is failed: " + payload.getMessage());
-            }
-        });
+        push(ProxyMessageBuilder.subscribe(new SubscribePayload(SUBSCRIPTION_TOPIC, "fr-" + nodeId)));
+
+        this.bootstrapStartTime = System.currentTimeMillis();
+        publish(new SubscribeMessage(SNAPSHOT_REQUEST, nodeId, null, false));
+        bootstrapTimer.schedule(() -> completeBootstrap("no snapshot received"),
+                proxyConfig.getSubscriptionBootstrapTimeoutMs(), TimeUnit.MILLISECONDS);
+        bootstrapTimer.shutdown();
     }
 
     @Override
     public void register(Filter filter, Subscriber subscriber) {
         processRegister(filter, subscriber);
-
-        String subscribeMessage = gson.toJson(new SubscribeMessage(REGISTER, filter, subscriber));
-        proxyClient.push(ProxyMessageBuilder.notification(
-                new NotificationCreatePayload(SUBSCRIPTION_TOPIC, subscribeMessage))).thenAccept(message -> {
-            if (message.getStatus() == null || message.getStatus() != 0) {
-                MessagePayload payload = (MessagePayload) message.getPayload();
-                throw new HiveException("Response message is failed: " + payload.getMessage());
-            }
-        });
+        publish(new SubscribeMessage(REGISTER, filter, subscriber));
     }
 
     @Override
     public void unregister(Subscriber subscriber) {
         processUnregister(subscriber);
+        publish(new SubscribeMessage(UNREGISTER, subscriber));
+    }
+
+    @Override
+    public void renew(String replyTo) {
+        long renewedAt = System.currentTimeMillis();
+        processRenew(replyTo, renewedAt);
+        publish(new SubscribeMessage(RENEW, replyTo, renewedAt));
+    }
+
+    @Override
+    protected void processSnapshotRequest(SubscribeMessage request) {
+        if (!bootstrapped || nodeId.equals(request.getNode())) {
+            return;
+        }
+        List<SubscribeMessage> chunk = new ArrayList<>(SNAPSHOT_CHUNK_SIZE);
+        for (Long subscriptionId : getSubscriptionIds()) {
+            chunk.addAll(getRegistrations(subscriptionId));
+            if (chunk.size() >= SNAPSHOT_CHUNK_SIZE) {
+                publish(new SubscribeMessage(SNAPSHOT, request.getNode(), chunk, false));
+                chunk = new ArrayList<>(SNAPSHOT_CHUNK_SIZE);
+            }
+        }
+        publish(new SubscribeMessage(SNAPSHOT, request.getNode(), chunk, true));
+    }
+
+    @Override
+    protected synchronized void processSnapshot(SubscribeMessage snapshot) {
+        if (bootstrapped || !nodeId.equals(snapshot.getNode())) {
+            return;
+        }
+        if (snapshot.getEntries() != null) {
+            snapshot.getEntries().forEach(entry -> processRegister(entry.getFilter(), entry.getSubscriber()));
+            loadedEntries.addAndGet(snapshot.getEntries().size());
+        }
+        if (snapshot.isLast()) {
+            completeBootstrap("snapshot received");
+        }
+    }
+
+    private synchronized void completeBootstrap(String reason) {
+        if (bootstrapped) {
+            return;
+        }
+        bootstrapped = true;
+        bootstrapCompleted(bootstrapStartTime, loadedEntries.get());
+        logger.info("Filter registry bootstrap completed ({}): {} snapshot entries loaded in {} ms",
+                reason, getBootstrapEntries(), getBootstrapTime());
+    }
+
+    private void publish(SubscribeMessage subscribeMessage) {
+        push(ProxyMessageBuilder.notification(new NotificationCreatePayload(SUBSCRIPTION_TOPIC, gson.toJson(subscribeMessage))));
+    }
 
-        String subscribeMessage = gson.toJson(new SubscribeMessage(UNREGISTER, subscriber));
-        proxyClient.push(ProxyMessageBuilder.notification(
-                new NotificationCreatePayload(SUBSCRIPTION_TOPIC, subscribeMessage))).thenAccept(message -> {
+    private void push(ProxyMessage proxyMessage) {
+        proxyClient.push(proxyMessage).thenAccept(message -> {
             if (message.getStatus() == null || message.getStatus() != 0) {
                 MessagePayload payload = (MessagePayload) message.getPayload();
                 throw new HiveException("Response message is failed: " + payload.getMessage());
@@ -0,0 +1,107 @@
+package com.devicehive.proxy.client;
+
+/*
+ * #%L
+ * DeviceHive Proxy WebSocket Kafka Implementation
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.proxy.api.ProxyMessage;
+import com.devicehive.proxy.api.payload.HealthPayload;
+import com.devicehive.proxy.api.payload.MessagePayload;
+import com.devicehive.proxy.api.payload.SubscribePayload;
+import com.devicehive.proxy.api.payload.TopicsPayload;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+public class GsonProxyMessageDecoderTest {
+
+    private final GsonProxyMessageDecoder decoder = new GsonProxyMessageDecoder();
+
+    @Test
+    public void shouldDecodeTopicPayloadInAnyFieldOrder() throws Exception {
+        assertInAnyOrder(Arrays.asList("\"id\":\"1\"", "\"t\":\"topic\"", "\"a\":\"create\"", "\"s\":0",
+                "\"p\":{\"t\":[\"request_topic\",\"response_topic\"]}"), message -> {
+            assertEquals("create", message.getAction());
+            assertEquals(Arrays.asList("request_topic", "response_topic"),
+                    ((TopicsPayload) message.getPayload()).getTopics());
+        });
+        assertInAnyOrder(Arrays.asList("\"id\":\"2\"", "\"t\":\"topic\"", "\"a\":\"subscribe\"", "\"s\":0",
+                "\"p\":{\"t\":[\"request_topic\"],\"sg\":\"request_group\"}"), message -> {
+            SubscribePayload payload = (SubscribePayload) message.getPayload();
+            assertEquals(Collections.singletonList("request_topic"), payload.getTopics());
+            assertEquals("request_group", payload.getSubscriptionGroup());
+        });
+    }
+
+    @Test
+    public void shouldDecodeNotificationPayloadInAnyFieldOrder() throws Exception {
+        assertInAnyOrder(Arrays.asList("\"t\":\"notif\"", "\"s\":0", "\"p\":{\"m\":\"{\\\"b\\\":1}\"}"), message ->
+                assertEquals("{\"b\":1}", ((MessagePayload) message.getPayload()).getMessage()));
+        assertInAnyOrder(Arrays.asList("\"t\":\"notif\"", "\"s\":0", "\"p\":{\"m\":{\"b\":1}}"), message -> {
+            MessagePayload payload = (MessagePayload) message.getPayload();
+            assertEquals(1, payload.getJson().getAsJsonObject().get("b").getAsInt());
+        });
+        assertInAnyOrder(Arrays.asList("\"id\":\"3\"", "\"t\":\"notif\"", "\"a\":\"create\"", "\"s\":0",
+                "\"p\":{\"m\":\"ignored\"}"), message -> assertNull(message.getPayload()));
+    }
+
+    @Test
+    public void shouldDecodeErrorAndHealthPayloadInAnyFieldOrder() throws Exception {
+        assertInAnyOrder(Arrays.asList("\"id\":\"4\"", "\"t\":\"topic\"", "\"a\":\"create\"", "\"s\":1",
+                "\"p\":{\"m\":\"failed\"}"), message ->
+                assertEquals("failed", ((MessagePayload) message.getPayload()).getMessage()));
+        assertInAnyOrder(Arrays.asList("\"id\":\"5\"", "\"t\":\"health\"", "\"s\":0",
+                "\"p\":{\"prx\":\"Available\",\"feat\":[\"raw-json\"]}"), message -> {
+            HealthPayload payload = (HealthPayload) message.getPayload();
+            assertEquals("Available", payload.getProxyStatus());
+            assertEquals(Collections.singletonList("raw-json"), payload.getFeatures());
+        });
+    }
+
+    private void assertInAnyOrder(List<String> fields, Consumer<ProxyMessage> assertion) throws Exception {
+        List<String> frames = new ArrayList<>();
+        permute(new ArrayList<>(fields), 0, frames);
+        for (String frame : frames) {
+            List<ProxyMessage> messages = decoder.decode(frame);
+            assertEquals(frame, 1, messages.size());
+            assertion.accept(messages.get(0));
+        }
+        List<ProxyMessage> batch = decoder.decode("[" + String.join(",", frames) + "]");
+        assertEquals(frames.size(), batch.size());
+        batch.forEach(assertion);
+    }
+
+    private static void permute(List<String> fields, int from, List<String> frames) {
+        if (from == fields.size()) {
+            frames.add("{" + String.join(",", fields) + "}");
+            return;
+        }
+        for (int i = from; i < fields.size(); i++) {
+            Collections.swap(fields, from, i);
+            permute(fields, from + 1, frames);
+            Collections.swap(fields, from, i);
+        }
+    }
+}
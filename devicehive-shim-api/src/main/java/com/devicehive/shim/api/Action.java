@@ -78,5 +78,8 @@ public enum Action {
     DEVICE_DELETE_REQUEST,
     DEVICE_DELETE_RESPONSE,
 
-    COUNT_RESPONSE
+    COUNT_RESPONSE,
+
+    SUBSCRIPTION_HEARTBEAT_REQUEST,
+    SUBSCRIPTION_HEARTBEAT_RESPONSE
 }
@@ -0,0 +1,65 @@
+package com.devicehive.shim.api;
+
+/*
+ * #%L
+ * DeviceHive Shim  API Interfaces
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.function.Supplier;
+
+/**
+ * Body of a received message that is decoded on first access. The action is read with the envelope,
+ * so a message can be routed or dropped without decoding its body.
+ */
+public final class DeferredBody {
+
+    private final Action action;
+    private Supplier<Body> decoder;
+    private volatile Body body;
+
+    public DeferredBody(Action action, Supplier<Body> decoder) {
+        this.action = action;
+        this.decoder = decoder;
+    }
+
+    /**
+     * @return action of the body, null if the sender uses an action unknown to this node
+     */
+    public Action getAction() {
+        return action;
+    }
+
+    public Body get() {
+        Body result = body;
+        if (result == null) {
+            synchronized (this) {
+                result = body;
+                if (result == null) {
+                    result = decoder.get();
+                    body = result;
+                    decoder = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    public boolean isDecoded() {
+        return body != null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.devicehive.shim.api;
+
+/*
+ * #%L
+ * DeviceHive Shim  API Interfaces
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Body that was already serialized to JSON. Lets the same event be written into several responses
+ * without reflecting over it again. The JSON is written as is, receivers see the original body.
+ */
+public class EncodedBody extends Body {
+
+    private final transient Body body;
+    private final transient String json;
+
+    public EncodedBody(Body body, String json) {
+        super(body.getAction());
+        this.body = body;
+        this.json = json;
+    }
+
+    /**
+     * @return original body, this one was encoded from
+     */
+    public Body getBody() {
+        return body;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return "EncodedBody{" +
+                "body=" + body +
+                '}';
+    }
+}
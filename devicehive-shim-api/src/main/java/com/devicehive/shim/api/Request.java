@@ -48,6 +48,14 @@ public class Request {
     @SerializedName("t")
     private int type;
 
+    /**
+     * Optional stamps measuring where time goes, null if the sender does not take them
+     */
+    @SerializedName("ts")
+    private Timings timings;
+
+    private transient DeferredBody deferredBody;
+
     private Request(Body body,
                     boolean singleReplyExpected,
                     String correlationId,
@@ -59,10 +67,26 @@ public class Request {
         this.type = clientRequest.ordinal();
     }
 
+    /**
+     * @return body of the request, a received body is decoded on first call
+     */
     public Body getBody() {
+        if (body == null && deferredBody != null) {
+            body = deferredBody.get();
+        }
         return body;
     }
 
+    /**
+     * @return action of the body without decoding it, null if there is no body
+     */
+    public Action getAction() {
+        if (body != null) {
+            return body.getAction();
+        }
+        return deferredBody != null ? deferredBody.getAction() : null;
+    }
+
     public String getReplyTo() {
         return replyTo;
     }
@@ -71,6 +95,14 @@ public class Request {
         this.replyTo = replyTo;
     }
 
+    public Timings getTimings() {
+        return timings;
+    }
+
+    public void setTimings(Timings timings) {
+        this.timings = timings;
+    }
+
     public String getCorrelationId() {
         return correlationId;
     }
@@ -97,7 +129,7 @@ public class Request {
         if (!(o instanceof Request)) return false;
         Request request = (Request) o;
         return singleReplyExpected == request.singleReplyExpected &&
-                Objects.equals(body, request.body) &&
+                Objects.equals(getBody(), request.getBody()) &&
                 Objects.equals(correlationId, request.correlationId) &&
                 Objects.equals(partitionKey, request.partitionKey) &&
                 Objects.equals(replyTo, request.replyTo);
@@ -105,13 +137,13 @@ public class Request {
 
     @Override
     public int hashCode() {
-        return Objects.hash(body, correlationId, singleReplyExpected, replyTo);
+        return Objects.hash(getBody(), correlationId, singleReplyExpected, replyTo);
     }
 
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("Request{");
-        sb.append(", body=").append(body);
+        sb.append(", body=").append(getBody());
         sb.append(", correlationId='").append(correlationId).append('\'');
         sb.append(", singleReplyExpected=").append(singleReplyExpected);
         sb.append(", partitionKey=").append(partitionKey);
@@ -126,7 +158,8 @@ public class Request {
 
     public static class Builder<T extends Body> {
         private T body;
-        private String correlationId = UUID.randomUUID().toString();
+        private DeferredBody deferredBody;
+        private String correlationId;
         private boolean singleReply = true;
         private String partitionKey;
 
@@ -135,6 +168,22 @@ public class Request {
             return this;
         }
 
+        /**
+         * Sets body of a received request that is decoded when it is first accessed
+         */
+        public Builder<T> withDeferredBody(DeferredBody deferredBody) {
+            this.deferredBody = deferredBody;
+            return this;
+        }
+
+        /**
+         * Sets correlation id of a request that is being restored, a random one is generated otherwise
+         */
+        public Builder<T> withCorrelationId(String correlationId) {
+            this.correlationId = correlationId;
+            return this;
+        }
+
         public Builder<T> withSingleReply(boolean singleReply) {
             this.singleReply = singleReply;
             return this;
@@ -146,13 +195,18 @@ public class Request {
         }
 
         public Request build() {
-            return new Request(
+            if (correlationId == null) {
+                correlationId = UUID.randomUUID().toString();
+            }
+            Request request = new Request(
                     body, singleReply,
                     correlationId,
                     StringUtils.isBlank(partitionKey) // partitionKey is optional, set value to correlationId if it's blank
                             ? correlationId
                             : partitionKey
             );
+            request.deferredBody = deferredBody;
+            return request;
         }
 
     }
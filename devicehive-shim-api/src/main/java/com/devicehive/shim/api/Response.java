@@ -22,6 +22,7 @@ package com.devicehive.shim.api;
 
 import com.google.gson.annotations.SerializedName;
 
+import java.util.List;
 import java.util.Objects;
 
 @SuppressWarnings("unused")
@@ -33,6 +34,12 @@ public class Response {
     @SerializedName("cId")
     private String correlationId;
 
+    /**
+     * Correlation ids of all recipients of a batched response, {@code correlationId} is not set in this case.
+     */
+    @SerializedName("cIds")
+    private List<String> correlationIds;
+
     @SerializedName("l")
     private boolean last;
 
@@ -42,22 +49,63 @@ public class Response {
     @SerializedName("fld")
     private boolean failed;
 
-    private Response(Body body, String correlationId, boolean last, int errorCode, boolean failed) {
+    /**
+     * Optional stamps measuring where time goes, null if the sender does not take them
+     */
+    @SerializedName("ts")
+    private Timings timings;
+
+    private transient DeferredBody deferredBody;
+
+    private Response(Body body, String correlationId, List<String> correlationIds, boolean last, int errorCode, boolean failed) {
         this.body = body;
         this.correlationId = correlationId;
+        this.correlationIds = correlationIds;
         this.last = last;
         this.errorCode = errorCode;
         this.failed = failed;
     }
 
+    /**
+     * @return body of the response, a received body is decoded on first call
+     */
     public Body getBody() {
+        if (body == null && deferredBody != null) {
+            body = deferredBody.get();
+        }
         return body;
     }
 
+    /**
+     * @return action of the body without decoding it, null if there is no body
+     */
+    public Action getAction() {
+        if (body != null) {
+            return body.getAction();
+        }
+        return deferredBody != null ? deferredBody.getAction() : null;
+    }
+
+    public Timings getTimings() {
+        return timings;
+    }
+
+    public void setTimings(Timings timings) {
+        this.timings = timings;
+    }
+
     public String getCorrelationId() {
         return correlationId;
     }
 
+    public List<String> getCorrelationIds() {
+        return correlationIds;
+    }
+
+    public boolean isBatch() {
+        return correlationIds != null;
+    }
+
     public boolean isLast() {
         return last;
     }
@@ -74,6 +122,16 @@ public class Response {
         this.correlationId = correlationId;
     }
 
+    /**
+     * @return copy of a batched response addressed to one of its recipients, the body is shared and decoded once
+     */
+    public Response unpack(String correlationId) {
+        Response response = new Response(body, correlationId, null, last, errorCode, failed);
+        response.deferredBody = deferredBody;
+        response.timings = timings;
+        return response;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -82,20 +140,22 @@ public class Response {
         return last == response.last &&
                 errorCode == response.errorCode &&
                 failed == response.failed &&
-                Objects.equals(body, response.body) &&
-                Objects.equals(correlationId, response.correlationId);
+                Objects.equals(getBody(), response.getBody()) &&
+                Objects.equals(correlationId, response.correlationId) &&
+                Objects.equals(correlationIds, response.correlationIds);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(body, correlationId, last, errorCode, failed);
+        return Objects.hash(getBody(), correlationId, correlationIds, last, errorCode, failed);
     }
 
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("Response{");
-        sb.append(", body=").append(body);
+        sb.append(", body=").append(getBody());
         sb.append(", correlationId='").append(correlationId).append('\'');
+        sb.append(", correlationIds=").append(correlationIds);
         sb.append(", last=").append(last);
         sb.append(", errorCode=").append(errorCode);
         sb.append(", failed=").append(failed);
@@ -109,30 +169,51 @@ public class Response {
 
     public static class Builder<T extends Body> {
         private T body;
+        private DeferredBody deferredBody;
         private boolean last = true;
         private String correlationId;
+        private List<String> correlationIds;
 
         public Builder<T> withBody(T body) {
             this.body = body;
             return this;
         }
 
+        /**
+         * Sets body of a received response that is decoded when it is first accessed
+         */
+        public Builder<T> withDeferredBody(DeferredBody deferredBody) {
+            this.deferredBody = deferredBody;
+            return this;
+        }
+
         public Builder<T> withCorrelationId(String correlationId) {
             this.correlationId = correlationId;
             return this;
         }
 
+        public Builder<T> withCorrelationIds(List<String> correlationIds) {
+            this.correlationIds = correlationIds;
+            return this;
+        }
+
         public Builder<T> withLast(boolean last) {
             this.last = last;
             return this;
         }
 
         public Response buildFailed(int errorCode) {
-            return new Response(body, correlationId, last, errorCode, true);
+            return build(errorCode, true);
         }
 
         public Response buildSuccess() {
-            return new Response(body, correlationId, last, 0, false);
+            return build(0, false);
+        }
+
+        private Response build(int errorCode, boolean failed) {
+            Response response = new Response(body, correlationId, correlationIds, last, errorCode, failed);
+            response.deferredBody = deferredBody;
+            return response;
         }
 
     }
@@ -0,0 +1,113 @@
+package com.devicehive.shim.api;
+
+/*
+ * #%L
+ * DeviceHive Shim  API Interfaces
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Wall clock stamps, in milliseconds, taken along the way of a request and its response. Stamps not taken
+ * are 0. Stamps of different nodes are only as comparable as their clocks are synchronized.
+ */
+public class Timings {
+
+    @SerializedName("cs")
+    private long clientSend;
+
+    @SerializedName("sr")
+    private long serverReceive;
+
+    @SerializedName("hs")
+    private long handlerStart;
+
+    @SerializedName("he")
+    private long handlerEnd;
+
+    @SerializedName("ss")
+    private long serverSend;
+
+    public Timings() {
+    }
+
+    public Timings(long clientSend, long serverReceive, long handlerStart, long handlerEnd, long serverSend) {
+        this.clientSend = clientSend;
+        this.serverReceive = serverReceive;
+        this.handlerStart = handlerStart;
+        this.handlerEnd = handlerEnd;
+        this.serverSend = serverSend;
+    }
+
+    public static Timings sent() {
+        Timings timings = new Timings();
+        timings.clientSend = System.currentTimeMillis();
+        return timings;
+    }
+
+    public Timings copy() {
+        return new Timings(clientSend, serverReceive, handlerStart, handlerEnd, serverSend);
+    }
+
+    public long getClientSend() {
+        return clientSend;
+    }
+
+    public long getServerReceive() {
+        return serverReceive;
+    }
+
+    public void setServerReceive(long serverReceive) {
+        this.serverReceive = serverReceive;
+    }
+
+    public long getHandlerStart() {
+        return handlerStart;
+    }
+
+    public void setHandlerStart(long handlerStart) {
+        this.handlerStart = handlerStart;
+    }
+
+    public long getHandlerEnd() {
+        return handlerEnd;
+    }
+
+    public void setHandlerEnd(long handlerEnd) {
+        this.handlerEnd = handlerEnd;
+    }
+
+    public long getServerSend() {
+        return serverSend;
+    }
+
+    public void setServerSend(long serverSend) {
+        this.serverSend = serverSend;
+    }
+
+    @Override
+    public String toString() {
+        return "Timings{" +
+                "clientSend=" + clientSend +
+                ", serverReceive=" + serverReceive +
+                ", handlerStart=" + handlerStart +
+                ", handlerEnd=" + handlerEnd +
+                ", serverSend=" + serverSend +
+                '}';
+    }
+}
@@ -0,0 +1,32 @@
+package com.devicehive.shim.api.client;
+
+/*
+ * #%L
+ * DeviceHive Shim  API Interfaces
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * Thrown when a request is rejected without being sent because the client has too many requests in flight.
+ */
+public class ClientOverloadedException extends RuntimeException {
+    private static final long serialVersionUID = 5377390398470622314L;
+
+    public ClientOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -28,8 +28,27 @@ import java.util.function.Consumer;
 
 public interface RpcClient {
 
+    /**
+     * Sends the request and registers callback for its responses.
+     *
+     * @throws ClientOverloadedException if the client has too many requests in flight
+     */
     void call(Request request, Consumer<Response> callback);
 
+    /**
+     * Sends the request unless the client has too many requests in flight, never waits for room.
+     *
+     * @return false if the request was rejected, callback is never invoked in that case
+     */
+    default boolean tryCall(Request request, Consumer<Response> callback) {
+        try {
+            call(request, callback);
+            return true;
+        } catch (ClientOverloadedException e) {
+            return false;
+        }
+    }
+
     void push(Request request);
 
     default void start() { }
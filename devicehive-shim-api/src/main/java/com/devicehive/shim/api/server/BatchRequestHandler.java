@@ -0,0 +1,47 @@
+package com.devicehive.shim.api.server;
+
+/*
+ * #%L
+ * DeviceHive Shim  API Interfaces
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.Response;
+
+import java.util.List;
+
+/**
+ * Request handler able to take all requests of the same action received together, e.g. in one poll of
+ * the request topic, and handle them at once.
+ */
+public interface BatchRequestHandler extends RequestHandler {
+
+    /**
+     * @param requests requests of the same action in order of arrival
+     * @return responses in order of requests
+     */
+    List<Response> handle(List<Request> requests);
+
+    /**
+     * @return whether requests of the action may be passed to {@link #handle(List)}
+     */
+    default boolean isBatchSupported(Action action) {
+        return true;
+    }
+}
@@ -88,6 +88,18 @@ public class KafkaRpcConfig {
     @Value("${rpc.handler.threads:1}")
     private int handlerThreads;
 
+    @Value("${rpc.codec:json}")
+    private String rpcCodec;
+
+    @Value("${subscription.snapshot.interval.ms:5000}")
+    private long subscriptionSnapshotIntervalMs;
+
+    @Value("${subscription.bootstrap.timeout.ms:30000}")
+    private long subscriptionBootstrapTimeoutMs;
+
+    @Value("${subscription.sharding.enabled:false}")
+    private boolean subscriptionShardingEnabled;
+
     public Properties producerProps() {
         Properties props = new Properties();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
@@ -114,6 +126,16 @@ public class KafkaRpcConfig {
         return props;
     }
 
+    /**
+     * Subscription updates are read from the earliest retained offset, so a starting node replays
+     * changes made after the last registry snapshot.
+     */
+    public Properties subscriptionConsumerProps() {
+        Properties props = clientConsumerProps();
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return props;
+    }
+
     public Properties serverConsumerProps() {
         Properties props = commonConsumerProps();
         props.put(ConsumerConfig.GROUP_ID_CONFIG,  requestConsumerGroup);
@@ -126,6 +148,12 @@ public class KafkaRpcConfig {
         return props;
     }
 
+    public Properties compactedTopicProps() {
+        Properties props = new Properties();
+        props.setProperty("cleanup.policy", "compact");
+        return props;
+    }
+
     public int getNumPartitions() {
         return numPartitions;
     }
@@ -149,4 +177,23 @@ public class KafkaRpcConfig {
     public int getHandlerThreads() {
         return handlerThreads;
     }
+
+    /**
+     * @return name of the codec RPC messages are written with, messages are read with any known codec
+     */
+    public String getRpcCodec() {
+        return rpcCodec;
+    }
+
+    public long getSubscriptionSnapshotIntervalMs() {
+        return subscriptionSnapshotIntervalMs;
+    }
+
+    public long getSubscriptionBootstrapTimeoutMs() {
+        return subscriptionBootstrapTimeoutMs;
+    }
+
+    public boolean isSubscriptionShardingEnabled() {
+        return subscriptionShardingEnabled;
+    }
 }
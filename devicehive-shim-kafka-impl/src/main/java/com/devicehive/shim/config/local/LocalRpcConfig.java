@@ -0,0 +1,176 @@
+package com.devicehive.shim.config.local;
+
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.api.InFlightLimiter;
+import com.devicehive.api.PartitionedWorkerPool;
+import com.devicehive.api.RequestResponseMatcher;
+import com.devicehive.api.RpcLatencyRecorder;
+import com.devicehive.api.ServerEventWorkers;
+import com.devicehive.model.ServerEvent;
+import com.devicehive.model.eventbus.FilterRegistry;
+import com.devicehive.shim.api.client.RpcClient;
+import com.devicehive.shim.api.server.RequestHandler;
+import com.devicehive.shim.local.LocalFilterRegistry;
+import com.devicehive.shim.local.LocalRpcClient;
+import com.devicehive.shim.local.LocalRpcServer;
+import com.devicehive.shim.local.LocalServerEventHandler;
+import com.lmax.disruptor.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
+
+import java.util.stream.IntStream;
+
+/**
+ * In-process transport for deployments running frontend and backend in one JVM, replaces both
+ * rpc-client and rpc-server profiles. Requests and responses are passed as objects, nothing goes through Kafka.
+ */
+@Configuration
+@Profile("rpc-local")
+@PropertySource("classpath:kafka.properties")
+public class LocalRpcConfig {
+    private static final Logger logger = LoggerFactory.getLogger(LocalRpcConfig.class);
+
+    @Value("${rpc.server.worker.threads:1}")
+    private int workerThreads;
+
+    @Value("${rpc.server.worker.partition-affinity:false}")
+    private boolean partitionAffinity;
+
+    @Value("${lmax.buffer-size:1024}")
+    private int bufferSize;
+
+    @Value("${lmax.wait.strategy:blocking}")
+    private String waitStrategy;
+
+    @Value("${rpc.client.request.timeout.ms:60000}")
+    private long requestTimeoutMs;
+
+    @Value("${rpc.client.stream.idle-timeout.ms:300000}")
+    private long streamIdleTimeoutMs;
+
+    @Value("${rpc.client.callback.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int callbackThreads;
+
+    @Value("${rpc.client.callback.queue-capacity:1024}")
+    private int callbackQueueCapacity;
+
+    @Value("${rpc.client.in-flight.max:0}")
+    private int maxInFlight;
+
+    @Value("${rpc.client.in-flight.per-action:}")
+    private String actionInFlightLimits;
+
+    @Value("${rpc.client.timing.enabled:true}")
+    private boolean timingEnabled;
+
+    @Bean
+    public RequestResponseMatcher requestResponseMatcher() {
+        RequestResponseMatcher matcher = new RequestResponseMatcher(requestTimeoutMs, streamIdleTimeoutMs, callbackThreads, callbackQueueCapacity);
+        matcher.setInFlightLimiter(new InFlightLimiter(maxInFlight, actionInFlightLimits));
+        if (timingEnabled) {
+            matcher.setLatencyRecorder(new RpcLatencyRecorder());
+        }
+        return matcher;
+    }
+
+    @Bean
+    public RpcLatencyRecorder rpcServerLatencyRecorder() {
+        return new RpcLatencyRecorder();
+    }
+
+    @Bean
+    public LocalServerEventHandler serverEventHandler(@Qualifier("request-dispatcher") RequestHandler requestHandler,
+                                                      RequestResponseMatcher responseMatcher, RpcLatencyRecorder latencyRecorder) {
+        LocalServerEventHandler eventHandler = new LocalServerEventHandler(requestHandler, responseMatcher);
+        eventHandler.setLatencyRecorder(latencyRecorder);
+        return eventHandler;
+    }
+
+    @Bean
+    public ServerEventWorkers serverEventWorkers(@Qualifier("request-dispatcher") RequestHandler requestHandler,
+                                                 RequestResponseMatcher responseMatcher, RpcLatencyRecorder latencyRecorder) {
+        final LocalServerEventHandler[] workHandlers = new LocalServerEventHandler[workerThreads];
+        IntStream.range(0, workerThreads).forEach(nbr -> {
+            workHandlers[nbr] = new LocalServerEventHandler(requestHandler, responseMatcher);
+            workHandlers[nbr].setLatencyRecorder(latencyRecorder);
+        });
+        final RingBuffer<ServerEvent> ringBuffer = RingBuffer.createMultiProducer(ServerEvent::new, bufferSize, getWaitStrategy());
+        if (partitionAffinity) {
+            logger.info("In-process RPC workers keep order of requests per partition key");
+            return new PartitionedWorkerPool(ringBuffer, workHandlers);
+        }
+        final SequenceBarrier barrier = ringBuffer.newBarrier();
+        WorkerPool<ServerEvent> workerPool = new WorkerPool<>(ringBuffer, barrier, new FatalExceptionHandler(), workHandlers);
+        ringBuffer.addGatingSequences(workerPool.getWorkerSequences());
+        return ServerEventWorkers.pooled(workerPool);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public LocalRpcServer rpcServer(ServerEventWorkers serverEventWorkers, LocalServerEventHandler eventHandler) {
+        LocalRpcServer server = new LocalRpcServer(serverEventWorkers, eventHandler, workerThreads);
+        server.start();
+        return server;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public RpcClient rpcClient(LocalRpcServer rpcServer, RequestResponseMatcher responseMatcher) {
+        RpcClient client = new LocalRpcClient(rpcServer, responseMatcher);
+        client.start();
+        return client;
+    }
+
+    @Bean
+    public FilterRegistry filterRegistry() {
+        return new LocalFilterRegistry();
+    }
+
+    private WaitStrategy getWaitStrategy() {
+        logger.info("In-process RPC wait strategy: {}", waitStrategy);
+        WaitStrategy strategy;
+
+        switch (waitStrategy) {
+            case "blocking":
+                strategy = new BlockingWaitStrategy();
+                break;
+            case "sleeping":
+                strategy = new SleepingWaitStrategy();
+                break;
+            case "yielding":
+                strategy = new YieldingWaitStrategy();
+                break;
+            case "busyspin":
+                strategy = new BusySpinWaitStrategy();
+                break;
+            default:
+                strategy = new BlockingWaitStrategy();
+                break;
+        }
+        return strategy;
+    }
+}
@@ -20,8 +20,12 @@ package com.devicehive.shim.config.server;
  * #L%
  */
 
+import com.devicehive.api.PartitionedWorkerPool;
+import com.devicehive.api.RpcLatencyRecorder;
+import com.devicehive.api.ServerEventWorkers;
 import com.devicehive.model.eventbus.FilterRegistry;
 import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.server.BatchRequestHandler;
 import com.devicehive.shim.api.server.RequestHandler;
 import com.devicehive.shim.api.server.RpcServer;
 import com.devicehive.shim.kafka.eventbus.DistributedRpcFilterRegistry;
@@ -35,6 +39,7 @@ import com.devicehive.shim.kafka.server.ServerEventHandler;
 import com.devicehive.shim.kafka.topic.KafkaTopicService;
 import com.google.gson.Gson;
 import com.lmax.disruptor.*;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -50,6 +55,7 @@ import javax.annotation.PostConstruct;
 import java.util.stream.IntStream;
 
 import static com.devicehive.configuration.Constants.REQUEST_TOPIC;
+import static com.devicehive.configuration.Constants.SUBSCRIPTION_SNAPSHOT_TOPIC;
 
 @Configuration
 @Profile("rpc-server")
@@ -73,6 +79,12 @@ public class KafkaRpcServerConfig {
     @Value("${rpc.server.worker.threads:1}")
     private int workerThreads;
 
+    @Value("${rpc.server.worker.partition-affinity:false}")
+    private boolean partitionAffinity;
+
+    @Value("${rpc.server.batch.enabled:true}")
+    private boolean batchEnabled;
+
     @Value("${lmax.buffer-size:1024}")
     private int bufferSize;
 
@@ -82,25 +94,37 @@ public class KafkaRpcServerConfig {
     @PostConstruct
     private void initializeTopics() {
         kafkaTopicService.createTopic(REQUEST_TOPIC);
+        kafkaTopicService.createTopic(SUBSCRIPTION_SNAPSHOT_TOPIC, kafkaRpcConfig.compactedTopicProps());
     }
 
     @Bean(name = "server-producer")
     public Producer<String, Response> kafkaResponseProducer(Gson gson) {
-        return new KafkaProducer<>(kafkaRpcConfig.producerProps(), new StringSerializer(), new ResponseSerializer(gson));
+        return new KafkaProducer<>(kafkaRpcConfig.producerProps(), new StringSerializer(), new ResponseSerializer(gson, kafkaRpcConfig.getRpcCodec()));
+    }
+
+    @Bean
+    public RpcLatencyRecorder rpcServerLatencyRecorder() {
+        return new RpcLatencyRecorder();
     }
 
     @Bean
-    public WorkerPool<ServerEvent> workerPool(@Qualifier("request-dispatcher") RequestHandler requestHandler,
-                                              @Qualifier("server-producer") Producer<String, Response> responseProducer) {
+    public ServerEventWorkers serverEventWorkers(@Qualifier("request-dispatcher") RequestHandler requestHandler,
+                                                 @Qualifier("server-producer") Producer<String, Response> responseProducer,
+                                                 RpcLatencyRecorder latencyRecorder) {
         final ServerEventHandler[] workHandlers = new ServerEventHandler[workerThreads];
-        IntStream.range(0, workerThreads).forEach(
-                nbr -> workHandlers[nbr] = new ServerEventHandler(requestHandler, responseProducer)
-        );
+        IntStream.range(0, workerThreads).forEach(nbr -> {
+            workHandlers[nbr] = new ServerEventHandler(requestHandler, responseProducer);
+            workHandlers[nbr].setLatencyRecorder(latencyRecorder);
+        });
         final RingBuffer<ServerEvent> ringBuffer = RingBuffer.createMultiProducer(ServerEvent::new, bufferSize, getWaitStrategy());
+        if (partitionAffinity) {
+            logger.info("RPC server workers keep order of requests per partition key");
+            return new PartitionedWorkerPool(ringBuffer, workHandlers);
+        }
         final SequenceBarrier barrier = ringBuffer.newBarrier();
         WorkerPool<ServerEvent> workerPool = new WorkerPool<>(ringBuffer, barrier, new FatalExceptionHandler(), workHandlers);
         ringBuffer.addGatingSequences(workerPool.getWorkerSequences());
-        return workerPool;
+        return ServerEventWorkers.pooled(workerPool);
     }
 
     private WaitStrategy getWaitStrategy() {
@@ -129,18 +153,32 @@ public class KafkaRpcServerConfig {
 
     @Bean
     public ServerEventHandler serverEventHandler(@Qualifier("request-dispatcher") RequestHandler requestHandler,
-                                                 @Qualifier("server-producer") Producer<String, Response> responseProducer) {
-        return new ServerEventHandler(requestHandler, responseProducer);
+                                                 @Qualifier("server-producer") Producer<String, Response> responseProducer,
+                                                 RpcLatencyRecorder latencyRecorder) {
+        ServerEventHandler eventHandler = new ServerEventHandler(requestHandler, responseProducer);
+        eventHandler.setLatencyRecorder(latencyRecorder);
+        return eventHandler;
     }
 
     @Bean
-    public RequestConsumer requestConsumer(Gson gson) {
-        return new RequestConsumer(REQUEST_TOPIC, kafkaRpcConfig.serverConsumerProps(), consumerThreads, new RequestSerializer(gson));
+    public RequestConsumer requestConsumer(Gson gson, FilterRegistry filterRegistry,
+                                           @Qualifier("request-dispatcher") RequestHandler requestHandler) {
+        RequestConsumer requestConsumer;
+        if (kafkaRpcConfig.isSubscriptionShardingEnabled() && filterRegistry instanceof ConsumerRebalanceListener) {
+            requestConsumer = new RequestConsumer(REQUEST_TOPIC, kafkaRpcConfig.serverConsumerProps(), consumerThreads,
+                    new RequestSerializer(gson, kafkaRpcConfig.getRpcCodec()), (ConsumerRebalanceListener) filterRegistry);
+        } else {
+            requestConsumer = new RequestConsumer(REQUEST_TOPIC, kafkaRpcConfig.serverConsumerProps(), consumerThreads, new RequestSerializer(gson, kafkaRpcConfig.getRpcCodec()));
+        }
+        if (batchEnabled && requestHandler instanceof BatchRequestHandler) {
+            requestConsumer.enableBatching(((BatchRequestHandler) requestHandler)::isBatchSupported, partitionAffinity ? workerThreads : 1);
+        }
+        return requestConsumer;
     }
 
     @Bean
-    public RpcServer rpcServer(WorkerPool<ServerEvent> workerPool, RequestConsumer requestConsumer, ServerEventHandler eventHandler) {
-        RpcServer server = new KafkaRpcServer(workerPool, requestConsumer, eventHandler, workerThreads);
+    public RpcServer rpcServer(ServerEventWorkers serverEventWorkers, RequestConsumer requestConsumer, ServerEventHandler eventHandler) {
+        RpcServer server = new KafkaRpcServer(serverEventWorkers, requestConsumer, eventHandler, workerThreads);
         server.start();
         return server;
     }
@@ -21,6 +21,7 @@ package com.devicehive.shim.kafka;
  */
 
 
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
@@ -40,28 +41,41 @@ public abstract class ConsumerWorker<T> implements Runnable {
     private String topic;
     private KafkaConsumer<String, T> consumer;
     private CountDownLatch latch;
+    private ConsumerRebalanceListener rebalanceListener;
 
     public ConsumerWorker(String topic, KafkaConsumer<String, T> consumer, CountDownLatch latch) {
+        this(topic, consumer, latch, new NoOpConsumerRebalanceListener());
+    }
+
+    /**
+     * @param rebalanceListener notified about partitions of the topic this worker gets or loses
+     */
+    public ConsumerWorker(String topic, KafkaConsumer<String, T> consumer, CountDownLatch latch,
+                          ConsumerRebalanceListener rebalanceListener) {
         this.topic = topic;
         this.consumer = consumer;
         this.latch = latch;
+        this.rebalanceListener = rebalanceListener;
     }
 
     @Override
     public void run() {
         try {
-            consumer.subscribe(Collections.singletonList(topic), new NoOpConsumerRebalanceListener() {
+            consumer.subscribe(Collections.singletonList(topic), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    rebalanceListener.onPartitionsRevoked(partitions);
+                }
+
                 @Override
                 public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    rebalanceListener.onPartitionsAssigned(partitions);
                     latch.countDown();
                 }
             });
             while (!Thread.currentThread().isInterrupted()) {
                 ConsumerRecords<String, T> records = consumer.poll(Long.MAX_VALUE);
-                records.forEach(record -> {
-                    logger.trace("Topic {}, partition {}, offset {}", record.topic(), record.partition(), record.offset());
-                    process(record);
-                });
+                process(records);
             }
         }  catch (WakeupException e) {
             logger.warn("Kafka consumer thread is shutting down");
@@ -72,6 +86,16 @@ public abstract class ConsumerWorker<T> implements Runnable {
         }
     }
 
+    /**
+     * Processes records of a poll one by one, override to process them together.
+     */
+    public void process(ConsumerRecords<String, T> records) {
+        records.forEach(record -> {
+            logger.trace("Topic {}, partition {}, offset {}", record.topic(), record.partition(), record.offset());
+            process(record);
+        });
+    }
+
     public abstract void process(ConsumerRecord<String, T> record);
 
     public void shutdown() {
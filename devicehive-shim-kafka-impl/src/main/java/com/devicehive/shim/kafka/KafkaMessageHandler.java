@@ -41,24 +41,29 @@ public abstract class KafkaMessageHandler {
 
     private final String topic;
     private final KafkaRpcConfig kafkaRpcConfig;
+    private final Properties consumerProps;
     private final Producer<String, String> producer;
     private final ForkJoinPool executionPool;
 
     public KafkaMessageHandler(KafkaRpcConfig kafkaRpcConfig, String topic) {
+        this(kafkaRpcConfig, topic, kafkaRpcConfig.clientConsumerProps());
+    }
+
+    public KafkaMessageHandler(KafkaRpcConfig kafkaRpcConfig, String topic, Properties consumerProps) {
         this.topic = topic;
         this.kafkaRpcConfig = kafkaRpcConfig;
+        this.consumerProps = consumerProps;
         this.producer = new KafkaProducer<>(kafkaRpcConfig.producerProps(), new StringSerializer(), new StringSerializer());
         this.executionPool = new ForkJoinPool();
     }
 
     public void start() {
         int consumerThreads = kafkaRpcConfig.getHandlerThreads();
-        Properties properties = kafkaRpcConfig.clientConsumerProps();
         CountDownLatch latch = new CountDownLatch(consumerThreads);
 
         for (int i = 0; i < consumerThreads; i++) {
             KafkaConsumer<String, String> consumer =
-                    new KafkaConsumer<>(properties, new StringDeserializer(), new StringDeserializer());
+                    new KafkaConsumer<>(consumerProps, new StringDeserializer(), new StringDeserializer());
             executionPool.execute(new ConsumerWorker<String>(topic, consumer, latch) {
                 @Override
                 public void process(ConsumerRecord<String, String> record) {
@@ -86,4 +91,13 @@ public abstract class KafkaMessageHandler {
         logger.debug("Pushed message to the topic {}", topic);
         producer.send(new ProducerRecord<>(topic, message));
     }
+
+    public int getPartitionCount(String topic) {
+        return producer.partitionsFor(topic).size();
+    }
+
+    public void push(String key, String message) {
+        logger.debug("Pushed message with key {} to the topic {}", key, topic);
+        producer.send(new ProducerRecord<>(topic, key, message));
+    }
 }
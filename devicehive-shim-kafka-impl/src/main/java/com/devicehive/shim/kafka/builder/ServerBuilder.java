@@ -26,6 +26,7 @@ import com.devicehive.shim.api.server.RequestHandler;
 import com.devicehive.shim.api.server.RpcServer;
 import com.devicehive.shim.kafka.server.KafkaRpcServer;
 import com.devicehive.shim.kafka.server.RequestConsumer;
+import com.devicehive.api.ServerEventWorkers;
 import com.devicehive.model.ServerEvent;
 import com.devicehive.shim.kafka.server.ServerEventHandler;
 import com.lmax.disruptor.FatalExceptionHandler;
@@ -98,7 +99,7 @@ public class ServerBuilder {
         final WorkerPool<ServerEvent> workerPool = new WorkerPool<>(ServerEvent::new, new FatalExceptionHandler(), workHandlers);
 
         RequestConsumer requestConsumer = new RequestConsumer(topic, consumerProps, consumerThreads, consumerValueDeserializer);
-        return new KafkaRpcServer(workerPool, requestConsumer, new ServerEventHandler(requestHandler, responseProducer), workerThreads);
+        return new KafkaRpcServer(ServerEventWorkers.pooled(workerPool), requestConsumer, new ServerEventHandler(requestHandler, responseProducer), workerThreads);
     }
 
 }
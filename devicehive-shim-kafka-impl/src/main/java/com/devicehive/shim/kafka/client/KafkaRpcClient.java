@@ -24,6 +24,8 @@ import com.devicehive.api.RequestResponseMatcher;
 import com.devicehive.shim.api.Request;
 import com.devicehive.shim.api.RequestType;
 import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.Timings;
+import com.devicehive.shim.api.client.ClientOverloadedException;
 import com.devicehive.shim.api.client.RpcClient;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
@@ -39,6 +41,9 @@ import java.util.function.Consumer;
 public class KafkaRpcClient implements RpcClient {
     private static final Logger logger = LoggerFactory.getLogger(KafkaRpcClient.class);
 
+    private static final String OVERLOADED_MESSAGE = "Too many requests in flight";
+    private static final int SERVICE_UNAVAILABLE = 503;
+
     private String requestTopic;
     private String replyToTopic;
     private Producer<String, Request> requestProducer;
@@ -62,10 +67,23 @@ public class KafkaRpcClient implements RpcClient {
 
     @Override
     public void call(Request request, Consumer<Response> callback) {
-        requestResponseMatcher.addRequestCallback(request.getCorrelationId(), callback);
+        if (!tryCall(request, callback)) {
+            throw new ClientOverloadedException(OVERLOADED_MESSAGE);
+        }
+    }
+
+    @Override
+    public boolean tryCall(Request request, Consumer<Response> callback) {
+        if (!requestResponseMatcher.tryAddRequestCallback(request.getCorrelationId(), request.getAction(), callback, request.isSingleReplyExpected())) {
+            return false;
+        }
         logger.debug("Request callback added for request: {}, correlationId: {}", request.getBody(), request.getCorrelationId());
+        if (requestResponseMatcher.getLatencyRecorder() != null) {
+            request.setTimings(Timings.sent());
+        }
 
         push(request);
+        return true;
     }
 
     @Override
@@ -79,10 +97,10 @@ public class KafkaRpcClient implements RpcClient {
                 (recordMetadata, e) -> {
                     if (e != null) {
                         logger.error("Send request failed", e);
-                        requestResponseMatcher.removeRequestCallback(request.getCorrelationId());
+                        requestResponseMatcher.failRequest(request.getCorrelationId(), SERVICE_UNAVAILABLE, e.getMessage());
+                    } else {
+                        logger.debug("Request {} sent successfully", request.getCorrelationId());
                     }
-                    logger.debug("Request {} sent successfully", request.getCorrelationId());
-                    //TODO [rafa] in case sending fails - we need to notify the caller using the callback passed.
                 });
     }
 
@@ -0,0 +1,122 @@
+package com.devicehive.shim.kafka.codec;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads values written by {@link BinaryOutput}.
+ */
+final class BinaryInput {
+
+    private final byte[] buf;
+    private final int limit;
+    private int pos;
+
+    BinaryInput(byte[] buf, int offset, int limit) {
+        this.buf = buf;
+        this.pos = offset;
+        this.limit = limit;
+    }
+
+    int readByte() {
+        require(1);
+        return buf[pos++] & 0xFF;
+    }
+
+    int peekByte() {
+        require(1);
+        return buf[pos] & 0xFF;
+    }
+
+    long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint at " + pos);
+    }
+
+    int readLength() {
+        return checkLength(readVarint());
+    }
+
+    long readZigZag() {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    double readDouble() {
+        require(8);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+            bits = (bits << 8) | (buf[pos++] & 0xFF);
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    String readNullableString() {
+        long value = readVarint();
+        if (value == 0) {
+            return null;
+        }
+        return readUtf8(checkLength(value - 1));
+    }
+
+    String readString() {
+        return readUtf8(readLength());
+    }
+
+    String readUtf8(int length) {
+        require(length);
+        String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return value;
+    }
+
+    int position() {
+        return pos;
+    }
+
+    void skip(int length) {
+        require(length);
+        pos += length;
+    }
+
+    private int checkLength(long value) {
+        if (value < 0 || value > limit - pos) {
+            throw new SerializationException("Length " + value + " exceeds frame at " + pos);
+        }
+        return (int) value;
+    }
+
+    private void require(int length) {
+        if (length > limit - pos) {
+            throw new SerializationException("Unexpected end of frame at " + pos);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.devicehive.shim.kafka.codec;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.internal.LazilyParsedNumber;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.devicehive.shim.kafka.codec.BinaryJsonWriter.*;
+
+/**
+ * Reads a value written by {@link BinaryJsonWriter} back into a Gson tree.
+ */
+final class BinaryJsonParser {
+
+    private static final JsonPrimitive TRUE_VALUE = new JsonPrimitive(true);
+    private static final JsonPrimitive FALSE_VALUE = new JsonPrimitive(false);
+
+    private final BinaryInput in;
+    private final List<String> names = new ArrayList<>();
+
+    BinaryJsonParser(BinaryInput in) {
+        this.in = in;
+    }
+
+    JsonElement parse() {
+        int tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return JsonNull.INSTANCE;
+            case FALSE:
+                return FALSE_VALUE;
+            case TRUE:
+                return TRUE_VALUE;
+            case INT:
+                return new JsonPrimitive(in.readZigZag());
+            case DOUBLE:
+                return new JsonPrimitive(in.readDouble());
+            case STRING:
+                return new JsonPrimitive(in.readString());
+            case NUMBER:
+                return new JsonPrimitive(new LazilyParsedNumber(in.readString()));
+            case ARRAY:
+                JsonArray array = new JsonArray();
+                while (in.peekByte() != END_ARRAY) {
+                    array.add(parse());
+                }
+                in.skip(1);
+                return array;
+            case OBJECT:
+                JsonObject object = new JsonObject();
+                for (long header = in.readVarint(); header != END_OBJECT; header = in.readVarint()) {
+                    object.add(readName(header), parse());
+                }
+                return object;
+            default:
+                throw new SerializationException("Unknown value tag " + tag + " at " + (in.position() - 1));
+        }
+    }
+
+    private String readName(long header) {
+        if ((header & 1) == 1) {
+            long index = header >>> 1;
+            if (index >= names.size()) {
+                throw new SerializationException("Unknown name reference " + index + " at " + in.position());
+            }
+            return names.get((int) index);
+        }
+        String name = in.readUtf8(checkedLength((header >>> 1) - 1));
+        names.add(name);
+        return name;
+    }
+
+    private int checkedLength(long length) {
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new SerializationException("Malformed name length " + length + " at " + in.position());
+        }
+        return (int) length;
+    }
+}
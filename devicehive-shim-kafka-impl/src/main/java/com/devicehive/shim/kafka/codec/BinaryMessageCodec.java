@@ -0,0 +1,208 @@
+package com.devicehive.shim.kafka.codec;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.api.Body;
+import com.devicehive.shim.api.DeferredBody;
+import com.devicehive.shim.api.EncodedBody;
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.RequestType;
+import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.Timings;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Compact binary format. The envelope fields are written in a fixed order ahead of the body, the body
+ * itself is the Gson representation of its concrete class encoded by {@link BinaryJsonWriter}:
+ * <pre>
+ * request:  marker, id, flags(singleReply, timed), type, correlationId, partitionKey, replyTo, [timings], action + 1, body
+ * response: marker, id, flags(last, failed, batch, timed), errorCode, correlationId | correlationIds, [timings], action + 1, body
+ * </pre>
+ * Timings are five varint stamps, written only if the message carries them.
+ * Action 0 means there is no body. Decoding stops after the envelope, the body is decoded when it is
+ * first accessed. Since the action is known by then, it is deserialized straight into its registered class.
+ */
+public class BinaryMessageCodec implements MessageCodec {
+
+    private static final byte ID = 1;
+
+    private static final int SINGLE_REPLY = 1;
+    private static final int REQUEST_TIMED = 1 << 1;
+    private static final int LAST = 1;
+    private static final int FAILED = 1 << 1;
+    private static final int BATCH = 1 << 2;
+    private static final int RESPONSE_TIMED = 1 << 3;
+
+    private static final Action[] ACTIONS = Action.values();
+    private static final RequestType[] REQUEST_TYPES = RequestType.values();
+
+    private final Gson gson;
+    private final Function<Action, Class<? extends Body>> bodyTypes;
+
+    public BinaryMessageCodec(Gson gson, Function<Action, Class<? extends Body>> bodyTypes) {
+        this.gson = gson;
+        this.bodyTypes = bodyTypes;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public String getName() {
+        return MessageCodecs.BINARY;
+    }
+
+    @Override
+    public byte[] encodeRequest(Request request) {
+        BinaryOutput out = header();
+        out.writeByte((request.isSingleReplyExpected() ? SINGLE_REPLY : 0) | (request.getTimings() != null ? REQUEST_TIMED : 0));
+        out.writeVarint(request.getType().ordinal());
+        out.writeNullableString(request.getCorrelationId());
+        out.writeNullableString(request.getPartitionKey());
+        out.writeNullableString(request.getReplyTo());
+        writeTimings(out, request.getTimings());
+        writeBody(out, request.getBody());
+        return out.toByteArray();
+    }
+
+    @Override
+    public Request decodeRequest(byte[] frame) {
+        BinaryInput in = new BinaryInput(frame, MessageCodecs.HEADER_LENGTH, frame.length);
+        int flags = in.readByte();
+        int type = (int) in.readVarint();
+        if (type >= REQUEST_TYPES.length) {
+            throw new SerializationException("Unknown request type " + type);
+        }
+        String correlationId = in.readNullableString();
+        String partitionKey = in.readNullableString();
+        String replyTo = in.readNullableString();
+        Timings timings = (flags & REQUEST_TIMED) != 0 ? readTimings(in) : null;
+        Request request = Request.newBuilder()
+                .withDeferredBody(readBody(frame, in))
+                .withCorrelationId(correlationId)
+                .withPartitionKey(partitionKey)
+                .withSingleReply((flags & SINGLE_REPLY) != 0)
+                .build();
+        request.setReplyTo(replyTo);
+        request.setType(REQUEST_TYPES[type]);
+        request.setTimings(timings);
+        return request;
+    }
+
+    @Override
+    public byte[] encodeResponse(Response response) {
+        BinaryOutput out = header();
+        int flags = (response.isLast() ? LAST : 0) | (response.isFailed() ? FAILED : 0) | (response.isBatch() ? BATCH : 0)
+                | (response.getTimings() != null ? RESPONSE_TIMED : 0);
+        out.writeByte(flags);
+        out.writeZigZag(response.getErrorCode());
+        if (response.isBatch()) {
+            List<String> correlationIds = response.getCorrelationIds();
+            out.writeVarint(correlationIds.size());
+            correlationIds.forEach(out::writeNullableString);
+        } else {
+            out.writeNullableString(response.getCorrelationId());
+        }
+        writeTimings(out, response.getTimings());
+        writeBody(out, response.getBody());
+        return out.toByteArray();
+    }
+
+    @Override
+    public Response decodeResponse(byte[] frame) {
+        BinaryInput in = new BinaryInput(frame, MessageCodecs.HEADER_LENGTH, frame.length);
+        int flags = in.readByte();
+        int errorCode = (int) in.readZigZag();
+        Response.Builder<Body> builder = Response.newBuilder();
+        if ((flags & BATCH) != 0) {
+            int count = in.readLength();
+            List<String> correlationIds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                correlationIds.add(in.readNullableString());
+            }
+            builder.withCorrelationIds(correlationIds);
+        } else {
+            builder.withCorrelationId(in.readNullableString());
+        }
+        Timings timings = (flags & RESPONSE_TIMED) != 0 ? readTimings(in) : null;
+        builder.withDeferredBody(readBody(frame, in))
+                .withLast((flags & LAST) != 0);
+        Response response = (flags & FAILED) != 0 ? builder.buildFailed(errorCode) : builder.buildSuccess();
+        response.setTimings(timings);
+        return response;
+    }
+
+    private BinaryOutput header() {
+        BinaryOutput out = new BinaryOutput(256);
+        out.writeByte(MessageCodecs.FRAME_MARKER);
+        out.writeByte(ID);
+        return out;
+    }
+
+    private void writeTimings(BinaryOutput out, Timings timings) {
+        if (timings != null) {
+            out.writeVarint(timings.getClientSend());
+            out.writeVarint(timings.getServerReceive());
+            out.writeVarint(timings.getHandlerStart());
+            out.writeVarint(timings.getHandlerEnd());
+            out.writeVarint(timings.getServerSend());
+        }
+    }
+
+    private Timings readTimings(BinaryInput in) {
+        return new Timings(in.readVarint(), in.readVarint(), in.readVarint(), in.readVarint(), in.readVarint());
+    }
+
+    private void writeBody(BinaryOutput out, Body body) {
+        if (body == null) {
+            out.writeVarint(0);
+            return;
+        }
+        out.writeVarint(body.getAction().ordinal() + 1L);
+        if (body instanceof EncodedBody && ((EncodedBody) body).getBody() != null) {
+            body = ((EncodedBody) body).getBody();
+        }
+        gson.toJson(body, body.getClass(), new BinaryJsonWriter(out));
+    }
+
+    private DeferredBody readBody(byte[] frame, BinaryInput in) {
+        long action = in.readVarint() - 1;
+        if (action < 0) {
+            return null;
+        }
+        int offset = in.position();
+        Action known = action < ACTIONS.length ? ACTIONS[(int) action] : null;
+        return new DeferredBody(known, () -> {
+            JsonElement tree = new BinaryJsonParser(new BinaryInput(frame, offset, frame.length)).parse();
+            Class<? extends Body> type = known != null ? bodyTypes.apply(known) : null;
+            return gson.fromJson(tree, type != null ? type : Body.class);
+        });
+    }
+}
@@ -0,0 +1,235 @@
+package com.devicehive.shim.kafka.codec;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.api.Body;
+import com.devicehive.shim.api.DeferredBody;
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.RequestType;
+import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.Timings;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Legacy format: plain UTF-8 JSON without frame header, readable by every node.
+ * <p>
+ * Received envelopes are read field by field and the body is skipped, only its action is read and the span of
+ * its text is kept. The body is parsed and bound to its class when it is first accessed, which skips the costly
+ * part for messages nobody is waiting for.
+ */
+public class JsonMessageCodec implements MessageCodec {
+
+    private static final Action[] ACTIONS = Action.values();
+    private static final RequestType[] REQUEST_TYPES = RequestType.values();
+
+    private final Gson gson;
+    private final Function<Action, Class<? extends Body>> bodyTypes;
+
+    public JsonMessageCodec(Gson gson, Function<Action, Class<? extends Body>> bodyTypes) {
+        this.gson = gson;
+        this.bodyTypes = bodyTypes;
+    }
+
+    @Override
+    public byte getId() {
+        return 0;
+    }
+
+    @Override
+    public String getName() {
+        return MessageCodecs.JSON;
+    }
+
+    @Override
+    public byte[] encodeRequest(Request request) {
+        request.getBody(); // Gson reads fields, a received body has to be decoded first
+        return gson.toJson(request).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Request decodeRequest(byte[] frame) {
+        Request.Builder<Body> builder = Request.newBuilder();
+        String replyTo = null;
+        int type = RequestType.clientRequest.ordinal();
+        Timings timings = null;
+        boolean hasBody = false;
+        try (JsonReader in = reader(frame)) {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "b":
+                        in.skipValue();
+                        hasBody = true;
+                        break;
+                    case "cId":
+                        builder.withCorrelationId(nextString(in));
+                        break;
+                    case "pK":
+                        builder.withPartitionKey(nextString(in));
+                        break;
+                    case "sre":
+                        builder.withSingleReply(in.nextBoolean());
+                        break;
+                    case "rTo":
+                        replyTo = nextString(in);
+                        break;
+                    case "t":
+                        type = in.nextInt();
+                        break;
+                    case "ts":
+                        timings = gson.fromJson(in, Timings.class);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+        if (hasBody) {
+            builder.withDeferredBody(readBody(frame));
+        }
+        if (type < 0 || type >= REQUEST_TYPES.length) {
+            throw new JsonSyntaxException("Unknown request type " + type);
+        }
+        Request request = builder.build();
+        request.setReplyTo(replyTo);
+        request.setType(REQUEST_TYPES[type]);
+        request.setTimings(timings);
+        return request;
+    }
+
+    @Override
+    public byte[] encodeResponse(Response response) {
+        response.getBody(); // Gson reads fields, a received body has to be decoded first
+        return gson.toJson(response).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Response decodeResponse(byte[] frame) {
+        Response.Builder<Body> builder = Response.newBuilder();
+        int errorCode = 0;
+        boolean failed = false;
+        Timings timings = null;
+        boolean hasBody = false;
+        try (JsonReader in = reader(frame)) {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "b":
+                        in.skipValue();
+                        hasBody = true;
+                        break;
+                    case "cId":
+                        builder.withCorrelationId(nextString(in));
+                        break;
+                    case "cIds":
+                        builder.withCorrelationIds(nextStrings(in));
+                        break;
+                    case "l":
+                        builder.withLast(in.nextBoolean());
+                        break;
+                    case "err":
+                        errorCode = in.nextInt();
+                        break;
+                    case "fld":
+                        failed = in.nextBoolean();
+                        break;
+                    case "ts":
+                        timings = gson.fromJson(in, Timings.class);
+                        break;
+                    default:
+                        in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+        if (hasBody) {
+            builder.withDeferredBody(readBody(frame));
+        }
+        Response response = failed ? builder.buildFailed(errorCode) : builder.buildSuccess();
+        response.setTimings(timings);
+        return response;
+    }
+
+    private JsonReader reader(byte[] frame) {
+        return new JsonReader(new InputStreamReader(new ByteArrayInputStream(frame), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the action of the body and keeps the span of its text, the span is bound to the body class
+     * on first access. Called once the reader validated the whole envelope.
+     */
+    private DeferredBody readBody(byte[] frame) {
+        int start = JsonScanner.findMember(frame, 0, "b");
+        if (start < 0 || frame[start] != '{') {
+            return null;
+        }
+        int end = JsonScanner.skipValue(frame, start);
+        if (end < 0) {
+            return null;
+        }
+        int action = JsonScanner.readInt(frame, JsonScanner.findMember(frame, start, "a"));
+        Action known = action >= 0 && action < ACTIONS.length ? ACTIONS[action] : null;
+        return new DeferredBody(known, () -> {
+            Class<? extends Body> type = known != null ? bodyTypes.apply(known) : null;
+            return gson.fromJson(new InputStreamReader(new ByteArrayInputStream(frame, start, end - start), StandardCharsets.UTF_8),
+                    type != null ? type : Body.class);
+        });
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static List<String> nextStrings(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(nextString(in));
+        }
+        in.endArray();
+        return values;
+    }
+}
@@ -0,0 +1,155 @@
+package com.devicehive.shim.kafka.codec;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds spans of values in UTF-8 JSON that was already validated by a reader, without parsing them.
+ * Structural characters of JSON are ASCII and never occur inside multi-byte UTF-8 sequences, so bytes
+ * are scanned as is. Methods return {@code -1} when the input does not have the expected shape.
+ */
+final class JsonScanner {
+
+    private JsonScanner() {
+    }
+
+    /**
+     * @return start of the value of the named member of the object starting at {@code pos}, -1 if there is none
+     */
+    static int findMember(byte[] json, int pos, String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int i = skipWhitespace(json, pos);
+        if (i < 0 || json[i] != '{') {
+            return -1;
+        }
+        i++;
+        while (true) {
+            i = skipWhitespace(json, i);
+            if (i < 0 || json[i] != '"') {
+                return -1;
+            }
+            int keyEnd = skipString(json, i);
+            boolean match = keyEnd >= 0 && regionEquals(json, i + 1, keyEnd - 1, key);
+            i = skipWhitespace(json, keyEnd);
+            if (i < 0 || json[i] != ':') {
+                return -1;
+            }
+            i = skipWhitespace(json, i + 1);
+            if (i < 0 || match) {
+                return i;
+            }
+            i = skipWhitespace(json, skipValue(json, i));
+            if (i < 0 || json[i] != ',') {
+                return -1;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * @return end, exclusive, of the value starting at {@code pos}
+     */
+    static int skipValue(byte[] json, int pos) {
+        if (pos < 0) {
+            return -1;
+        }
+        int depth = 0;
+        int i = pos;
+        while (i < json.length) {
+            byte c = json[i];
+            if (c == '"') {
+                i = skipString(json, i);
+                if (i < 0 || depth == 0) {
+                    return i;
+                }
+                continue;
+            }
+            if (depth == 0 && i > pos && (c == ',' || c == '}' || c == ']' || isWhitespace(c))) {
+                return i;
+            }
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return depth == 0 ? i : -1;
+    }
+
+    /**
+     * @return integer value of the number starting at {@code pos}, -1 if it's not a non-negative integer
+     */
+    static int readInt(byte[] json, int pos) {
+        if (pos < 0 || pos >= json.length || json[pos] < '0' || json[pos] > '9') {
+            return -1;
+        }
+        long value = 0;
+        int i = pos;
+        while (i < json.length && json[i] >= '0' && json[i] <= '9') {
+            value = value * 10 + (json[i++] - '0');
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return i < json.length && (json[i] == '.' || json[i] == 'e' || json[i] == 'E') ? -1 : (int) value;
+    }
+
+    static int skipWhitespace(byte[] json, int pos) {
+        if (pos < 0) {
+            return -1;
+        }
+        int i = pos;
+        while (i < json.length && isWhitespace(json[i])) {
+            i++;
+        }
+        return i < json.length ? i : -1;
+    }
+
+    private static int skipString(byte[] json, int pos) {
+        int i = pos + 1;
+        while (i < json.length) {
+            byte c = json[i];
+            if (c == '"') {
+                return i + 1;
+            }
+            i += c == '\\' ? 2 : 1;
+        }
+        return -1;
+    }
+
+    private static boolean regionEquals(byte[] json, int start, int end, byte[] key) {
+        if (end - start != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (json[start + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+}
@@ -0,0 +1,50 @@
+package com.devicehive.shim.kafka.codec;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.Response;
+
+/**
+ * Wire format of RPC messages. Every codec except the legacy JSON one prefixes its frames with
+ * {@link MessageCodecs#FRAME_MARKER} and its id, so the receiver picks the codec per record
+ * regardless of its own configuration.
+ */
+public interface MessageCodec {
+
+    /**
+     * @return id written into the frame header, unique among registered codecs
+     */
+    byte getId();
+
+    /**
+     * @return name used to select the codec in configuration
+     */
+    String getName();
+
+    byte[] encodeRequest(Request request);
+
+    Request decodeRequest(byte[] frame);
+
+    byte[] encodeResponse(Response response);
+
+    Response decodeResponse(byte[] frame);
+}
@@ -0,0 +1,93 @@
+package com.devicehive.shim.kafka.codec;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.api.Body;
+import com.google.gson.Gson;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Registry of known codecs. Kafka 0.10 records have no headers, so the codec id travels in the first
+ * two bytes of the value: {@link #FRAME_MARKER} followed by the id. A JSON document can not start with
+ * the marker, which keeps unframed JSON from older nodes readable while a cluster is switched over.
+ */
+public class MessageCodecs {
+
+    public static final byte FRAME_MARKER = 0;
+    public static final int HEADER_LENGTH = 2;
+
+    public static final String JSON = "json";
+    public static final String BINARY = "binary";
+
+    private final MessageCodec json;
+    private final MessageCodec[] byId = new MessageCodec[Byte.MAX_VALUE + 1];
+    private final Map<String, MessageCodec> byName = new HashMap<>();
+
+    /**
+     * Bodies are read with the Body adapter registered in {@code gson}.
+     */
+    public MessageCodecs(Gson gson) {
+        this(gson, action -> null);
+    }
+
+    /**
+     * @param bodyTypes resolves the class a body of given action is bound to directly, skipping the runtime
+     *                  type lookup of the Body adapter, e.g. {@link com.devicehive.json.GsonFactory#getBodyType}
+     */
+    public MessageCodecs(Gson gson, Function<Action, Class<? extends Body>> bodyTypes) {
+        json = new JsonMessageCodec(gson, bodyTypes);
+        register(json);
+        register(new BinaryMessageCodec(gson, bodyTypes));
+    }
+
+    private void register(MessageCodec codec) {
+        byId[codec.getId()] = codec;
+        byName.put(codec.getName(), codec);
+    }
+
+    public MessageCodec get(String name) {
+        MessageCodec codec = byName.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown RPC codec: " + name);
+        }
+        return codec;
+    }
+
+    /**
+     * @return codec the frame was encoded with, JSON for frames without header
+     */
+    public MessageCodec of(byte[] frame) {
+        if (frame.length < HEADER_LENGTH || frame[0] != FRAME_MARKER) {
+            return json;
+        }
+        byte id = frame[1];
+        MessageCodec codec = id >= 0 ? byId[id] : null;
+        if (codec == null) {
+            throw new SerializationException("Unknown RPC codec id: " + id);
+        }
+        return codec;
+    }
+}
@@ -27,26 +27,79 @@ import com.devicehive.model.eventbus.Subscriber;
 import com.devicehive.shim.config.KafkaRpcConfig;
 import com.devicehive.shim.kafka.KafkaMessageHandler;
 import com.google.gson.Gson;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static com.devicehive.configuration.Constants.SUBSCRIPTION_TOPIC;
 import static com.devicehive.model.eventbus.SubscribeAction.REGISTER;
+import static com.devicehive.model.eventbus.SubscribeAction.RENEW;
 import static com.devicehive.model.eventbus.SubscribeAction.UNREGISTER;
+import static com.devicehive.shim.api.Action.COMMAND_UPDATE_EVENT;
+
+/**
+ * Filter registry replicated through Kafka. On start it restores state from {@link SubscriptionSnapshotLog}
+ * and then replays subscription updates retained in {@code SUBSCRIPTION_TOPIC}, which are keyed by subscription id.
+ * Subscriptions changed through this node are periodically written back to the snapshot log.
+ * <p>
+ * With sharding enabled, subscriptions on a particular device are kept only by the node, that consumes request
+ * topic partition of that device, i.e. the node that publishes its events. Subscriptions without device and
+ * command update subscriptions stay replicated to every node. Shard of a device is request topic partition its
+ * id is hashed to, so shards move together with partitions on consumer group rebalance: revoked shards are
+ * dropped, assigned ones are loaded from the snapshot log and from the recent changes this node has seen but
+ * did not apply.
+ */
+public class DistributedRpcFilterRegistry extends FilterRegistry implements ConsumerRebalanceListener {
+    private static final Logger logger = LoggerFactory.getLogger(DistributedRpcFilterRegistry.class);
 
-public class DistributedRpcFilterRegistry extends FilterRegistry {
+    static final int REPLICATED = -1;
+    private static final char SHARD_SEPARATOR = ':';
 
     private final Gson gson;
 
-    private final KafkaMessageHandler messageHandler; // todo: fault tolerance, synchronisation, lifetime of kafka topic (log.retention)
+    private final KafkaMessageHandler messageHandler;
+    private final SubscriptionSnapshotLog snapshotLog;
+    private final Set<String> pendingSnapshot = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService snapshotExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    private final boolean sharded;
+    private final long recentChangesRetention;
+    private final Object shardLock = new Object();
+    private final Set<Integer> ownedShards = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> loadingShards = new HashSet<>();
+    private volatile int shardCount;
+
+    /**
+     * Latest state of subscriptions on devices of shards owned by other nodes, kept long enough to cover changes
+     * not yet written to the snapshot log, in case this node gets their shard.
+     */
+    private final Map<Long, RecentChange> recentChanges = new HashMap<>();
 
     public DistributedRpcFilterRegistry(Gson gson, KafkaRpcConfig kafkaRpcConfig) {
         this.gson = gson;
-        this.messageHandler = new KafkaMessageHandler(kafkaRpcConfig, SUBSCRIPTION_TOPIC) {
+        this.sharded = kafkaRpcConfig.isSubscriptionShardingEnabled();
+        this.recentChangesRetention = 3 * kafkaRpcConfig.getSubscriptionSnapshotIntervalMs();
+        this.snapshotLog = new SubscriptionSnapshotLog(gson, kafkaRpcConfig);
+        bootstrap();
+        this.messageHandler = new KafkaMessageHandler(kafkaRpcConfig, SUBSCRIPTION_TOPIC, kafkaRpcConfig.subscriptionConsumerProps()) {
             @Override
             public void handle(String message) {
                 handleSubscriptionMessage(message, gson);
             }
         };
         messageHandler.start();
+        long interval = kafkaRpcConfig.getSubscriptionSnapshotIntervalMs();
+        snapshotExecutor.scheduleWithFixedDelay(this::flushSnapshot, interval, interval, TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -54,7 +107,10 @@ public class DistributedRpcFilterRegistry extends FilterRegistry {
         processRegister(filter, subscriber);
 
         String subscribeMessage = gson.toJson(new SubscribeMessage(REGISTER, filter, subscriber));
-        messageHandler.push(subscribeMessage);
+        messageHandler.push(String.valueOf(subscriber.getId()), subscribeMessage);
+        if (!sharded || isReplicated(filter)) {
+            pendingSnapshot.add(snapshotKey(subscriber.getId(), REPLICATED));
+        }
     }
 
     @Override
@@ -62,6 +118,274 @@ public class DistributedRpcFilterRegistry extends FilterRegistry {
         processUnregister(subscriber);
 
         String subscribeMessage = gson.toJson(new SubscribeMessage(UNREGISTER, subscriber));
-        messageHandler.push(subscribeMessage);
+        messageHandler.push(String.valueOf(subscriber.getId()), subscribeMessage);
+        pendingSnapshot.add(snapshotKey(subscriber.getId(), REPLICATED));
+    }
+
+    @Override
+    public void renew(String replyTo) {
+        long renewedAt = System.currentTimeMillis();
+        processRenew(replyTo, renewedAt);
+
+        String subscribeMessage = gson.toJson(new SubscribeMessage(RENEW, replyTo, renewedAt));
+        messageHandler.push(replyTo, subscribeMessage);
+    }
+
+    @Override
+    public Set<Long> reclaim(String replyTo, Long renewal) {
+        Set<Long> reclaimed = super.reclaim(replyTo, renewal);
+        reclaimed.forEach(id -> pendingSnapshot.add(snapshotKey(id, REPLICATED)));
+        return reclaimed;
+    }
+
+    @Override
+    protected void processRegister(Filter filter, Subscriber subscriber) {
+        if (!sharded || isReplicated(filter)) {
+            super.processRegister(filter, subscriber);
+            return;
+        }
+        synchronized (shardLock) {
+            int shard = shardOf(filter);
+            if (ownedShards.contains(shard)) {
+                super.processRegister(filter, subscriber);
+                pendingSnapshot.add(snapshotKey(subscriber.getId(), shard));
+            } else {
+                recentChanges.computeIfAbsent(subscriber.getId(), id -> new RecentChange()).register(filter, subscriber);
+            }
+        }
+    }
+
+    @Override
+    protected void processUnregister(Subscriber subscriber) {
+        if (!sharded) {
+            super.processUnregister(subscriber);
+            return;
+        }
+        synchronized (shardLock) {
+            getRegistrations(subscriber.getId()).stream()
+                    .map(registration -> shardOf(registration.getFilter()))
+                    .filter(shard -> shard != REPLICATED)
+                    .forEach(shard -> pendingSnapshot.add(snapshotKey(subscriber.getId(), shard)));
+            super.processUnregister(subscriber);
+            recentChanges.computeIfAbsent(subscriber.getId(), id -> new RecentChange()).unregister();
+        }
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        if (!sharded || partitions.isEmpty()) {
+            return;
+        }
+        Set<Integer> revoked = shards(partitions);
+        flushSnapshot();
+        snapshotLog.flush();
+        int dropped;
+        synchronized (shardLock) {
+            ownedShards.removeAll(revoked);
+            loadingShards.removeAll(revoked);
+            dropped = dropRegistrations(filter -> !isReplicated(filter) && revoked.contains(shardOf(filter)));
+        }
+        logger.info("Subscription shards {} revoked, {} registrations dropped", revoked, dropped);
+    }
+
+    /**
+     * Assigned shards are loaded in background, so that rebalance is not held by reading the snapshot log.
+     * Until then they are not owned, and changes of their subscriptions are kept as recent changes.
+     */
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        if (!sharded || partitions.isEmpty()) {
+            return;
+        }
+        if (shardCount == 0) {
+            shardCount = messageHandler.getPartitionCount(partitions.iterator().next().topic());
+        }
+        synchronized (shardLock) {
+            loadingShards.addAll(shards(partitions));
+        }
+        snapshotExecutor.execute(this::loadShards);
+    }
+
+    /**
+     * Loads all shards assigned so far with a single read of the snapshot log, no matter how many consumer
+     * threads got them.
+     */
+    private void loadShards() {
+        Set<Integer> shards;
+        synchronized (shardLock) {
+            shards = new HashSet<>(loadingShards);
+        }
+        if (shards.isEmpty()) {
+            return;
+        }
+        Map<String, List<SubscribeMessage>> snapshot = new HashMap<>();
+        try {
+            snapshotLog.read(key -> isShardKey(key) && shards.contains(shardOfKey(key)), snapshot::put);
+        } catch (Exception e) {
+            logger.error("Failed to read subscription snapshot of shards {}", shards, e);
+        }
+        int loaded = 0;
+        synchronized (shardLock) {
+            // some of the shards may have been revoked while reading
+            shards.retainAll(loadingShards);
+            loadingShards.removeAll(shards);
+            ownedShards.addAll(shards);
+            for (Map.Entry<String, List<SubscribeMessage>> entry : snapshot.entrySet()) {
+                int shard = shardOfKey(entry.getKey());
+                if (shards.contains(shard)) {
+                    loaded += restore(subscriptionIdOfKey(entry.getKey()), filter -> inShard(filter, shard), entry.getValue());
+                }
+            }
+            Iterator<Map.Entry<Long, RecentChange>> iterator = recentChanges.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, RecentChange> change = iterator.next();
+                if (change.getValue().unregistered) {
+                    processUnregister(new Subscriber(change.getKey(), null, null));
+                    continue;
+                }
+                change.getValue().registrations.entrySet().removeIf(registration -> {
+                    if (!shards.contains(shardOf(registration.getKey()))) {
+                        return false;
+                    }
+                    processRegister(registration.getKey(), registration.getValue());
+                    return true;
+                });
+                if (change.getValue().registrations.isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+        logger.info("Subscription shards {} assigned, {} registrations loaded", shards, loaded);
+    }
+
+    public void shutdown() {
+        snapshotExecutor.shutdown();
+        flushSnapshot();
+        snapshotLog.close();
+        messageHandler.shutdown();
+    }
+
+    private void bootstrap() {
+        long startTime = System.currentTimeMillis();
+        int entries = snapshotLog.read(key -> !sharded || !isShardKey(key) || shardOfKey(key) == REPLICATED,
+                this::restoreSnapshot);
+        bootstrapCompleted(startTime, entries);
+        logger.info("Filter registry restored {} subscriptions from {} snapshot entries in {} ms",
+                getSubscriptionCount(), entries, getBootstrapTime());
+    }
+
+    private void restoreSnapshot(String key, List<SubscribeMessage> registrations) {
+        if (isShardKey(key)) {
+            int shard = shardOfKey(key);
+            restore(subscriptionIdOfKey(key), filter -> inShard(filter, shard), registrations);
+        } else {
+            restore(Long.valueOf(key), registrations);
+        }
+    }
+
+    private void flushSnapshot() {
+        try {
+            Iterator<String> iterator = pendingSnapshot.iterator();
+            while (iterator.hasNext()) {
+                String key = iterator.next();
+                iterator.remove();
+                writeSnapshot(key);
+            }
+            if (sharded) {
+                long expired = System.currentTimeMillis() - recentChangesRetention;
+                synchronized (shardLock) {
+                    recentChanges.values().removeIf(change -> change.changedAt < expired);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to write subscription snapshot", e);
+        }
+    }
+
+    private void writeSnapshot(String key) {
+        if (!isShardKey(key)) {
+            snapshotLog.write(key, getRegistrations(Long.valueOf(key)));
+            return;
+        }
+        Long subscriptionId = subscriptionIdOfKey(key);
+        int shard = shardOfKey(key);
+        synchronized (shardLock) {
+            // shard moved to another node, which writes it from now on
+            if (shard != REPLICATED && !ownedShards.contains(shard)) {
+                return;
+            }
+            List<SubscribeMessage> registrations = getRegistrations(subscriptionId).stream()
+                    .filter(registration -> shardOf(registration.getFilter()) == shard)
+                    .collect(Collectors.toList());
+            snapshotLog.write(key, registrations);
+        }
+    }
+
+    private String snapshotKey(Long subscriptionId, int shard) {
+        return sharded ? String.valueOf(subscriptionId) + SHARD_SEPARATOR + shard : String.valueOf(subscriptionId);
+    }
+
+    private static boolean isShardKey(String key) {
+        return key.indexOf(SHARD_SEPARATOR) >= 0;
+    }
+
+    private static int shardOfKey(String key) {
+        return Integer.parseInt(key.substring(key.indexOf(SHARD_SEPARATOR) + 1));
+    }
+
+    private static Long subscriptionIdOfKey(String key) {
+        return Long.valueOf(key.substring(0, key.indexOf(SHARD_SEPARATOR)));
+    }
+
+    private boolean inShard(Filter filter, int shard) {
+        return shard == REPLICATED ? isReplicated(filter) : !isReplicated(filter) && shardOf(filter) == shard;
+    }
+
+    private int shardOf(Filter filter) {
+        return shardOf(filter, shardCount);
+    }
+
+    /**
+     * @return request topic partition the device of the filter is hashed to by default Kafka partitioner,
+     * {@link #REPLICATED} for replicated filters or if partition count is not known yet
+     */
+    static int shardOf(Filter filter, int count) {
+        if (isReplicated(filter) || count == 0) {
+            return REPLICATED;
+        }
+        return (Utils.murmur2(filter.getDeviceId().getBytes(StandardCharsets.UTF_8)) & 0x7fffffff) % count;
+    }
+
+    /**
+     * Filters without device are replicated, as well as command update ones: their device id field holds
+     * the command id, while the update itself is published by the owner of the command's device partition.
+     */
+    static boolean isReplicated(Filter filter) {
+        return filter.getDeviceId() == null || COMMAND_UPDATE_EVENT.name().equals(filter.getEventName());
+    }
+
+    private static Set<Integer> shards(Collection<TopicPartition> partitions) {
+        return partitions.stream().map(TopicPartition::partition).collect(Collectors.toSet());
+    }
+
+    /**
+     * Registrations of subscription in shards this node does not own, or the fact it was removed.
+     */
+    private static class RecentChange {
+        private final Map<Filter, Subscriber> registrations = new HashMap<>();
+        private boolean unregistered;
+        private long changedAt;
+
+        void register(Filter filter, Subscriber subscriber) {
+            registrations.put(filter, subscriber);
+            unregistered = false;
+            changedAt = System.currentTimeMillis();
+        }
+
+        void unregister() {
+            registrations.clear();
+            unregistered = true;
+            changedAt = System.currentTimeMillis();
+        }
     }
 }
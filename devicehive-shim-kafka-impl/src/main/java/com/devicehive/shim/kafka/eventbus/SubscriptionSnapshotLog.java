@@ -0,0 +1,138 @@
+package com.devicehive.shim.kafka.eventbus;
+
+/*
+ * #%L
+ * DeviceHive Backend Logic
+ * %%
+ * Copyright (C) 2016 - 2017 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.eventbus.SubscribeMessage;
+import com.devicehive.shim.config.KafkaRpcConfig;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Type;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static com.devicehive.configuration.Constants.SUBSCRIPTION_SNAPSHOT_TOPIC;
+
+/**
+ * Compacted log of subscription registry state, keyed by subscription id, optionally followed by registry shard.
+ * Each record holds all registrations of the subscription in the shard, removed ones are written as tombstones.
+ * Reading the log from the beginning gives full registry state, so a starting node does not depend on subscribers
+ * coming back.
+ */
+public class SubscriptionSnapshotLog {
+    private static final Logger logger = LoggerFactory.getLogger(SubscriptionSnapshotLog.class);
+
+    private static final Type REGISTRATIONS_TYPE = new TypeToken<List<SubscribeMessage>>() {}.getType();
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private final Gson gson;
+    private final KafkaRpcConfig kafkaRpcConfig;
+    private final Producer<String, String> producer;
+
+    public SubscriptionSnapshotLog(Gson gson, KafkaRpcConfig kafkaRpcConfig) {
+        this.gson = gson;
+        this.kafkaRpcConfig = kafkaRpcConfig;
+        this.producer = new KafkaProducer<>(kafkaRpcConfig.producerProps(), new StringSerializer(), new StringSerializer());
+    }
+
+    public void write(String key, List<SubscribeMessage> registrations) {
+        String value = registrations.isEmpty() ? null : gson.toJson(registrations, REGISTRATIONS_TYPE);
+        producer.send(new ProducerRecord<>(SUBSCRIPTION_SNAPSHOT_TOPIC, key, value));
+    }
+
+    /**
+     * Blocks until all written records are sent.
+     */
+    public void flush() {
+        producer.flush();
+    }
+
+    /**
+     * Reads the log up to the offsets it had at the moment of the call. Only the latest record of each key is
+     * restored, as compaction may not have collapsed older ones yet.
+     *
+     * @param keys selects records to restore, others are skipped without parsing
+     * @param restore receives record key and registrations, empty for removed subscriptions
+     * @return number of records restored
+     */
+    public int read(Predicate<String> keys, BiConsumer<String, List<SubscribeMessage>> restore) {
+        Properties props = kafkaRpcConfig.clientConsumerProps();
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(props, new StringDeserializer(), new StringDeserializer())) {
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(SUBSCRIPTION_SNAPSHOT_TOPIC);
+            if (partitionInfos == null || partitionInfos.isEmpty()) {
+                return 0;
+            }
+            List<TopicPartition> partitions = partitionInfos.stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .collect(Collectors.toList());
+            consumer.assign(partitions);
+            consumer.seekToEnd(partitions);
+            Map<TopicPartition, Long> endOffsets = new HashMap<>();
+            partitions.forEach(partition -> endOffsets.put(partition, consumer.position(partition)));
+            consumer.seekToBeginning(partitions);
+
+            Map<String, String> latest = new LinkedHashMap<>();
+            long deadline = System.currentTimeMillis() + kafkaRpcConfig.getSubscriptionBootstrapTimeoutMs();
+            while (!isCaughtUp(consumer, endOffsets)) {
+                if (System.currentTimeMillis() > deadline) {
+                    logger.warn("Subscription snapshot was not read completely in {} ms, {} records loaded",
+                            kafkaRpcConfig.getSubscriptionBootstrapTimeoutMs(), latest.size());
+                    break;
+                }
+                for (ConsumerRecord<String, String> record : consumer.poll(POLL_TIMEOUT_MS)) {
+                    if (keys.test(record.key())) {
+                        latest.put(record.key(), record.value());
+                    }
+                }
+            }
+            latest.forEach((key, value) -> {
+                List<SubscribeMessage> registrations = value != null
+                        ? gson.fromJson(value, REGISTRATIONS_TYPE)
+                        : Collections.emptyList();
+                restore.accept(key, registrations);
+            });
+            return latest.size();
+        }
+    }
+
+    public void close() {
+        producer.close();
+    }
+
+    private static boolean isCaughtUp(KafkaConsumer<String, String> consumer, Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.entrySet().stream().allMatch(entry -> consumer.position(entry.getKey()) >= entry.getValue());
+    }
+}
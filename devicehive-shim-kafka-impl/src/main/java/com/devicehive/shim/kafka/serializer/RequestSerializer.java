@@ -20,23 +20,39 @@ package com.devicehive.shim.kafka.serializer;
  * #L%
  */
 
+import com.devicehive.json.GsonFactory;
 import com.devicehive.shim.api.Request;
+import com.devicehive.shim.kafka.codec.MessageCodec;
+import com.devicehive.shim.kafka.codec.MessageCodecs;
 import com.google.gson.Gson;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.Serializer;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.UnsupportedEncodingException;
 import java.util.Map;
 
+/**
+ * Writes requests with the configured codec and reads them with whichever codec the frame was written by.
+ */
 public class RequestSerializer implements Serializer<Request>, Deserializer<Request> {
-    private static final Logger logger = LoggerFactory.getLogger(RequestSerializer.class);
 
-    private Gson gson;
+    private final MessageCodecs codecs;
+    private final MessageCodec codec;
 
     public RequestSerializer(Gson gson) {
-        this.gson = gson;
+        this(new MessageCodecs(gson), MessageCodecs.JSON);
+    }
+
+    /**
+     * @param gson created by {@link GsonFactory}, bodies are bound to the classes it registers for their actions
+     * @param codec name of the codec messages are written with
+     */
+    public RequestSerializer(Gson gson, String codec) {
+        this(new MessageCodecs(gson, GsonFactory::getBodyType), codec);
+    }
+
+    public RequestSerializer(MessageCodecs codecs, String codec) {
+        this.codecs = codecs;
+        this.codec = codecs.get(codec);
     }
 
     @Override
@@ -44,17 +60,15 @@ public class RequestSerializer implements Serializer<Request>, Deserializer<Requ
 
     @Override
     public Request deserialize(String s, byte[] bytes) {
-        try {
-            return gson.fromJson(new String(bytes, "UTF-8"), Request.class);
-        } catch (UnsupportedEncodingException e) {
-            logger.error("Request deserialization failed", e);
-            throw new RuntimeException(e);
+        if (bytes == null) {
+            return null;
         }
+        return codecs.of(bytes).decodeRequest(bytes);
     }
 
     @Override
     public byte[] serialize(String s, Request request) {
-        return gson.toJson(request).getBytes();
+        return codec.encodeRequest(request);
     }
 
     @Override
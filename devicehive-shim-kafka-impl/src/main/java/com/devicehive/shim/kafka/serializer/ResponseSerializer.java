@@ -20,24 +20,39 @@ package com.devicehive.shim.kafka.serializer;
  * #L%
  */
 
+import com.devicehive.json.GsonFactory;
 import com.devicehive.shim.api.Response;
+import com.devicehive.shim.kafka.codec.MessageCodec;
+import com.devicehive.shim.kafka.codec.MessageCodecs;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.Serializer;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.UnsupportedEncodingException;
 import java.util.Map;
 
+/**
+ * Writes responses with the configured codec and reads them with whichever codec the frame was written by.
+ */
 public class ResponseSerializer implements Serializer<Response>, Deserializer<Response> {
-    private static final Logger logger = LoggerFactory.getLogger(ResponseSerializer.class);
 
-    private Gson gson;
+    private final MessageCodecs codecs;
+    private final MessageCodec codec;
 
     public ResponseSerializer(Gson gson) {
-        this.gson = gson;
+        this(new MessageCodecs(gson), MessageCodecs.JSON);
+    }
+
+    /**
+     * @param gson created by {@link GsonFactory}, bodies are bound to the classes it registers for their actions
+     * @param codec name of the codec messages are written with
+     */
+    public ResponseSerializer(Gson gson, String codec) {
+        this(new MessageCodecs(gson, GsonFactory::getBodyType), codec);
+    }
+
+    public ResponseSerializer(MessageCodecs codecs, String codec) {
+        this.codecs = codecs;
+        this.codec = codecs.get(codec);
     }
 
     @Override
@@ -45,17 +60,15 @@ public class ResponseSerializer implements Serializer<Response>, Deserializer<Re
 
     @Override
     public Response deserialize(String s, byte[] bytes) {
-        try {
-            return gson.fromJson(new String(bytes, "UTF-8"), Response.class);
-        } catch (UnsupportedEncodingException e) {
-            logger.error("Request deserialization failed");
-            throw new RuntimeException(e);
+        if (bytes == null) {
+            return null;
         }
+        return codecs.of(bytes).decodeResponse(bytes);
     }
 
     @Override
     public byte[] serialize(String s, Response response) {
-        return gson.toJson(response).getBytes();
+        return codec.encodeResponse(response);
     }
 
     @Override
@@ -20,11 +20,11 @@ package com.devicehive.shim.kafka.server;
  * #L%
  */
 
+import com.devicehive.api.ServerEventWorkers;
 import com.devicehive.model.ServerEvent;
 import com.devicehive.shim.api.server.MessageDispatcher;
 import com.devicehive.shim.api.server.RpcServer;
 import com.lmax.disruptor.RingBuffer;
-import com.lmax.disruptor.WorkerPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,14 +34,14 @@ import java.util.concurrent.Executors;
 public class KafkaRpcServer implements RpcServer {
     private static final Logger logger = LoggerFactory.getLogger(KafkaRpcServer.class);
 
-    private WorkerPool<ServerEvent> workerPool;
+    private ServerEventWorkers workers;
     private RequestConsumer requestConsumer;
     private ServerEventHandler eventHandler;
     private int workerThreads;
 
-    public KafkaRpcServer(WorkerPool<ServerEvent> workerPool, RequestConsumer requestConsumer, ServerEventHandler eventHandler,
+    public KafkaRpcServer(ServerEventWorkers workers, RequestConsumer requestConsumer, ServerEventHandler eventHandler,
                           int workerThreads) {
-        this.workerPool = workerPool;
+        this.workers = workers;
         this.requestConsumer = requestConsumer;
         this.eventHandler = eventHandler;
         this.workerThreads = workerThreads;
@@ -50,7 +50,7 @@ public class KafkaRpcServer implements RpcServer {
     @Override
     public void start() {
         final ExecutorService execService = Executors.newFixedThreadPool(workerThreads);
-        RingBuffer<ServerEvent> ringBuffer = workerPool.start(execService);
+        RingBuffer<ServerEvent> ringBuffer = workers.start(execService);
         logger.info("LMAX Disruptor started. Buffer size: {}", ringBuffer.getBufferSize());
         requestConsumer.startConsumers(ringBuffer);
     }
@@ -58,7 +58,7 @@ public class KafkaRpcServer implements RpcServer {
     @Override
     public void shutdown() {
         requestConsumer.shutdownConsumers();
-        workerPool.drainAndHalt();
+        workers.drainAndHalt();
     }
 
     @Override
@@ -21,9 +21,12 @@ package com.devicehive.shim.kafka.server;
  */
 
 import com.devicehive.model.ServerEvent;
+import com.devicehive.shim.api.Action;
 import com.devicehive.shim.api.Request;
 import com.lmax.disruptor.RingBuffer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.internals.NoOpConsumerRebalanceListener;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.slf4j.Logger;
@@ -34,6 +37,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 public class RequestConsumer {
     private static final Logger logger = LoggerFactory.getLogger(RequestConsumer.class);
@@ -42,15 +46,38 @@ public class RequestConsumer {
     private Properties consumerProps;
     private int consumerThreads;
     private Deserializer<Request> deserializer;
+    private ConsumerRebalanceListener rebalanceListener;
+    private Predicate<Action> batchable = action -> false;
+    private int lanes = 1;
 
     private ExecutorService consumerExecutor;
     private List<RequestConsumerWorker> workers;
 
     public RequestConsumer(String topic, Properties consumerProps, int consumerThreads, Deserializer<Request> deserializer) {
+        this(topic, consumerProps, consumerThreads, deserializer, new NoOpConsumerRebalanceListener());
+    }
+
+    /**
+     * @param rebalanceListener notified about request topic partitions this node gets or loses, e.g. by
+     *                          subscription registry, that keeps only subscriptions of devices from own partitions
+     */
+    public RequestConsumer(String topic, Properties consumerProps, int consumerThreads, Deserializer<Request> deserializer,
+                           ConsumerRebalanceListener rebalanceListener) {
         this.topic = topic;
         this.consumerProps = consumerProps;
         this.consumerThreads = consumerThreads;
         this.deserializer = deserializer;
+        this.rebalanceListener = rebalanceListener;
+    }
+
+    /**
+     * Makes workers publish requests of batchable actions received in the same poll as a single event.
+     *
+     * @param lanes number of partition key lanes of request handlers, 1 if any handler takes any request
+     */
+    public void enableBatching(Predicate<Action> batchable, int lanes) {
+        this.batchable = batchable;
+        this.lanes = lanes;
     }
 
     public void startConsumers(RingBuffer<ServerEvent> ringBuffer) {
@@ -61,7 +88,8 @@ public class RequestConsumer {
         CountDownLatch latch = new CountDownLatch(consumerThreads);
         for (int i = 0; i < consumerThreads; i++) {
             KafkaConsumer<String, Request> consumer = new KafkaConsumer<>(consumerProps, new StringDeserializer(), deserializer);
-            RequestConsumerWorker worker = new RequestConsumerWorker(this.topic, consumer, ringBuffer, latch);
+            RequestConsumerWorker worker = new RequestConsumerWorker(this.topic, consumer, ringBuffer, latch, rebalanceListener,
+                    batchable, lanes);
             consumerExecutor.submit(worker);
             workers.add(worker);
         }
@@ -20,24 +20,94 @@ package com.devicehive.shim.kafka.server;
  * #L%
  */
 
+import com.devicehive.api.PartitionedWorkerPool;
 import com.devicehive.model.ServerEvent;
+import com.devicehive.shim.api.Action;
 import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.RequestType;
 import com.devicehive.shim.kafka.ConsumerWorker;
 import com.lmax.disruptor.RingBuffer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.function.Predicate;
 
 
 public class RequestConsumerWorker extends ConsumerWorker<Request> {
 
     private RingBuffer<ServerEvent> ringBuffer;
+    private Predicate<Action> batchable;
+    private int lanes;
 
-    RequestConsumerWorker(String topic, KafkaConsumer<String, Request> consumer,
-                          RingBuffer<ServerEvent> ringBuffer, CountDownLatch latch) {
-        super(topic, consumer, latch);
+    /**
+     * @param batchable actions whose requests of the same poll are published as a single batch event
+     * @param lanes     number of partition key lanes of workers, batches never span lanes
+     */
+    RequestConsumerWorker(String topic, KafkaConsumer<String, Request> consumer, RingBuffer<ServerEvent> ringBuffer,
+                          CountDownLatch latch, ConsumerRebalanceListener rebalanceListener,
+                          Predicate<Action> batchable, int lanes) {
+        super(topic, consumer, latch, rebalanceListener);
         this.ringBuffer = ringBuffer;
+        this.batchable = batchable;
+        this.lanes = lanes;
+    }
+
+    /**
+     * Groups contiguous runs of batchable requests of the poll with the same action and lane. A batch is published
+     * in place of its first request and is closed by any other request of its lane, so no request is handled
+     * before requests of its lane that arrived earlier.
+     */
+    @Override
+    public void process(ConsumerRecords<String, Request> records) {
+        long receivedAt = System.currentTimeMillis();
+        for (ConsumerRecord<String, Request> record : records) {
+            Request request = record.value();
+            if (request != null && request.getTimings() != null) {
+                request.getTimings().setServerReceive(receivedAt);
+            }
+        }
+        if (records.count() < 2) {
+            super.process(records);
+            return;
+        }
+        List<List<Request>> events = new ArrayList<>(records.count());
+        Map<Integer, List<Request>> openBatches = new HashMap<>();
+        for (ConsumerRecord<String, Request> record : records) {
+            Request request = record.value();
+            if (request != null && request.getType() == RequestType.clientRequest && batchable.test(request.getAction())) {
+                int lane = PartitionedWorkerPool.laneOf(request, lanes);
+                List<Request> batch = openBatches.get(lane);
+                if (batch == null || batch.get(0).getAction() != request.getAction()) {
+                    batch = new ArrayList<>();
+                    openBatches.put(lane, batch);
+                    events.add(batch);
+                }
+                batch.add(request);
+                continue;
+            }
+            if (request != null) {
+                openBatches.remove(PartitionedWorkerPool.laneOf(request, lanes));
+            } else {
+                openBatches.clear();
+            }
+            List<Request> single = new ArrayList<>(1);
+            single.add(request);
+            events.add(single);
+        }
+        for (List<Request> event : events) {
+            if (event.size() == 1) {
+                ringBuffer.publishEvent((serverEvent, sequence, request) -> serverEvent.set(request), event.get(0));
+            } else {
+                ringBuffer.publishEvent((serverEvent, sequence, batch) -> serverEvent.setBatch(batch), event);
+            }
+        }
     }
 
     @Override
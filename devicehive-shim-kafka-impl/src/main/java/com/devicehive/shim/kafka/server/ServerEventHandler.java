@@ -20,9 +20,12 @@ package com.devicehive.shim.kafka.server;
  * #L%
  */
 
+import com.devicehive.api.RpcLatencyRecorder;
 import com.devicehive.model.ServerEvent;
 import com.devicehive.shim.api.Request;
 import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.Timings;
+import com.devicehive.shim.api.server.BatchRequestHandler;
 import com.devicehive.shim.api.server.MessageDispatcher;
 import com.devicehive.shim.api.server.RequestHandler;
 import com.lmax.disruptor.WorkHandler;
@@ -31,23 +34,41 @@ import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class ServerEventHandler implements MessageDispatcher, WorkHandler<ServerEvent> {
     private static final Logger logger = LoggerFactory.getLogger(ServerEventHandler.class);
 
     private RequestHandler requestHandler;
     private Producer<String, Response> responseProducer;
+    private RpcLatencyRecorder latencyRecorder;
 
     public ServerEventHandler(RequestHandler requestHandler, Producer<String, Response> responseProducer) {
         this.requestHandler = requestHandler;
         this.responseProducer = responseProducer;
     }
 
+    /**
+     * Enables recording of server stages of requests that carry timing stamps.
+     */
+    public void setLatencyRecorder(RpcLatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
     @Override
     public void onEvent(ServerEvent event) throws Exception {
+        if (event.getBatch() != null) {
+            handleBatch(event.getBatch());
+            return;
+        }
         final Request request = event.get();
         final String replyTo = request.getReplyTo();
+        final Timings timings = request.getTimings();
+        if (timings != null) {
+            timings.setHandlerStart(System.currentTimeMillis());
+        }
 
         Response response;
 
@@ -67,9 +88,57 @@ public class ServerEventHandler implements MessageDispatcher, WorkHandler<Server
                         .buildFailed(404);
         }
 
+        if (timings != null) {
+            timings.setHandlerEnd(System.currentTimeMillis());
+        }
+
         // set correlationId explicitly to prevent missing it in request
         response.setCorrelationId(request.getCorrelationId());
-        send(replyTo, response);
+        reply(request, response, timings);
+    }
+
+    private void handleBatch(List<Request> requests) {
+        final long handlerStart = System.currentTimeMillis();
+        logger.debug("Batch of {} client requests received, action {}", requests.size(), requests.get(0).getAction());
+        List<Response> responses;
+        if (requestHandler instanceof BatchRequestHandler) {
+            try {
+                responses = ((BatchRequestHandler) requestHandler).handle(requests);
+            } catch (Exception e) {
+                logger.error("Unexpected exception occurred during batch handling (action='{}', handler='{}')",
+                        requests.get(0).getAction(), requestHandler.getClass().getCanonicalName(), e);
+                responses = requests.stream()
+                        .map(request -> Response.newBuilder()
+                                .withLast(request.isSingleReplyExpected())
+                                .buildFailed(500))
+                        .collect(Collectors.toList());
+            }
+        } else {
+            responses = requests.stream().map(this::handleClientRequest).collect(Collectors.toList());
+        }
+        final long handlerEnd = System.currentTimeMillis();
+        for (int i = 0; i < requests.size(); i++) {
+            Request request = requests.get(i);
+            Response response = responses.get(i);
+            response.setCorrelationId(request.getCorrelationId());
+            Timings timings = request.getTimings();
+            if (timings != null) {
+                timings.setHandlerStart(handlerStart);
+                timings.setHandlerEnd(handlerEnd);
+            }
+            reply(request, response, timings);
+        }
+    }
+
+    private void reply(Request request, Response response, Timings timings) {
+        if (timings != null) {
+            timings.setServerSend(System.currentTimeMillis());
+            response.setTimings(timings);
+            if (latencyRecorder != null) {
+                latencyRecorder.recordServer(request.getAction(), timings);
+            }
+        }
+        send(request.getReplyTo(), response);
     }
 
     private Response handleClientRequest(Request request) {
@@ -79,7 +148,7 @@ public class ServerEventHandler implements MessageDispatcher, WorkHandler<Server
                     .orElseThrow(() -> new NullPointerException("Response must not be null"));
         } catch (Exception e) {
             logger.error("Unexpected exception occurred during request handling (action='{}', handler='{}')",
-                    request.getBody().getAction().name(), requestHandler.getClass().getCanonicalName(), e);
+                    request.getAction(), requestHandler.getClass().getCanonicalName(), e);
 
             response = Response.newBuilder()
                     .withLast(request.isSingleReplyExpected())
@@ -41,6 +41,11 @@ public class KafkaRpcTopicService implements KafkaTopicService {
     private KafkaRpcConfig kafkaRpcConfig;
 
     public void createTopic(String topic) {
+        createTopic(topic, kafkaRpcConfig.topicProps());
+    }
+
+    @Override
+    public void createTopic(String topic, Properties topicConfig) {
         ZkClient zkClient = new ZkClient(
                 kafkaRpcConfig.getZookeeperConnect(),
                 kafkaRpcConfig.getSessionTimeout(),
@@ -48,7 +53,6 @@ public class KafkaRpcTopicService implements KafkaTopicService {
                 ZKStringSerializer$.MODULE$);
         try {
             ZkUtils zkUtils = new ZkUtils(zkClient, new ZkConnection(kafkaRpcConfig.getZookeeperConnect()), false);
-            Properties topicConfig = kafkaRpcConfig.topicProps();
             if (!AdminUtils.topicExists(zkUtils, topic)) {
                 AdminUtils.createTopic(zkUtils, topic, kafkaRpcConfig.getNumPartitions(), 
                         kafkaRpcConfig.getReplicationFactor(), topicConfig, RackAwareMode.Enforced$.MODULE$);
@@ -20,6 +20,12 @@ package com.devicehive.shim.kafka.topic;
  * #L%
  */
 
+import java.util.Properties;
+
 public interface KafkaTopicService {
     void createTopic(String topic);
+
+    default void createTopic(String topic, Properties topicConfig) {
+        createTopic(topic);
+    }
 }
@@ -0,0 +1,42 @@
+package com.devicehive.shim.local;
+
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.FilterRegistry;
+import com.devicehive.model.eventbus.Subscriber;
+
+/**
+ * Filter registry of the in-process transport, the only backend node keeps all subscriptions in memory.
+ */
+public class LocalFilterRegistry extends FilterRegistry {
+
+    @Override
+    public void register(Filter filter, Subscriber subscriber) {
+        processRegister(filter, subscriber);
+    }
+
+    @Override
+    public void unregister(Subscriber subscriber) {
+        processUnregister(subscriber);
+    }
+}
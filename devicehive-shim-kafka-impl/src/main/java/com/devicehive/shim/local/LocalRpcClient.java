@@ -0,0 +1,93 @@
+package com.devicehive.shim.local;
+
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.api.RequestResponseMatcher;
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.Timings;
+import com.devicehive.shim.api.client.ClientOverloadedException;
+import com.devicehive.shim.api.client.RpcClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.Consumer;
+
+/**
+ * RpcClient of the in-process transport for deployments running frontend and backend in one JVM.
+ * Requests go straight to {@link LocalRpcServer}, responses come back through the same {@link RequestResponseMatcher}.
+ */
+public class LocalRpcClient implements RpcClient {
+    private static final Logger logger = LoggerFactory.getLogger(LocalRpcClient.class);
+
+    public static final String LOCAL_REPLY_TO = "local";
+
+    private static final String OVERLOADED_MESSAGE = "Too many requests in flight";
+
+    private LocalRpcServer server;
+    private RequestResponseMatcher requestResponseMatcher;
+
+    public LocalRpcClient(LocalRpcServer server, RequestResponseMatcher requestResponseMatcher) {
+        this.server = server;
+        this.requestResponseMatcher = requestResponseMatcher;
+    }
+
+    @Override
+    public void start() {
+        logger.info("In-process RpcClient started");
+    }
+
+    @Override
+    public void call(Request request, Consumer<Response> callback) {
+        if (!tryCall(request, callback)) {
+            throw new ClientOverloadedException(OVERLOADED_MESSAGE);
+        }
+    }
+
+    @Override
+    public boolean tryCall(Request request, Consumer<Response> callback) {
+        if (!requestResponseMatcher.tryAddRequestCallback(request.getCorrelationId(), request.getAction(), callback, request.isSingleReplyExpected())) {
+            return false;
+        }
+        logger.debug("Request callback added for request: {}, correlationId: {}", request.getBody(), request.getCorrelationId());
+        if (requestResponseMatcher.getLatencyRecorder() != null) {
+            request.setTimings(Timings.sent());
+        }
+
+        push(request);
+        return true;
+    }
+
+    @Override
+    public void push(Request request) {
+        if (request.getBody() == null) {
+            throw new NullPointerException("Request body must not be null.");
+        }
+
+        request.setReplyTo(LOCAL_REPLY_TO);
+        server.publish(request);
+    }
+
+    @Override
+    public void shutdown() {
+    }
+}
@@ -0,0 +1,81 @@
+package com.devicehive.shim.local;
+
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.api.ServerEventWorkers;
+import com.devicehive.model.ServerEvent;
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.server.MessageDispatcher;
+import com.devicehive.shim.api.server.RpcServer;
+import com.lmax.disruptor.RingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * RpcServer of the in-process transport: requests are published to the disruptor as they are, without Kafka
+ * and without serialization.
+ */
+public class LocalRpcServer implements RpcServer {
+    private static final Logger logger = LoggerFactory.getLogger(LocalRpcServer.class);
+
+    private ServerEventWorkers workers;
+    private LocalServerEventHandler eventHandler;
+    private int workerThreads;
+
+    private volatile RingBuffer<ServerEvent> ringBuffer;
+
+    public LocalRpcServer(ServerEventWorkers workers, LocalServerEventHandler eventHandler, int workerThreads) {
+        this.workers = workers;
+        this.eventHandler = eventHandler;
+        this.workerThreads = workerThreads;
+    }
+
+    @Override
+    public void start() {
+        final ExecutorService execService = Executors.newFixedThreadPool(workerThreads);
+        ringBuffer = workers.start(execService);
+        logger.info("LMAX Disruptor started for in-process RPC. Buffer size: {}", ringBuffer.getBufferSize());
+    }
+
+    public void publish(Request request) {
+        if (ringBuffer == null) {
+            throw new IllegalStateException("RpcServer is not started");
+        }
+        if (request.getTimings() != null) {
+            request.getTimings().setServerReceive(System.currentTimeMillis());
+        }
+        ringBuffer.publishEvent((serverEvent, sequence, req) -> serverEvent.set(req), request);
+    }
+
+    @Override
+    public void shutdown() {
+        workers.drainAndHalt();
+    }
+
+    @Override
+    public MessageDispatcher getDispatcher() {
+        return eventHandler;
+    }
+}
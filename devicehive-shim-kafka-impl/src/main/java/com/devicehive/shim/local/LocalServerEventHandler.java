@@ -0,0 +1,46 @@
+package com.devicehive.shim.local;
+
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.api.RequestResponseMatcher;
+import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.server.RequestHandler;
+import com.devicehive.shim.kafka.server.ServerEventHandler;
+
+/**
+ * Handles requests of the in-process transport and hands responses straight to the client's matcher,
+ * so neither requests nor responses are serialized.
+ */
+public class LocalServerEventHandler extends ServerEventHandler {
+
+    private RequestResponseMatcher requestResponseMatcher;
+
+    public LocalServerEventHandler(RequestHandler requestHandler, RequestResponseMatcher requestResponseMatcher) {
+        super(requestHandler, null);
+        this.requestResponseMatcher = requestResponseMatcher;
+    }
+
+    @Override
+    public void send(String replyTo, Response response) {
+        requestResponseMatcher.offerResponse(response);
+    }
+}
@@ -0,0 +1,204 @@
+package com.devicehive.shim.kafka.codec;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.json.GsonFactory;
+import com.devicehive.model.DeviceNotification;
+import com.devicehive.model.JsonStringWrapper;
+import com.devicehive.model.eventbus.events.NotificationEvent;
+import com.devicehive.model.rpc.ErrorResponse;
+import com.devicehive.model.rpc.NotificationInsertRequest;
+import com.devicehive.model.rpc.NotificationSearchResponse;
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.api.Body;
+import com.devicehive.shim.api.EncodedBody;
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.Timings;
+import com.devicehive.shim.kafka.serializer.RequestSerializer;
+import com.devicehive.shim.kafka.serializer.ResponseSerializer;
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class MessageCodecsTest {
+
+    private static final String TOPIC = "topic";
+
+    private final Gson gson = GsonFactory.createGson();
+
+    @Test
+    public void shouldRoundTripRequestsAndResponsesWithBinaryCodec() {
+        RequestSerializer requestSerializer = new RequestSerializer(gson, MessageCodecs.BINARY);
+        ResponseSerializer responseSerializer = new ResponseSerializer(gson, MessageCodecs.BINARY);
+
+        Request request = Request.newBuilder()
+                .withBody(new NotificationInsertRequest(notification(1L, "{\"value\":21.50,\"tags\":[\"a\",null,true]}")))
+                .withPartitionKey("device")
+                .withSingleReply(false)
+                .build();
+        request.setReplyTo("reply");
+        byte[] requestFrame = requestSerializer.serialize(TOPIC, request);
+        assertEquals(MessageCodecs.FRAME_MARKER, requestFrame[0]);
+        assertRequestEquals(request, requestSerializer.deserialize(TOPIC, requestFrame));
+
+        NotificationEvent event = new NotificationEvent(notification(2L, "{\"ünïcode\":\"\\uD83D\\uDE00\",\"n\":-9007199254740993}"));
+        Response batch = Response.newBuilder()
+                .withBody(new EncodedBody(event, gson.toJson(event, Body.class)))
+                .withCorrelationIds(Arrays.asList("a", "b"))
+                .withLast(false)
+                .buildSuccess();
+        Response decodedBatch = responseSerializer.deserialize(TOPIC, responseSerializer.serialize(TOPIC, batch));
+        assertEquals(batch.getCorrelationIds(), decodedBatch.getCorrelationIds());
+        assertFalse(decodedBatch.isLast());
+        assertEquals(gson.toJson(event, Body.class), gson.toJson(decodedBatch.getBody(), Body.class));
+
+        Response search = Response.newBuilder()
+                .withBody(new NotificationSearchResponse(Arrays.asList(notification(3L, null), notification(4L, "{}"))))
+                .withCorrelationId("c")
+                .buildSuccess();
+        assertResponseEquals(search, responseSerializer.deserialize(TOPIC, responseSerializer.serialize(TOPIC, search)));
+
+        Response failed = Response.newBuilder()
+                .withBody(new ErrorResponse("error"))
+                .withCorrelationId("d")
+                .buildFailed(404);
+        assertResponseEquals(failed, responseSerializer.deserialize(TOPIC, responseSerializer.serialize(TOPIC, failed)));
+    }
+
+    @Test
+    public void shouldReadFramesOfEitherCodecRegardlessOfConfiguredOne() {
+        Request request = Request.newBuilder()
+                .withBody(new NotificationInsertRequest(notification(1L, "{\"value\":1}")))
+                .build();
+        byte[] json = new RequestSerializer(gson, MessageCodecs.JSON).serialize(TOPIC, request);
+        byte[] binary = new RequestSerializer(gson, MessageCodecs.BINARY).serialize(TOPIC, request);
+        assertEquals('{', json[0]);
+        assertTrue(binary.length < json.length);
+
+        assertRequestEquals(request, new RequestSerializer(gson, MessageCodecs.BINARY).deserialize(TOPIC, json));
+        assertRequestEquals(request, new RequestSerializer(gson).deserialize(TOPIC, binary));
+    }
+
+    @Test
+    public void shouldDecodeEnvelopeWithoutBody() {
+        ResponseSerializer serializer = new ResponseSerializer(gson, MessageCodecs.BINARY);
+        String malformedBody = "{\"b\":{\"a\":3,\"notifications\":\"none\"},\"cId\":\"a\",\"cIds\":null,\"l\":false,\"err\":0,\"fld\":false}";
+        Response json = serializer.deserialize(TOPIC, malformedBody.getBytes(StandardCharsets.UTF_8));
+        assertEquals("a", json.getCorrelationId());
+        assertFalse(json.isLast());
+        assertEquals(Action.NOTIFICATION_SEARCH_RESPONSE, json.getAction());
+
+        byte[] frame = serializer.serialize(TOPIC, Response.newBuilder()
+                .withBody(new ErrorResponse("error"))
+                .withCorrelationId("b")
+                .buildFailed(500));
+        frame[frame.length - 1] = (byte) 0xFF;
+        Response binary = serializer.deserialize(TOPIC, frame);
+        assertEquals("b", binary.getCorrelationId());
+        assertEquals(500, binary.getErrorCode());
+        assertEquals(Action.ERROR_RESPONSE, binary.getAction());
+
+        for (Response response : Arrays.asList(json, binary)) {
+            try {
+                response.getBody();
+                fail("Malformed body is expected to fail on first access");
+            } catch (RuntimeException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void shouldDecodeJsonBodyFromItsSpanOnAccess() {
+        String frame = "{ \"cId\" : \"a\", \"b\" : {\"message\": \"} \\\" { ]\", \"nested\": {\"a\": [1, {}]},\n"
+                + " \"a\" : 1 } , \"l\":true, \"err\":0, \"fld\":true }";
+        Response response = new ResponseSerializer(gson).deserialize(TOPIC, frame.getBytes(StandardCharsets.UTF_8));
+        assertEquals("a", response.getCorrelationId());
+        assertEquals(Action.ERROR_RESPONSE, response.getAction());
+        assertEquals("} \" { ]", response.getBody().cast(ErrorResponse.class).getMessage());
+    }
+
+    @Test
+    public void shouldCarryTimingsWithEitherCodec() {
+        for (String codec : Arrays.asList(MessageCodecs.JSON, MessageCodecs.BINARY)) {
+            Request request = Request.newBuilder()
+                    .withBody(new NotificationInsertRequest(notification(1L, "{\"value\":1}")))
+                    .build();
+            request.setTimings(new Timings(1500000000000L, 1500000000002L, 0, 0, 0));
+            Request decodedRequest = new RequestSerializer(gson, codec).deserialize(TOPIC,
+                    new RequestSerializer(gson, codec).serialize(TOPIC, request));
+            assertEquals(1500000000000L, decodedRequest.getTimings().getClientSend());
+            assertEquals(1500000000002L, decodedRequest.getTimings().getServerReceive());
+            assertRequestEquals(request, decodedRequest);
+
+            Response response = Response.newBuilder()
+                    .withBody(new ErrorResponse("error"))
+                    .withCorrelationId("a")
+                    .buildFailed(500);
+            response.setTimings(new Timings(1, 2, 3, 4, 5));
+            Response decodedResponse = new ResponseSerializer(gson, codec).deserialize(TOPIC,
+                    new ResponseSerializer(gson, codec).serialize(TOPIC, response));
+            assertEquals(3, decodedResponse.getTimings().getHandlerStart());
+            assertEquals(4, decodedResponse.getTimings().getHandlerEnd());
+            assertEquals(5, decodedResponse.getTimings().getServerSend());
+            assertResponseEquals(response, decodedResponse);
+
+            Response untimed = Response.newBuilder().withCorrelationId("b").buildSuccess();
+            assertNull(new ResponseSerializer(gson, codec).deserialize(TOPIC,
+                    new ResponseSerializer(gson, codec).serialize(TOPIC, untimed)).getTimings());
+        }
+    }
+
+    private DeviceNotification notification(Long id, String parameters) {
+        DeviceNotification notification = new DeviceNotification();
+        notification.setId(id);
+        notification.setNetworkId(1L);
+        notification.setDeviceTypeId(1L);
+        notification.setDeviceId("device");
+        notification.setNotification("temperature");
+        notification.setTimestamp(new Date(1500000000000L));
+        notification.setParameters(parameters != null ? new JsonStringWrapper(parameters) : null);
+        return notification;
+    }
+
+    private void assertRequestEquals(Request expected, Request actual) {
+        assertEquals(expected.getCorrelationId(), actual.getCorrelationId());
+        assertEquals(expected.getPartitionKey(), actual.getPartitionKey());
+        assertEquals(expected.getReplyTo(), actual.getReplyTo());
+        assertEquals(expected.isSingleReplyExpected(), actual.isSingleReplyExpected());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(gson.toJson(expected.getBody(), Body.class), gson.toJson(actual.getBody(), Body.class));
+    }
+
+    private void assertResponseEquals(Response expected, Response actual) {
+        assertEquals(expected.getCorrelationId(), actual.getCorrelationId());
+        assertEquals(expected.isLast(), actual.isLast());
+        assertEquals(expected.isFailed(), actual.isFailed());
+        assertEquals(expected.getErrorCode(), actual.getErrorCode());
+        assertEquals(gson.toJson(expected.getBody(), Body.class), gson.toJson(actual.getBody(), Body.class));
+    }
+}
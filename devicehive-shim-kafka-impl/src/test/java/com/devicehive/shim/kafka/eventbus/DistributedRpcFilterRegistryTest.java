@@ -0,0 +1,107 @@
+package com.devicehive.shim.kafka.eventbus;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.model.DeviceCommand;
+import com.devicehive.model.eventbus.Filter;
+import com.devicehive.model.eventbus.events.CommandUpdateEvent;
+import org.apache.kafka.clients.producer.internals.DefaultPartitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.devicehive.shim.api.Action.COMMAND_UPDATE_EVENT;
+import static com.devicehive.shim.api.Action.NOTIFICATION_EVENT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DistributedRpcFilterRegistryTest {
+
+    private static final String REQUEST_TOPIC = "request_topic";
+    private static final int SHARDS = 2;
+
+    private final DefaultPartitioner partitioner = new DefaultPartitioner();
+    private final Cluster cluster = twoPartitionCluster();
+
+    @Test
+    public void shouldKeepCommandUpdateSubscriptionOnNodeThatPublishesUpdate() {
+        for (long commandId = 1; commandId <= 100; commandId++) {
+            String deviceId = "device-" + commandId * 7;
+            Filter subscription = new Filter(1L, 1L, Long.toString(commandId), COMMAND_UPDATE_EVENT.name(), null);
+            DeviceCommand command = new DeviceCommand();
+            command.setId(commandId);
+            command.setDeviceId(deviceId);
+            command.setNetworkId(1L);
+            command.setDeviceTypeId(1L);
+
+            // CommandUpdateRequest is partitioned by device id, so the event is published by that partition owner
+            int owner = partitionOf(deviceId);
+            for (Filter eventFilter : new CommandUpdateEvent(command).getApplicableFilters()) {
+                assertEquals(subscription.getDeviceId(), eventFilter.getDeviceId());
+            }
+            assertTrue(ownedBy(subscription, owner));
+        }
+    }
+
+    @Test
+    public void shouldKeepDeviceSubscriptionOnlyOnPartitionOwnerOfDevice() {
+        for (int i = 0; i < 100; i++) {
+            String deviceId = "device-" + i;
+            Filter subscription = new Filter(1L, 1L, deviceId, NOTIFICATION_EVENT.name(), null);
+            int owner = partitionOf(deviceId);
+
+            assertEquals(owner, DistributedRpcFilterRegistry.shardOf(subscription, SHARDS));
+            assertTrue(ownedBy(subscription, owner));
+            assertFalse(ownedBy(subscription, (owner + 1) % SHARDS));
+        }
+    }
+
+    @Test
+    public void shouldReplicateSubscriptionsWithoutDevice() {
+        Filter subscription = new Filter(1L, null, null, NOTIFICATION_EVENT.name(), null);
+
+        assertEquals(DistributedRpcFilterRegistry.REPLICATED, DistributedRpcFilterRegistry.shardOf(subscription, SHARDS));
+    }
+
+    private boolean ownedBy(Filter filter, int partition) {
+        int shard = DistributedRpcFilterRegistry.shardOf(filter, SHARDS);
+        return shard == DistributedRpcFilterRegistry.REPLICATED || shard == partition;
+    }
+
+    private int partitionOf(String key) {
+        return partitioner.partition(REQUEST_TOPIC, key, key.getBytes(StandardCharsets.UTF_8), null, null, cluster);
+    }
+
+    private static Cluster twoPartitionCluster() {
+        Node node = new Node(0, "localhost", 9092);
+        Node[] replicas = {node};
+        return new Cluster(Collections.singletonList(node), Arrays.asList(
+                new PartitionInfo(REQUEST_TOPIC, 0, node, replicas, replicas),
+                new PartitionInfo(REQUEST_TOPIC, 1, node, replicas, replicas)),
+                Collections.emptySet());
+    }
+}
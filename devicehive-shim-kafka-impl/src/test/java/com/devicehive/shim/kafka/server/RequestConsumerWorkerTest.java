@@ -0,0 +1,120 @@
+package com.devicehive.shim.kafka.server;
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.api.PartitionedWorkerPool;
+import com.devicehive.model.ServerEvent;
+import com.devicehive.shim.api.Action;
+import com.devicehive.shim.api.Body;
+import com.devicehive.shim.api.Request;
+import com.lmax.disruptor.RingBuffer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static com.devicehive.shim.api.Action.NOTIFICATION_INSERT_REQUEST;
+import static com.devicehive.shim.api.Action.NOTIFICATION_SUBSCRIBE_REQUEST;
+import static org.junit.Assert.assertEquals;
+
+public class RequestConsumerWorkerTest {
+
+    private static final String TOPIC = "request_topic";
+
+    private final RingBuffer<ServerEvent> ringBuffer = RingBuffer.createSingleProducer(ServerEvent::new, 16);
+
+    @Test
+    public void shouldMergeOnlyContiguousRequestsOfLane() {
+        RequestConsumerWorker worker = worker(1);
+
+        worker.process(records(
+                request("a", NOTIFICATION_INSERT_REQUEST, "device"),
+                request("b", NOTIFICATION_INSERT_REQUEST, "device"),
+                request("x", NOTIFICATION_SUBSCRIBE_REQUEST, "device"),
+                request("c", NOTIFICATION_INSERT_REQUEST, "device"),
+                request("d", NOTIFICATION_INSERT_REQUEST, "device")));
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Collections.singletonList("x"), Arrays.asList("c", "d")),
+                publishedEvents());
+    }
+
+    @Test
+    public void shouldKeepBatchOpenAcrossRequestsOfOtherLanes() {
+        RequestConsumerWorker worker = worker(2);
+        String device = "device";
+        String other = keyOfOtherLane(device);
+
+        worker.process(records(
+                request("a", NOTIFICATION_INSERT_REQUEST, device),
+                request("x", NOTIFICATION_SUBSCRIBE_REQUEST, other),
+                request("b", NOTIFICATION_INSERT_REQUEST, device)));
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Collections.singletonList("x")), publishedEvents());
+    }
+
+    private RequestConsumerWorker worker(int lanes) {
+        return new RequestConsumerWorker(TOPIC, null, ringBuffer, new CountDownLatch(1), null,
+                NOTIFICATION_INSERT_REQUEST::equals, lanes);
+    }
+
+    private List<List<String>> publishedEvents() {
+        List<List<String>> events = new ArrayList<>();
+        for (long sequence = 0; sequence <= ringBuffer.getCursor(); sequence++) {
+            ServerEvent event = ringBuffer.get(sequence);
+            List<Request> requests = event.getBatch() != null ? event.getBatch() : Collections.singletonList(event.get());
+            events.add(requests.stream().map(Request::getCorrelationId).collect(Collectors.toList()));
+        }
+        return events;
+    }
+
+    private static String keyOfOtherLane(String key) {
+        int lane = PartitionedWorkerPool.laneOf(request("", NOTIFICATION_INSERT_REQUEST, key), 2);
+        for (int i = 0; ; i++) {
+            String other = key + i;
+            if (PartitionedWorkerPool.laneOf(request("", NOTIFICATION_INSERT_REQUEST, other), 2) != lane) {
+                return other;
+            }
+        }
+    }
+
+    private static Request request(String correlationId, Action action, String partitionKey) {
+        return Request.newBuilder()
+                .withBody(new Body(action) {})
+                .withCorrelationId(correlationId)
+                .withPartitionKey(partitionKey)
+                .build();
+    }
+
+    private static ConsumerRecords<String, Request> records(Request... requests) {
+        List<ConsumerRecord<String, Request>> records = new ArrayList<>();
+        for (Request request : requests) {
+            records.add(new ConsumerRecord<>(TOPIC, 0, records.size(), request.getPartitionKey(), request));
+        }
+        return new ConsumerRecords<>(Collections.singletonMap(new TopicPartition(TOPIC, 0), records));
+    }
+}
@@ -0,0 +1,168 @@
+package com.devicehive.shim.local;
+
+
+/*
+ * #%L
+ * DeviceHive Shim Kafka Implementation
+ * %%
+ * Copyright (C) 2016 DataArt
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.devicehive.api.RequestResponseMatcher;
+import com.devicehive.api.ServerEventWorkers;
+import com.devicehive.model.ServerEvent;
+import com.devicehive.shim.api.Request;
+import com.devicehive.shim.api.Response;
+import com.devicehive.shim.api.client.RpcClient;
+import com.devicehive.shim.api.server.RequestHandler;
+import com.devicehive.shim.kafka.fixture.RequestHandlerWrapper;
+import com.devicehive.shim.kafka.fixture.TestRequestBody;
+import com.devicehive.shim.kafka.fixture.TestResponseBody;
+import com.lmax.disruptor.FatalExceptionHandler;
+import com.lmax.disruptor.WorkerPool;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LocalRpcClientServerCommunicationTest {
+
+    @Rule
+    public Timeout testTimeout = new Timeout(60000, TimeUnit.MILLISECONDS);
+
+    private static LocalRpcServer server;
+    private static RpcClient client;
+    private static RequestResponseMatcher matcher;
+
+    private static RequestHandlerWrapper handlerWrapper = new RequestHandlerWrapper();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        matcher = new RequestResponseMatcher();
+        LocalServerEventHandler eventHandler = new LocalServerEventHandler(handlerWrapper, matcher);
+        WorkerPool<ServerEvent> workerPool = new WorkerPool<>(ServerEvent::new, new FatalExceptionHandler(),
+                new LocalServerEventHandler(handlerWrapper, matcher), new LocalServerEventHandler(handlerWrapper, matcher));
+        server = new LocalRpcServer(ServerEventWorkers.pooled(workerPool), eventHandler, 2);
+        server.start();
+        client = new LocalRpcClient(server, matcher);
+        client.start();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        client.shutdown();
+        server.shutdown();
+        matcher.shutdown();
+    }
+
+    @Test
+    public void shouldHandOverRequestWithoutSerialization() throws Exception {
+        CompletableFuture<Request> future = new CompletableFuture<>();
+        handlerWrapper.setDelegate(request -> {
+            future.complete(request);
+            return Response.newBuilder()
+                    .withBody(new TestResponseBody("Response"))
+                    .withLast(true)
+                    .buildSuccess();
+        });
+
+        Request request = Request.newBuilder()
+                .withBody(new TestRequestBody("RequestResponseTest"))
+                .withSingleReply(true)
+                .build();
+
+        client.push(request);
+
+        assertSame(request, future.get(10, TimeUnit.SECONDS));
+        assertEquals(LocalRpcClient.LOCAL_REPLY_TO, request.getReplyTo());
+    }
+
+    @Test
+    public void shouldSuccessfullyReplyToRequest() throws Exception {
+        TestResponseBody body = new TestResponseBody("ResponseFromServer");
+        handlerWrapper.setDelegate(request -> Response.newBuilder()
+                .withBody(body)
+                .withLast(true)
+                .buildSuccess());
+
+        Request request = Request.newBuilder()
+                .withBody(new TestRequestBody("RequestResponseTest"))
+                .withSingleReply(true)
+                .build();
+
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        client.call(request, future::complete);
+
+        Response response = future.get(10, TimeUnit.SECONDS);
+        assertEquals(request.getCorrelationId(), response.getCorrelationId());
+        assertSame(body, response.getBody());
+        assertTrue(response.isLast());
+        assertFalse(response.isFailed());
+    }
+
+    @Test
+    public void shouldSendErrorToClient() throws Exception {
+        handlerWrapper.setDelegate(request -> {
+            throw new RuntimeException("Something went wrong");
+        });
+
+        Request request = Request.newBuilder()
+                .withBody(new TestRequestBody("RequestResponseTest"))
+                .withSingleReply(true)
+                .build();
+
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        client.call(request, future::complete);
+
+        Response response = future.get(10, TimeUnit.SECONDS);
+        assertEquals(request.getCorrelationId(), response.getCorrelationId());
+        assertTrue(response.isFailed());
+        assertEquals(500, response.getErrorCode());
+    }
+
+    @Test
+    public void shouldDeliverPushedResponsesToSubscriber() throws Exception {
+        RequestHandler handler = request -> Response.newBuilder()
+                .withBody(new TestResponseBody("ResponseFromServer"))
+                .withLast(false)
+                .buildSuccess();
+        handlerWrapper.setDelegate(handler);
+
+        Request request = Request.newBuilder()
+                .withBody(new TestRequestBody("SubscribeTest"))
+                .withSingleReply(false)
+                .build();
+
+        CountDownLatch latch = new CountDownLatch(4);
+        client.call(request, response -> latch.countDown());
+        for (int i = 0; i < 3; i++) {
+            server.getDispatcher().send(request.getReplyTo(), Response.newBuilder()
+                    .withBody(new TestResponseBody(i + "-response"))
+                    .withCorrelationId(request.getCorrelationId())
+                    .withLast(false)
+                    .buildSuccess());
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+}